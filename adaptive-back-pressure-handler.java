@@ -0,0 +1,174 @@
+package com.example.sqslistener.concurrency;
+
+import io.awspring.cloud.sqs.listener.BatchAwareBackPressureHandler;
+import io.awspring.cloud.sqs.listener.IdentifiableContainerComponent;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Back-pressure handler whose concurrency limit and poll batch size can be changed while the
+ * container runs. The container's SemaphoreBackPressureHandler fixes both at startup from
+ * maxConcurrentMessages/maxMessagesPerPoll; this one is resized by AdaptiveConcurrencyController.
+ *
+ * Lowering the limit never interrupts work: in-flight messages finish and new permits are only
+ * handed out once in-flight drops below the new limit.
+ *
+ * An empty poll hands its permits back through releaseBatch() only when they equal
+ * getBatchSize() as read by the poller right before (AbstractPollingMessageSource
+ * .releaseUnusedPermits), otherwise through release(n). releaseBatch() therefore releases the
+ * batch size that poller thread last saw, not the current one, so a resize() in between cannot
+ * release more or fewer permits than the poll was granted.
+ */
+public class AdaptiveBackPressureHandler implements BatchAwareBackPressureHandler, IdentifiableContainerComponent {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitsReleased = lock.newCondition();
+    private final Duration acquireTimeout;
+    // Batch size last returned to each poller thread; what its releaseBatch() gives back
+    private final ThreadLocal<Integer> observedBatchSize = new ThreadLocal<>();
+
+    private volatile int limit;
+    private volatile int batchSize;
+    private int inFlight;
+    private int peakInFlight;
+    private String id;
+
+    public AdaptiveBackPressureHandler(int limit, int batchSize, Duration acquireTimeout) {
+        this.limit = limit;
+        this.batchSize = batchSize;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public int requestBatch() throws InterruptedException {
+        return request(batchSize);
+    }
+
+    /**
+     * Grants up to {@code amount} permits, or 0 if none became available within the acquire timeout.
+     */
+    @Override
+    public int request(int amount) throws InterruptedException {
+        long remainingNanos = acquireTimeout.toNanos();
+        lock.lockInterruptibly();
+        try {
+            while (limit - inFlight <= 0) {
+                if (remainingNanos <= 0) {
+                    return 0;
+                }
+                remainingNanos = permitsReleased.awaitNanos(remainingNanos);
+            }
+            int granted = Math.min(amount, limit - inFlight);
+            inFlight += granted;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+            return granted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void releaseBatch() {
+        Integer observed = observedBatchSize.get();
+        observedBatchSize.remove();
+        release(observed != null ? observed : batchSize);
+    }
+
+    @Override
+    public void release(int amount) {
+        lock.lock();
+        try {
+            inFlight = Math.max(0, inFlight - amount);
+            permitsReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getBatchSize() {
+        int size = batchSize;
+        observedBatchSize.set(size);
+        return size;
+    }
+
+    @Override
+    public boolean drain(Duration timeout) {
+        long remainingNanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (inFlight > 0) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = permitsReleased.awaitNanos(remainingNanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a new limit and batch size; a raised limit wakes pollers waiting for permits.
+     */
+    void resize(int newLimit, int newBatchSize) {
+        lock.lock();
+        try {
+            limit = newLimit;
+            batchSize = newBatchSize;
+            permitsReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Highest in-flight count since the previous call, used to tell a saturated limit from an idle one.
+     */
+    int takePeakInFlight() {
+        lock.lock();
+        try {
+            int peak = peakInFlight;
+            peakInFlight = inFlight;
+            return peak;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveBackPressureHandler[" + id + ", limit=" + limit + ", batchSize=" + batchSize
+                + ", timeout=" + acquireTimeout.toMillis() + TimeUnit.MILLISECONDS.name().toLowerCase() + "]";
+    }
+}
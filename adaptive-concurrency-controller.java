@@ -0,0 +1,309 @@
+package com.example.sqslistener.concurrency;
+
+import io.awspring.cloud.sqs.listener.ContainerOptions;
+import io.awspring.cloud.sqs.listener.interceptor.MessageInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD controller for the listener containers built by AdaptiveSqsListenerContainerFactory.
+ *
+ * Every interval it compares each container's processing latency, error rate, peak in-flight
+ * and queue backlog (ApproximateNumberOfMessages) against the targets and resizes the
+ * container's AdaptiveBackPressureHandler:
+ *  - latency or error rate over target: limit *= decrease-factor
+ *  - limit saturated and messages waiting: limit += increase-step
+ *  - queue empty and less than half the limit used: limit -= 1
+ * The poll batch size follows the backlog, so a near-empty queue is polled for one message at
+ * a time and a deep queue for full batches of 10.
+ *
+ * Enable with sqs.adaptive.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sqs.adaptive.enabled", havingValue = "true")
+public class AdaptiveConcurrencyController {
+
+    private static final long UNKNOWN_BACKLOG = -1;
+
+    private final Map<String, ContainerState> containers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sqs.adaptive.initial-concurrency:10}")
+    private int initialConcurrency;
+
+    @Value("${sqs.adaptive.min-concurrency:2}")
+    private int minConcurrency;
+
+    @Value("${sqs.adaptive.max-concurrency:100}")
+    private int maxConcurrency;
+
+    @Value("${sqs.adaptive.min-poll-size:1}")
+    private int minPollSize;
+
+    @Value("${sqs.adaptive.max-poll-size:10}")
+    private int maxPollSize;
+
+    @Value("${sqs.adaptive.target-latency-ms:1000}")
+    private long targetLatencyMs;
+
+    @Value("${sqs.adaptive.max-error-rate:0.05}")
+    private double maxErrorRate;
+
+    @Value("${sqs.adaptive.increase-step:2}")
+    private int increaseStep;
+
+    @Value("${sqs.adaptive.decrease-factor:0.75}")
+    private double decreaseFactor;
+
+    public AdaptiveConcurrencyController(SqsAsyncClient sqsAsyncClient,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${sqs.adaptive.interval:10s}") Duration interval) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.meterRegistry = meterRegistry;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqs-adaptive-controller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::adjustAll, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Adaptive concurrency controller started, adjusting every {}", interval);
+    }
+
+    /**
+     * Per-container state; doubles as the interceptor that measures the container's messages.
+     */
+    ContainerState newContainerState() {
+        return new ContainerState();
+    }
+
+    /**
+     * Called by the container when it starts. A restarted container keeps its state and metrics
+     * but gets a fresh handler, since the old one was drained on stop.
+     */
+    AdaptiveBackPressureHandler register(ContainerState state, String containerId,
+                                         Collection<String> queueNames, ContainerOptions<?, ?> options) {
+        int limit = clamp(initialConcurrency, minConcurrency, maxConcurrency);
+        int batchSize = clamp(Math.min(options.getMaxMessagesPerPoll(), limit), minPollSize, maxPollSize);
+        AdaptiveBackPressureHandler handler = new AdaptiveBackPressureHandler(limit, batchSize, options.getMaxDelayBetweenPolls());
+        state.handler = handler;
+
+        if (containers.putIfAbsent(containerId, state) == null) {
+            state.containerId = containerId;
+            state.queueNames = List.copyOf(queueNames);
+            registerMetrics(state);
+            log.info("Adaptive concurrency enabled for container {} on {}: limit={}, batchSize={}, bounds=[{}, {}]",
+                    containerId, queueNames, limit, batchSize, minConcurrency, maxConcurrency);
+        }
+        return handler;
+    }
+
+    private void registerMetrics(ContainerState state) {
+        Gauge.builder("sqs.listener.concurrency.limit", state, s -> s.handler.getLimit())
+                .description("Current adaptive concurrency limit")
+                .tag("container", state.containerId)
+                .register(meterRegistry);
+        Gauge.builder("sqs.listener.poll.batch.size", state, s -> s.handler.getBatchSize())
+                .description("Current number of messages requested per poll")
+                .tag("container", state.containerId)
+                .register(meterRegistry);
+        Gauge.builder("sqs.listener.in.flight", state, s -> s.handler.getInFlight())
+                .description("Messages currently held by the container")
+                .tag("container", state.containerId)
+                .register(meterRegistry);
+        Gauge.builder("sqs.listener.queue.backlog", state, s -> s.backlog)
+                .description("ApproximateNumberOfMessages at the last adjustment, -1 if unknown")
+                .tag("container", state.containerId)
+                .register(meterRegistry);
+        state.increases = Counter.builder("sqs.listener.concurrency.adjustments")
+                .tag("container", state.containerId)
+                .tag("direction", "increase")
+                .register(meterRegistry);
+        state.decreases = Counter.builder("sqs.listener.concurrency.adjustments")
+                .tag("container", state.containerId)
+                .tag("direction", "decrease")
+                .register(meterRegistry);
+    }
+
+    private void adjustAll() {
+        containers.values().forEach(state -> {
+            try {
+                adjust(state);
+                refreshBacklog(state);
+            } catch (Exception e) {
+                log.warn("Adaptive adjustment failed for container {}: {}", state.containerId, e.getMessage());
+            }
+        });
+    }
+
+    private void adjust(ContainerState state) {
+        AdaptiveBackPressureHandler handler = state.handler;
+        long processed = state.processed.sumThenReset();
+        long failed = state.failed.sumThenReset();
+        long latencyNanos = state.latencyNanos.sumThenReset();
+        int peakInFlight = handler.takePeakInFlight();
+        long backlog = state.backlog;
+
+        int limit = handler.getLimit();
+        int newLimit = limit;
+        long avgLatencyMs = processed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(latencyNanos / processed);
+        double errorRate = processed == 0 ? 0 : (double) failed / processed;
+
+        if (processed > 0 && (avgLatencyMs > targetLatencyMs || errorRate > maxErrorRate)) {
+            newLimit = Math.max(minConcurrency, (int) (limit * decreaseFactor));
+        } else if (peakInFlight >= limit && backlog != 0) {
+            newLimit = Math.min(maxConcurrency, limit + increaseStep);
+        } else if (backlog == 0 && peakInFlight < limit / 2) {
+            newLimit = Math.max(minConcurrency, limit - 1);
+        }
+
+        int batchCap = Math.min(maxPollSize, newLimit);
+        int newBatchSize = backlog == UNKNOWN_BACKLOG
+                ? batchCap
+                : clamp((int) Math.min(backlog, batchCap), minPollSize, batchCap);
+
+        if (newLimit != limit || newBatchSize != handler.getBatchSize()) {
+            handler.resize(newLimit, newBatchSize);
+            if (newLimit > limit) {
+                state.increases.increment();
+            } else if (newLimit < limit) {
+                state.decreases.increment();
+            }
+            log.debug("Container {}: limit {} -> {}, batchSize -> {} (processed={}, avgLatencyMs={}, errorRate={}, peakInFlight={}, backlog={})",
+                    state.containerId, limit, newLimit, newBatchSize, processed, avgLatencyMs, errorRate, peakInFlight, backlog);
+        }
+    }
+
+    /**
+     * Fetches ApproximateNumberOfMessages for the container's queues; the result is used by
+     * the next adjustment so the scheduler thread never waits on SQS.
+     */
+    private void refreshBacklog(ContainerState state) {
+        List<CompletableFuture<Long>> depths = new ArrayList<>(state.queueNames.size());
+        for (String queueName : state.queueNames) {
+            depths.add(resolveQueueUrl(state, queueName)
+                    .thenCompose(queueUrl -> sqsAsyncClient.getQueueAttributes(request -> request
+                            .queueUrl(queueUrl)
+                            .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)))
+                    .thenApply(response -> Long.parseLong(response.attributes()
+                            .getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "0"))));
+        }
+        CompletableFuture.allOf(depths.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, throwable) -> {
+                    if (throwable != null) {
+                        log.debug("Could not read backlog of {}: {}", state.queueNames, throwable.getMessage());
+                        state.backlog = UNKNOWN_BACKLOG;
+                        return;
+                    }
+                    state.backlog = depths.stream().mapToLong(CompletableFuture::join).sum();
+                });
+    }
+
+    private CompletableFuture<String> resolveQueueUrl(ContainerState state, String queueName) {
+        if (queueName.startsWith("https://") || queueName.startsWith("http://")) {
+            return CompletableFuture.completedFuture(queueName);
+        }
+        String cached = state.queueUrls.get(queueName);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return sqsAsyncClient.getQueueUrl(request -> request.queueName(queueName))
+                .thenApply(response -> {
+                    state.queueUrls.put(queueName, response.queueUrl());
+                    return response.queueUrl();
+                });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Measures processing time and failures of every message the container hands to its listener.
+     * Batch listeners are measured per batch and counted per message.
+     */
+    static final class ContainerState implements MessageInterceptor<Object> {
+
+        private final Map<UUID, Long> startTimes = new ConcurrentHashMap<>();
+        private final Map<String, String> queueUrls = new ConcurrentHashMap<>();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        private volatile AdaptiveBackPressureHandler handler;
+        private volatile long backlog = UNKNOWN_BACKLOG;
+        private String containerId;
+        private List<String> queueNames = List.of();
+        private Counter increases;
+        private Counter decreases;
+
+        @Override
+        public Message<Object> intercept(Message<Object> message) {
+            startTimes.put(message.getHeaders().getId(), System.nanoTime());
+            return message;
+        }
+
+        @Override
+        public Collection<Message<Object>> intercept(Collection<Message<Object>> messages) {
+            long now = System.nanoTime();
+            messages.forEach(message -> startTimes.put(message.getHeaders().getId(), now));
+            return messages;
+        }
+
+        @Override
+        public void afterProcessing(Message<Object> message, Throwable t) {
+            record(message, t, System.nanoTime());
+        }
+
+        @Override
+        public void afterProcessing(Collection<Message<Object>> messages, Throwable t) {
+            long now = System.nanoTime();
+            messages.forEach(message -> record(message, t, now));
+        }
+
+        private void record(Message<Object> message, Throwable t, long now) {
+            Long start = startTimes.remove(message.getHeaders().getId());
+            if (start == null) {
+                return;
+            }
+            processed.increment();
+            latencyNanos.add(now - start);
+            if (t != null) {
+                failed.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.sqslistener.concurrency;
+
+import io.awspring.cloud.sqs.config.Endpoint;
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.BackPressureHandler;
+import io.awspring.cloud.sqs.listener.SqsContainerOptions;
+import io.awspring.cloud.sqs.listener.SqsContainerOptionsBuilder;
+import io.awspring.cloud.sqs.listener.SqsMessageListenerContainer;
+
+/**
+ * Container factory whose containers take their back-pressure handler from the
+ * AdaptiveConcurrencyController instead of the fixed-size SemaphoreBackPressureHandler.
+ *
+ * maxConcurrentMessages is raised to the controller's max-concurrency so the container's
+ * thread pool can follow the limit up; the handler decides how much of it is used.
+ */
+public class AdaptiveSqsListenerContainerFactory extends SqsMessageListenerContainerFactory<Object> {
+
+    private final AdaptiveConcurrencyController controller;
+
+    public AdaptiveSqsListenerContainerFactory(AdaptiveConcurrencyController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    protected void configureContainerOptions(Endpoint endpoint, SqsContainerOptionsBuilder options) {
+        super.configureContainerOptions(endpoint, options);
+        options.maxConcurrentMessages(controller.getMaxConcurrency());
+    }
+
+    @Override
+    protected SqsMessageListenerContainer<Object> createContainerInstance(Endpoint endpoint,
+                                                                          SqsContainerOptions containerOptions) {
+        AdaptiveConcurrencyController.ContainerState state = controller.newContainerState();
+        SqsMessageListenerContainer<Object> container = new SqsMessageListenerContainer<>(getSqsAsyncClientInstance(),
+                containerOptions) {
+            @Override
+            protected BackPressureHandler createBackPressureHandler() {
+                return controller.register(state, getId(), getQueueNames(), getContainerOptions());
+            }
+        };
+        container.addMessageInterceptor(state);
+        return container;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.sqslistener.router;
+
+import com.example.sqslistener.notification.NotificationDocument;
+import com.example.sqslistener.notification.NotificationLoader;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking fetch → validate/route → publish pipeline for one notification id taken from SQS.
+ *
+ * - fetch: NotificationLoader.load(), coalesced with the other in-flight messages into one query;
+ * - validate/route: NotificationPlatform.accept() on a small CPU pool (route-threads), so neither
+ *   the loader's query threads nor SDK threads run schema validation;
+ * - publish: the recipient × route matrix goes to the sink in chunks, at most maxChunksInFlight
+ *   per notification; the next chunk is started by the completion of the previous one, not by a
+ *   waiting thread.
+ * No stage holds a thread while it waits, so a message in flight costs a future, not a thread.
+ * The returned future completes only once every chunk has been published; a listener returning
+ * it keeps its back-pressure permit until then, so a slow bus (or rate limit) stops the poller.
+ *
+ * A notification none of whose deliveries succeeded fails, so SQS redelivers it; partial
+ * failures are reported in the Result and not retried (that would publish the rest twice).
+ */
+public class AsyncNotificationPipeline implements AutoCloseable {
+
+    public enum Status {
+        DELIVERED, EXPIRED, NOT_ROUTED
+    }
+
+    public record Result(Status status, int routes, long delivered, long failed) {
+    }
+
+    private static final CompletableFuture<Result> EXPIRED =
+            CompletableFuture.completedFuture(new Result(Status.EXPIRED, 0, 0, 0));
+    private static final CompletableFuture<Result> NOT_ROUTED =
+            CompletableFuture.completedFuture(new Result(Status.NOT_ROUTED, 0, 0, 0));
+
+    private final NotificationLoader loader;
+    private final NotificationPlatform platform;
+    private final DeliverySink sink;
+    private final RouterMetrics metrics;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final ExecutorService routeExecutor;
+
+    AsyncNotificationPipeline(NotificationLoader loader, NotificationPlatform platform, DeliverySink sink,
+                              RouterMetrics metrics, int chunkSize, int maxChunksInFlight, int routeThreads) {
+        if (chunkSize < 1 || maxChunksInFlight < 1 || routeThreads < 1) {
+            throw new IllegalArgumentException("chunkSize, maxChunksInFlight and routeThreads must be positive");
+        }
+        this.loader = loader;
+        this.platform = platform;
+        this.sink = sink;
+        this.metrics = metrics;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+        AtomicInteger threads = new AtomicInteger();
+        this.routeExecutor = Executors.newFixedThreadPool(routeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "notification-pipeline-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Routes and publishes the stored notification; completes once every delivery has been
+     * published or has failed, or exceptionally if the notification is unknown, throttled
+     * (ThrottledException) or couldn't be delivered to anyone.
+     */
+    public CompletableFuture<Result> process(String notificationId) {
+        return loader.load(notificationId)
+                .thenApplyAsync(document -> route(notificationId, document), routeExecutor)
+                .thenCompose(routed -> routed == null ? EXPIRED : publish(notificationId, routed));
+    }
+
+    // Null for an expired notification
+    private Routed route(String notificationId, NotificationDocument document) {
+        if (document == null) {
+            throw new IllegalStateException("Notification not found: " + notificationId);
+        }
+        if (document.isExpired(Instant.now())) {
+            return null;
+        }
+        NotificationRequest request = new NotificationRequest();
+        request.setCapability(document.getCapability());
+        document.getRecipientIds().forEach(request::addRecipient);
+        for (NotificationDocument.Payload stored : document.getPayloads()) {
+            NotificationPayload payload = new NotificationPayload();
+            payload.setRoute(stored.getRoute());
+            payload.setMessage(stored.getMessage());
+            request.addPayload(payload);
+        }
+        return new Routed(document.getRecipientIds(), platform.accept(request));
+    }
+
+    private CompletableFuture<Result> publish(String notificationId, Routed routed) {
+        if (routed.payloads().isEmpty() || routed.recipients().isEmpty()) {
+            return NOT_ROUTED;
+        }
+        return new Delivery(routed).start().thenApply(result -> {
+            if (result.delivered() == 0) {
+                throw new IllegalStateException("All " + result.failed() + " deliveries of notification "
+                        + notificationId + " failed");
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public void close() {
+        routeExecutor.shutdown();
+    }
+
+    private record Routed(List<String> recipients, List<ResolvedPayload> payloads) {
+    }
+
+    /**
+     * The chunks of one notification, route by route; each is a view over the recipient list.
+     * At most maxChunksInFlight run at once, each completion starting the next.
+     */
+    private final class Delivery {
+
+        private final Routed routed;
+        private final int chunksPerRoute;
+        private final int totalChunks;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger completedChunks = new AtomicInteger();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final CompletableFuture<Result> result = new CompletableFuture<>();
+
+        private Delivery(Routed routed) {
+            this.routed = routed;
+            this.chunksPerRoute = (routed.recipients().size() + chunkSize - 1) / chunkSize;
+            this.totalChunks = chunksPerRoute * routed.payloads().size();
+        }
+
+        CompletableFuture<Result> start() {
+            for (int i = 0; i < Math.min(maxChunksInFlight, totalChunks); i++) {
+                deliverNext();
+            }
+            return result;
+        }
+
+        /**
+         * Delivers chunks until one is left pending - its completion calls back in - or none
+         * are left. Chunks that complete right away (rejected, or failed synchronously) are
+         * accounted in the loop rather than by recursion.
+         */
+        private void deliverNext() {
+            int index;
+            while ((index = nextChunk.getAndIncrement()) < totalChunks) {
+                DeliveryChunk chunk = chunk(index);
+                CompletableFuture<Integer> delivery;
+                try {
+                    delivery = sink.deliver(chunk);
+                } catch (RuntimeException e) {
+                    delivery = CompletableFuture.failedFuture(e);
+                }
+                if (delivery.isDone()) {
+                    delivery.whenComplete((failedCount, throwable) -> completed(chunk, failedCount, throwable));
+                    continue;
+                }
+                delivery.whenComplete((failedCount, throwable) -> {
+                    completed(chunk, failedCount, throwable);
+                    deliverNext();
+                });
+                return;
+            }
+        }
+
+        private DeliveryChunk chunk(int index) {
+            ResolvedPayload payload = routed.payloads().get(index / chunksPerRoute);
+            List<String> recipients = routed.recipients();
+            int from = (index % chunksPerRoute) * chunkSize;
+            return new DeliveryChunk(payload, recipients.subList(from, Math.min(from + chunkSize, recipients.size())));
+        }
+
+        private void completed(DeliveryChunk chunk, Integer failedCount, Throwable throwable) {
+            int failedInChunk = throwable != null ? chunk.size()
+                    : Math.min(failedCount == null ? 0 : failedCount, chunk.size());
+            delivered.addAndGet(chunk.size() - failedInChunk);
+            failed.addAndGet(failedInChunk);
+            metrics.delivered(chunk.getPayload().getRoute(), chunk.size() - failedInChunk, failedInChunk);
+            if (completedChunks.incrementAndGet() == totalChunks) {
+                result.complete(new Result(Status.DELIVERED, routed.payloads().size(), delivered.get(), failed.get()));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.sqslistener.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.http.Protocol;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The async HTTP client of the AWS SDK clients, shared by SqsAsyncClient and (unless
+ * eventbridge.shared-http-client=false) the EventBridge publisher, so both reuse one pool of
+ * warm TLS connections and one event loop instead of each building SDK defaults.
+ *
+ *   aws.http.client=netty|crt            Netty NIO (default) or the AWS Common Runtime client
+ *   aws.http.max-connections=200         per endpoint; long polls hold one for up to 20s each
+ *   aws.http.acquisition-timeout=10s     how long a request may wait for a connection (Netty)
+ *   aws.http.max-pending-acquires=10000  requests that may wait at all (Netty)
+ *   aws.http.connection-timeout=2s
+ *   aws.http.connection-max-idle-time=60s  idle connections stay pooled this long
+ *   aws.http.connection-time-to-live=0s    0 = connections are never retired for age (Netty)
+ *   aws.http.tcp-keep-alive=true, aws.http.tcp-keep-alive-interval=30s (interval: CRT)
+ *   aws.http.tcp-keep-alive-timeout=10s  CRT; how long a keep-alive probe may go unanswered
+ *   aws.http.protocol=HTTP1_1|HTTP2      Netty only; SQS and EventBridge endpoints speak HTTP/1.1
+ *   aws.http.event-loop-threads=0        Netty; 0 = SDK default (2 x cores)
+ *
+ * The CRT client has no acquisition timeout or pending limit, and no HTTP/2 for these services;
+ * those settings are ignored for it. Pool usage is reported by AwsHttpPoolMetrics.
+ */
+@Slf4j
+@Configuration
+public class AwsHttpClientConfig {
+
+    @Value("${aws.http.client:netty}")
+    private String client;
+
+    @Value("${aws.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${aws.http.acquisition-timeout:10s}")
+    private Duration acquisitionTimeout;
+
+    @Value("${aws.http.max-pending-acquires:10000}")
+    private int maxPendingAcquires;
+
+    @Value("${aws.http.connection-timeout:2s}")
+    private Duration connectionTimeout;
+
+    @Value("${aws.http.connection-max-idle-time:60s}")
+    private Duration connectionMaxIdleTime;
+
+    @Value("${aws.http.connection-time-to-live:0s}")
+    private Duration connectionTimeToLive;
+
+    @Value("${aws.http.tcp-keep-alive:true}")
+    private boolean tcpKeepAlive;
+
+    @Value("${aws.http.tcp-keep-alive-interval:30s}")
+    private Duration tcpKeepAliveInterval;
+
+    @Value("${aws.http.tcp-keep-alive-timeout:10s}")
+    private Duration tcpKeepAliveTimeout;
+
+    @Value("${aws.http.protocol:HTTP1_1}")
+    private Protocol protocol;
+
+    @Value("${aws.http.event-loop-threads:0}")
+    private int eventLoopThreads;
+
+    /**
+     * The shared client; the SDK clients it is handed to don't close it, the context does.
+     */
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient awsAsyncHttpClient() {
+        log.info("AWS async HTTP client: {} with {} connections per endpoint, acquisition timeout {}, idle time {}, {}",
+                client, maxConnections, acquisitionTimeout, connectionMaxIdleTime, protocol);
+        return newClientBuilder().build();
+    }
+
+    /**
+     * A builder with the same settings, for an SDK client that should own a separate pool; pass
+     * it to httpClientBuilder() so the SDK client closes it.
+     */
+    public SdkAsyncHttpClient.Builder<?> newClientBuilder() {
+        switch (client.trim().toLowerCase(Locale.ROOT)) {
+            case "crt":
+                return crtClientBuilder();
+            case "netty":
+                return nettyClientBuilder();
+            default:
+                throw new IllegalArgumentException("Unknown aws.http.client '" + client + "', expected netty or crt");
+        }
+    }
+
+    private NettyNioAsyncHttpClient.Builder nettyClientBuilder() {
+        NettyNioAsyncHttpClient.Builder builder = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionAcquisitionTimeout(acquisitionTimeout)
+                .connectionTimeout(connectionTimeout)
+                .connectionMaxIdleTime(connectionMaxIdleTime)
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(tcpKeepAlive)
+                .protocol(protocol);
+        if (!connectionTimeToLive.isZero()) {
+            builder.connectionTimeToLive(connectionTimeToLive);
+        }
+        if (eventLoopThreads > 0) {
+            builder.eventLoopGroupBuilder(SdkEventLoopGroup.builder().numberOfThreads(eventLoopThreads));
+        }
+        return builder;
+    }
+
+    private AwsCrtAsyncHttpClient.Builder crtClientBuilder() {
+        if (protocol != Protocol.HTTP1_1) {
+            log.warn("aws.http.protocol={} is not supported by the CRT client, using HTTP/1.1", protocol);
+        }
+        AwsCrtAsyncHttpClient.Builder builder = AwsCrtAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .connectionTimeout(connectionTimeout)
+                .connectionMaxIdleTime(connectionMaxIdleTime);
+        if (tcpKeepAlive) {
+            builder.tcpKeepAliveConfiguration(keepAlive -> keepAlive
+                    .keepAliveInterval(tcpKeepAliveInterval)
+                    .keepAliveTimeout(tcpKeepAliveTimeout));
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.sqslistener.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connection-pool metrics of the async HTTP client, per service (endpoint pool) and client
+ * implementation, from the HttpClient metrics the SDK reports with every call attempt:
+ *
+ *   aws.http.pool.leased / available / pending / max{service,client}
+ *   aws.http.pool.acquire{service,client}   time a request waited for a connection
+ *
+ * Gauges hold the values seen by the latest call, so an idle pool keeps its last sample; a
+ * growing pending count or acquire time is the early sign of connection acquisition timeouts.
+ * Added as a MetricPublisher to the clients in SqsConfig and EventBridgeConfig.
+ */
+@Component
+public class AwsHttpPoolMetrics implements MetricPublisher {
+
+    private static final String HTTP_CLIENT_COLLECTION = "HttpClient";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    public AwsHttpPoolMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        List<String> services = metricCollection.metricValues(CoreMetric.SERVICE_ID);
+        record(services.isEmpty() ? "unknown" : services.get(0), metricCollection);
+    }
+
+    // ApiCall -> ApiCallAttempt -> HttpClient
+    private void record(String service, MetricCollection collection) {
+        for (MetricCollection child : collection.children()) {
+            if (HTTP_CLIENT_COLLECTION.equals(child.name())) {
+                sample(service, child);
+            } else {
+                record(service, child);
+            }
+        }
+    }
+
+    private void sample(String service, MetricCollection http) {
+        List<String> clients = http.metricValues(HttpMetric.HTTP_CLIENT_NAME);
+        Pool pool = pool(service, clients.isEmpty() ? "unknown" : clients.get(0));
+        set(pool.leased, http.metricValues(HttpMetric.LEASED_CONCURRENCY));
+        set(pool.available, http.metricValues(HttpMetric.AVAILABLE_CONCURRENCY));
+        set(pool.pending, http.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES));
+        set(pool.max, http.metricValues(HttpMetric.MAX_CONCURRENCY));
+        for (Duration acquire : http.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION)) {
+            pool.acquire.record(acquire);
+        }
+    }
+
+    private static void set(AtomicInteger gauge, List<Integer> values) {
+        if (!values.isEmpty()) {
+            gauge.set(values.get(values.size() - 1));
+        }
+    }
+
+    private Pool pool(String service, String client) {
+        Pool pool = pools.get(service + '/' + client);
+        if (pool == null) {
+            pool = pools.computeIfAbsent(service + '/' + client, key -> new Pool(service, client));
+        }
+        return pool;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private final class Pool {
+        private final AtomicInteger leased = new AtomicInteger();
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+        private final Timer acquire;
+
+        private Pool(String service, String client) {
+            gauge("aws.http.pool.leased", "Connections (HTTP/2: streams) in use", leased, service, client);
+            gauge("aws.http.pool.available", "Idle pooled connections ready to be leased", available, service, client);
+            gauge("aws.http.pool.pending", "Requests waiting for a connection", pending, service, client);
+            gauge("aws.http.pool.max", "Connection limit of the pool", max, service, client);
+            this.acquire = Timer.builder("aws.http.pool.acquire")
+                    .description("Time a request waited to lease a connection")
+                    .tag("service", service)
+                    .tag("client", client)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private void gauge(String name, String description, AtomicInteger value, String service, String client) {
+            Gauge.builder(name, value, AtomicInteger::get)
+                    .description(description)
+                    .tag("service", service)
+                    .tag("client", client)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sqslistener.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every AWS SDK call of the clients it is added to, as aws.sdk.call{service,operation,outcome}.
+ * On the SQS client ReceiveMessage is the long-poll call time, mostly the wait-time-seconds spent
+ * waiting for messages rather than service latency; on the EventBridge client PutEvents is the
+ * publish call latency. p50/p95/p99 are published alongside the histogram.
+ *
+ * Timers are cached per service and operation; the start time travels in an ExecutionAttribute.
+ */
+@Component
+public class AwsSdkCallMetrics implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<Long> START_NANOS = new ExecutionAttribute<>("MetricsStartNanos");
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, Timer[]>> timers = new ConcurrentHashMap<>();
+
+    public AwsSdkCallMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, 0);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        record(executionAttributes, 1);
+    }
+
+    private void record(ExecutionAttributes executionAttributes, int outcome) {
+        Long start = executionAttributes.getAttribute(START_NANOS);
+        if (start == null) {
+            return;
+        }
+        String service = executionAttributes.getAttribute(SdkExecutionAttribute.SERVICE_NAME);
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        timersFor(service == null ? "unknown" : service, operation == null ? "unknown" : operation)[outcome]
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer[] timersFor(String service, String operation) {
+        Map<String, Timer[]> operations = timers.get(service);
+        if (operations == null) {
+            operations = timers.computeIfAbsent(service, name -> new ConcurrentHashMap<>());
+        }
+        Timer[] operationTimers = operations.get(operation);
+        if (operationTimers == null) {
+            operationTimers = operations.computeIfAbsent(operation,
+                    name -> new Timer[] { timer(service, name, "success"), timer(service, name, "failure") });
+        }
+        return operationTimers;
+    }
+
+    private Timer timer(String service, String operation, String outcome) {
+        return Timer.builder("aws.sdk.call")
+                .description("AWS SDK call latency, retries included")
+                .tag("service", service)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
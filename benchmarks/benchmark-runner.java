@@ -0,0 +1,44 @@
+package com.example.sqslistener;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Entry point of benchmarks.jar.
+ *
+ * Accepts the regular JMH command line, but defaults to the GC profiler and a JSON
+ * result file (jmh-result.json) so two builds can be diffed without extra flags:
+ *
+ *   java -jar target/benchmarks.jar                      # everything
+ *   java -jar target/benchmarks.jar SchemaValidator -rff before.json
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+
+        // Allocation per op is part of every result unless -prof gc was already given
+        boolean hasGcProfiler = false;
+        for (ProfilerConfig profiler : cmdOptions.getProfilers()) {
+            if (profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName())) {
+                hasGcProfiler = true;
+            }
+        }
+        if (!hasGcProfiler) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        // Machine-readable results (JMH names the file jmh-result.json); -rf/-rff still win
+        if (!cmdOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
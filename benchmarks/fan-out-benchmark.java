@@ -0,0 +1,65 @@
+package com.example.sqslistener.router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationPlatform.dispatch of a 50k-recipient book_a_seat broadcast (200k deliveries)
+ * through the FanOutEngine, against a sink that touches every recipient and completes at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private NotificationPlatform platform;
+    private NotificationRequest request;
+    private FanOutEngine engine;
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        stdout = RouterFixtures.silenceStdout();
+        platform = RouterFixtures.platform();
+        request = RouterFixtures.request(50_000);
+        DeliverySink sink = chunk -> {
+            int hash = 0;
+            for (String recipient : chunk) {
+                hash += recipient.hashCode();
+            }
+            return CompletableFuture.completedFuture(hash == 42 ? 1 : 0);
+        };
+        engine = new FanOutEngine(sink, 500, 4 * parallelism, parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public FanOutProgress dispatch() throws Exception {
+        return platform.dispatch(request, engine).completion().get();
+    }
+}
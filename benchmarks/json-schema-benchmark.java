@@ -0,0 +1,177 @@
+package com.example.sqslistener.router;
+
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.ValidationException;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled keyword evaluators (fail-fast for routing, collect-all for onboarding) vs the
+ * Everit library on a nested schema: $ref/$defs, items, oneOf, format and number bounds.
+ *
+ * The everit* benchmarks include the Map -> JSONObject conversion the router would have to do
+ * per message; everitPreconverted* isolate Everit's own validation cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSchemaBenchmark {
+
+    // Draft 2020-12 keywords that Everit (draft 7) also understands, so both check the same rules
+    static final String BOOKING_SCHEMA = """
+        {
+            "$schema": "https://json-schema.org/draft/2020-12/schema",
+            "$defs": {
+                "recipient": {
+                    "type": "object",
+                    "properties": {
+                        "email": { "type": "string", "format": "email" },
+                        "employee_id": { "type": "integer", "minimum": 1 }
+                    },
+                    "required": ["email"],
+                    "additionalProperties": false
+                },
+                "action": {
+                    "oneOf": [
+                        {
+                            "type": "object",
+                            "properties": { "kind": { "const": "link" }, "url": { "type": "string", "format": "uri" } },
+                            "required": ["kind", "url"]
+                        },
+                        {
+                            "type": "object",
+                            "properties": { "kind": { "const": "deeplink" }, "path": { "type": "string", "pattern": "^myworkspace://" } },
+                            "required": ["kind", "path"]
+                        }
+                    ]
+                }
+            },
+            "type": "object",
+            "properties": {
+                "title": { "type": "string", "maxLength": 25 },
+                "body": { "type": "string", "maxLength": 120 },
+                "booking_id": { "type": "integer", "minimum": 1, "maximum": 9007199254740991 },
+                "starts_at": { "type": "string", "format": "date-time" },
+                "floor": { "type": "number", "minimum": -5, "exclusiveMaximum": 200 },
+                "recipients": { "type": "array", "items": { "$ref": "#/$defs/recipient" }, "minItems": 1, "maxItems": 50 },
+                "actions": { "type": "array", "items": { "$ref": "#/$defs/action" } },
+                "priority": { "type": "string", "enum": ["low", "normal", "high", "urgent"] }
+            },
+            "required": ["title", "body", "booking_id", "recipients"],
+            "additionalProperties": false
+        }
+        """;
+
+    private SchemaValidator compiled;
+    private Schema everit;
+    private Map<String, Object> validMessage;
+    private Map<String, Object> invalidMessage;
+    private JSONObject validJson;
+    private JSONObject invalidJson;
+
+    @Setup
+    public void setup() {
+        compiled = new SchemaValidator();
+        compiled.compileSchema("booking.v2", BOOKING_SCHEMA);
+        everit = SchemaLoader.builder()
+                .schemaJson(new JSONObject(BOOKING_SCHEMA))
+                .draftV7Support()
+                .build()
+                .load()
+                .build();
+
+        validMessage = new HashMap<>();
+        validMessage.put("title", "Seat Reserved");
+        validMessage.put("body", "Desk 42A on floor 3 is booked for tomorrow");
+        validMessage.put("booking_id", 4_294_967_296L);
+        validMessage.put("starts_at", "2024-05-02T09:00:00Z");
+        validMessage.put("floor", 3);
+        validMessage.put("recipients", List.of(
+                Map.of("email", "john.doe@jpmc.com", "employee_id", 1042),
+                Map.of("email", "jane.roe@jpmc.com")));
+        validMessage.put("actions", List.of(
+                Map.of("kind", "deeplink", "path", "myworkspace://booking/123"),
+                Map.of("kind", "link", "url", "https://workspace.jpmc.com/booking/123")));
+        validMessage.put("priority", "high");
+
+        invalidMessage = new HashMap<>(validMessage);
+        invalidMessage.put("title", "This title is way too long for mobile and will fail validation");
+        invalidMessage.put("starts_at", "tomorrow morning");
+        invalidMessage.put("floor", 250);
+        invalidMessage.put("recipients", List.of(Map.of("email", "not-an-email", "employee_id", 0)));
+        invalidMessage.put("actions", List.of(Map.of("kind", "deeplink", "path", "ftp://booking/123")));
+        invalidMessage.put("priority", "invalid_priority");
+
+        validJson = new JSONObject(validMessage);
+        invalidJson = new JSONObject(invalidMessage);
+    }
+
+    @Benchmark
+    public ValidationResult compiledFailFastValid() {
+        return compiled.validate("booking.v2", validMessage, ValidationMode.FAIL_FAST);
+    }
+
+    @Benchmark
+    public ValidationResult compiledCollectAllValid() {
+        return compiled.validate("booking.v2", validMessage, ValidationMode.COLLECT_ALL);
+    }
+
+    @Benchmark
+    public ValidationResult everitValid() {
+        return validateWithEverit(new JSONObject(validMessage));
+    }
+
+    @Benchmark
+    public ValidationResult everitPreconvertedValid() {
+        return validateWithEverit(validJson);
+    }
+
+    @Benchmark
+    public ValidationResult compiledFailFastInvalid() {
+        return compiled.validate("booking.v2", invalidMessage, ValidationMode.FAIL_FAST);
+    }
+
+    @Benchmark
+    public ValidationResult compiledCollectAllInvalid() {
+        return compiled.validate("booking.v2", invalidMessage, ValidationMode.COLLECT_ALL);
+    }
+
+    @Benchmark
+    public ValidationResult everitInvalid() {
+        return validateWithEverit(new JSONObject(invalidMessage));
+    }
+
+    @Benchmark
+    public ValidationResult everitPreconvertedInvalid() {
+        return validateWithEverit(invalidJson);
+    }
+
+    // Same result shape as the compiled validator: every violation message
+    private ValidationResult validateWithEverit(JSONObject message) {
+        try {
+            everit.validate(message);
+            return CompiledSchema.VALID;
+        } catch (ValidationException e) {
+            return new ValidationResult(false, new ArrayList<>(e.getAllMessages()));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.sqslistener.listener;
+
+import com.example.sqslistener.model.MessageDto;
+import com.example.sqslistener.model.MessageDtoReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageDto deserialization with the application's ObjectMapper (JacksonConfig),
+ * compared with the streaming MessageDtoReader, for 1 KB, 16 KB and 200 KB bodies.
+ * streamFromStringMetadata also materializes the deferred metadata map.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageDeserializationBenchmark {
+
+    @Param({"1024", "16384", "204800"})
+    public int bodyBytes;
+
+    private ObjectMapper objectMapper;
+    private MessageDtoReader reader;
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws Exception {
+        objectMapper = MessageFixtures.OBJECT_MAPPER;
+        reader = new MessageDtoReader(objectMapper);
+        json = MessageFixtures.messageJson(bodyBytes);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public MessageDto readFromString() throws Exception {
+        return objectMapper.readValue(json, MessageDto.class);
+    }
+
+    @Benchmark
+    public MessageDto readFromBytes() throws Exception {
+        return objectMapper.readValue(bytes, MessageDto.class);
+    }
+
+    @Benchmark
+    public MessageDto streamFromString() throws Exception {
+        return reader.read(json);
+    }
+
+    @Benchmark
+    public MessageDto streamFromBytes() throws Exception {
+        return reader.read(bytes);
+    }
+
+    @Benchmark
+    public Object streamFromStringMetadata() throws Exception {
+        return reader.read(json).getMetadata();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sqslistener.listener;
+
+import com.example.sqslistener.config.JacksonConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MessageDto JSON bodies shaped like router traffic: a book_a_seat notification whose
+ * metadata carries the recipients and per-route payloads, grown to a target size by
+ * adding recipients (the way broadcasts get large in practice).
+ */
+final class MessageFixtures {
+
+    static final ObjectMapper OBJECT_MAPPER = new JacksonConfig().objectMapper();
+
+    private MessageFixtures() {
+    }
+
+    /**
+     * A MessageDto JSON body of at least {@code targetBytes} bytes.
+     */
+    static String messageJson(int targetBytes) throws Exception {
+        List<String> recipients = new ArrayList<>();
+        Map<String, Object> body = message(recipients);
+        String json = OBJECT_MAPPER.writeValueAsString(body);
+
+        while (json.length() < targetBytes) {
+            // Grow in steps sized from the remaining gap to keep setup cheap for 200 KB bodies
+            int missing = targetBytes - json.length();
+            int step = Math.max(1, missing / 24);
+            for (int i = 0; i < step; i++) {
+                recipients.add(String.format("user%06d@jpmc.com", recipients.size()));
+            }
+            json = OBJECT_MAPPER.writeValueAsString(body);
+        }
+        return json;
+    }
+
+    private static Map<String, Object> message(List<String> recipients) {
+        Map<String, Object> mobile = new LinkedHashMap<>();
+        mobile.put("title", "Seat Reserved");
+        mobile.put("body", "Desk 42A booked");
+        mobile.put("priority", "high");
+        mobile.put("badge_count", 1);
+
+        Map<String, Object> desktop = new LinkedHashMap<>();
+        desktop.put("header", "JPMC Workspace");
+        desktop.put("title", "Workspace Reservation Confirmed");
+        desktop.put("body", "Your desk reservation for Desk 42A on Floor 3 has been confirmed");
+        desktop.put("icon", "calendar");
+
+        List<Map<String, Object>> payload = new ArrayList<>();
+        payload.add(Map.of("route", "ios.jpmc.myworkspace", "message", mobile));
+        payload.add(Map.of("route", "android.jpmc.myworkspace", "message", mobile));
+        payload.add(Map.of("route", "desktop.jpmc.myworkspace", "message", desktop));
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("capability", "book_a_seat");
+        metadata.put("priority", "high");
+        metadata.put("source", "workspace-booking-service");
+        metadata.put("recipients", recipients);
+        metadata.put("payload", payload);
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("id", "64f1c2e8a9b3d21f7c0e5a91");
+        message.put("type", "NOTIFICATION");
+        message.put("content", "Workspace reservation confirmed for Desk 42A, Floor 3");
+        message.put("metadata", metadata);
+        message.put("timestamp", "2025-09-14T09:30:00");
+        return message;
+    }
+}
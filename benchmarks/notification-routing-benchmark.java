@@ -0,0 +1,53 @@
+package com.example.sqslistener.router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NotificationPlatform.send for a book_a_seat request routed to ios, android, desktop and teams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationRoutingBenchmark {
+
+    @Param({"1", "100"})
+    public int recipients;
+
+    private NotificationPlatform platform;
+    private NotificationRequest request;
+    private PrintStream stdout;
+
+    @Setup
+    public void setup() {
+        stdout = RouterFixtures.silenceStdout();
+        platform = RouterFixtures.platform();
+        request = RouterFixtures.request(recipients);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void send() {
+        platform.send(request);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.sqslistener.router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SchemaValidator.validate for each book_a_seat route's payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteValidationBenchmark {
+
+    @Param({
+        RouterFixtures.IOS_ROUTE,
+        RouterFixtures.ANDROID_ROUTE,
+        RouterFixtures.DESKTOP_ROUTE,
+        RouterFixtures.TEAMS_ROUTE
+    })
+    public String route;
+
+    private SchemaValidator validator;
+    private String schemaId;
+    private Map<String, Object> message;
+
+    @Setup
+    public void setup() {
+        schemaId = RouterFixtures.schemaFor(route);
+        validator = new SchemaValidator();
+        validator.compileSchema(schemaId, RouterFixtures.schemaJson(schemaId));
+        message = RouterFixtures.message(route);
+    }
+
+    @Benchmark
+    public ValidationResult validate() {
+        return validator.validate(schemaId, message);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.sqslistener.router;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * book_a_seat fixtures shared by the router benchmarks: one capability fanned out
+ * to the ios, android, desktop and teams routes, with a valid payload per route.
+ */
+final class RouterFixtures {
+
+    public static final String CAPABILITY = "book_a_seat";
+
+    public static final String IOS_ROUTE = "ios.jpmc.myworkspace";
+    public static final String ANDROID_ROUTE = "android.jpmc.myworkspace";
+    public static final String DESKTOP_ROUTE = "desktop.jpmc.myworkspace";
+    public static final String TEAMS_ROUTE = "teams.jpmc.myworkspace";
+
+    public static final List<String> ROUTES = List.of(IOS_ROUTE, ANDROID_ROUTE, DESKTOP_ROUTE, TEAMS_ROUTE);
+
+    static final String MOBILE_SCHEMA = """
+        {
+            "$schema": "https://json-schema.org/draft/2020-12/schema",
+            "$id": "https://jpmc.com/schemas/mobile.push.v1",
+            "type": "object",
+            "properties": {
+                "title": { "type": "string", "maxLength": 25 },
+                "body": { "type": "string", "maxLength": 50 },
+                "action_url": { "type": "string", "pattern": "^(https?://|myworkspace://)" },
+                "priority": { "type": "string", "enum": ["low", "normal", "high", "urgent"] },
+                "badge_count": { "type": "integer", "minimum": 0, "maximum": 99 }
+            },
+            "required": ["title", "body"],
+            "additionalProperties": false
+        }
+        """;
+
+    static final String DESKTOP_SCHEMA = """
+        {
+            "$schema": "https://json-schema.org/draft/2020-12/schema",
+            "$id": "https://jpmc.com/schemas/desktop.rich.v1",
+            "type": "object",
+            "properties": {
+                "header": { "type": "string", "maxLength": 50 },
+                "title": { "type": "string", "maxLength": 100 },
+                "body": { "type": "string", "maxLength": 300 },
+                "footer": { "type": "string", "maxLength": 100 },
+                "icon": { "type": "string", "enum": ["info", "warning", "success", "calendar", "task"] }
+            },
+            "required": ["title", "body"],
+            "additionalProperties": false
+        }
+        """;
+
+    static final String TEAMS_SCHEMA = """
+        {
+            "$schema": "https://json-schema.org/draft/2020-12/schema",
+            "$id": "https://jpmc.com/schemas/teams.card.v1",
+            "type": "object",
+            "properties": {
+                "title": { "type": "string", "maxLength": 80 },
+                "text": { "type": "string", "maxLength": 500 },
+                "theme_color": { "type": "string", "pattern": "^#[0-9A-Fa-f]{6}$" },
+                "importance": { "type": "string", "enum": ["normal", "high", "urgent"] }
+            },
+            "required": ["title", "text"],
+            "additionalProperties": false
+        }
+        """;
+
+    private RouterFixtures() {
+    }
+
+    /**
+     * A platform with the book_a_seat capability and its four routes registered.
+     */
+    public static NotificationPlatform platform() {
+        NotificationPlatform platform = new NotificationPlatform();
+        platform.registerDomain(new Domain("mobile.push.jpmc", "Mobile Platform Team", "FCM"));
+        platform.registerDomain(new Domain("desktop.rich.jpmc", "Desktop Platform Team", "WNS"));
+        platform.registerDomain(new Domain("teams.card.jpmc", "Collaboration Platform Team", "Teams"));
+
+        platform.registerSchema(new SchemaDocument("mobile.push.v1", "mobile.push.jpmc", MOBILE_SCHEMA));
+        platform.registerSchema(new SchemaDocument("desktop.rich.v1", "desktop.rich.jpmc", DESKTOP_SCHEMA));
+        platform.registerSchema(new SchemaDocument("teams.card.v1", "teams.card.jpmc", TEAMS_SCHEMA));
+
+        platform.registerRoute(new Route(IOS_ROUTE, "mobile.push.jpmc", "mobile.push.v1"));
+        platform.registerRoute(new Route(ANDROID_ROUTE, "mobile.push.jpmc", "mobile.push.v1"));
+        platform.registerRoute(new Route(DESKTOP_ROUTE, "desktop.rich.jpmc", "desktop.rich.v1"));
+        platform.registerRoute(new Route(TEAMS_ROUTE, "teams.card.jpmc", "teams.card.v1"));
+
+        Capability bookSeat = new Capability(CAPABILITY, "Workspace reservation");
+        ROUTES.forEach(bookSeat::addRoute);
+        platform.registerCapability(bookSeat);
+        return platform;
+    }
+
+    /**
+     * Schema id each route validates against.
+     */
+    public static String schemaFor(String route) {
+        switch (route) {
+            case IOS_ROUTE:
+            case ANDROID_ROUTE:
+                return "mobile.push.v1";
+            case DESKTOP_ROUTE:
+                return "desktop.rich.v1";
+            case TEAMS_ROUTE:
+                return "teams.card.v1";
+            default:
+                throw new IllegalArgumentException("Unknown route: " + route);
+        }
+    }
+
+    /**
+     * The JSON schema document registered for a schema id.
+     */
+    public static String schemaJson(String schemaId) {
+        switch (schemaId) {
+            case "mobile.push.v1":
+                return MOBILE_SCHEMA;
+            case "desktop.rich.v1":
+                return DESKTOP_SCHEMA;
+            case "teams.card.v1":
+                return TEAMS_SCHEMA;
+            default:
+                throw new IllegalArgumentException("Unknown schema: " + schemaId);
+        }
+    }
+
+    /**
+     * A valid book_a_seat message for the given route.
+     */
+    public static Map<String, Object> message(String route) {
+        Map<String, Object> message = new HashMap<>();
+        switch (route) {
+            case IOS_ROUTE:
+            case ANDROID_ROUTE:
+                message.put("title", "Seat Reserved");
+                message.put("body", "Desk 42A booked");
+                message.put("priority", "high");
+                message.put("badge_count", 1);
+                break;
+            case DESKTOP_ROUTE:
+                message.put("header", "JPMC Workspace");
+                message.put("title", "Workspace Reservation Confirmed");
+                message.put("body", "Your desk reservation for Desk 42A on Floor 3 has been confirmed");
+                message.put("footer", "Questions? Contact facilities@jpmc.com");
+                message.put("icon", "calendar");
+                break;
+            case TEAMS_ROUTE:
+                message.put("title", "Workspace Reservation Confirmed");
+                message.put("text", "Desk 42A on Floor 3 is booked for you on September 14, 2025.");
+                message.put("theme_color", "#0B5CAB");
+                message.put("importance", "normal");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown route: " + route);
+        }
+        return message;
+    }
+
+    /**
+     * A book_a_seat request carrying one payload per route for the given number of recipients.
+     */
+    public static NotificationRequest request(int recipients) {
+        NotificationRequest request = new NotificationRequest();
+        request.setCapability(CAPABILITY);
+        for (int i = 0; i < recipients; i++) {
+            request.addRecipient("user" + i + "@jpmc.com");
+        }
+        for (String route : ROUTES) {
+            NotificationPayload payload = new NotificationPayload();
+            payload.setRoute(route);
+            payload.setMessage(message(route));
+            request.addPayload(payload);
+        }
+        return request;
+    }
+
+    /**
+     * The router prototype reports to stdout; swap it for a sink while measuring.
+     */
+    public static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
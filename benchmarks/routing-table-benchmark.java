@@ -0,0 +1,79 @@
+package com.example.sqslistener.router;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route resolution for the four book_a_seat routes: the RoutingTable snapshot against the
+ * capability/route/schema/domain HashMap lookups send() used to do per payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingTableBenchmark {
+
+    private RoutingTable routingTable;
+    private final Map<String, Domain> domains = new HashMap<>();
+    private final Map<String, SchemaDocument> schemas = new HashMap<>();
+    private final Map<String, Route> routes = new HashMap<>();
+    private final Map<String, Capability> capabilities = new HashMap<>();
+    private String[] routeIds;
+
+    @Setup
+    public void setup() {
+        PrintStream stdout = RouterFixtures.silenceStdout();
+        try {
+            routingTable = RouterFixtures.platform().getRoutingTable();
+        } finally {
+            System.setOut(stdout);
+        }
+
+        routeIds = RouterFixtures.ROUTES.toArray(new String[0]);
+        Capability capability = new Capability(RouterFixtures.CAPABILITY, "Workspace reservation");
+        capabilities.put(capability.getId(), capability);
+        for (String routeId : routeIds) {
+            capability.addRoute(routeId);
+            ResolvedRoute resolved = routingTable.resolve(RouterFixtures.CAPABILITY, routeId);
+            routes.put(routeId, resolved.getRoute());
+            schemas.put(resolved.getSchema().getId(), resolved.getSchema());
+            domains.put(resolved.getDomain().getId(), resolved.getDomain());
+        }
+    }
+
+    @Benchmark
+    public void routingTable(Blackhole blackhole) {
+        for (String routeId : routeIds) {
+            blackhole.consume(routingTable.resolve(RouterFixtures.CAPABILITY, routeId));
+        }
+    }
+
+    @Benchmark
+    public void registryLookups(Blackhole blackhole) {
+        Capability capability = capabilities.get(RouterFixtures.CAPABILITY);
+        for (String routeId : routeIds) {
+            Route route = routes.get(routeId);
+            if (route == null || !capability.supportsRoute(routeId)) {
+                continue;
+            }
+            blackhole.consume(schemas.get(route.getSchemaId()));
+            blackhole.consume(domains.get(route.getDomainId()));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.sqslistener.router;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled validator tree vs the per-message JSONObject walk it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaValidatorBenchmark {
+
+    static final String MOBILE_SCHEMA = """
+        {
+            "$schema": "https://json-schema.org/draft/2020-12/schema",
+            "$id": "https://jpmc.com/schemas/mobile.push.v1",
+            "type": "object",
+            "properties": {
+                "title": { "type": "string", "maxLength": 25 },
+                "body": { "type": "string", "maxLength": 50 },
+                "action_url": { "type": "string", "pattern": "^(https?://|myworkspace://)" },
+                "priority": { "type": "string", "enum": ["low", "normal", "high", "urgent"] },
+                "badge_count": { "type": "integer", "minimum": 0, "maximum": 99 }
+            },
+            "required": ["title", "body"],
+            "additionalProperties": false
+        }
+        """;
+
+    private SchemaValidator compiled;
+    private JsonObjectSchemaValidator jsonObject;
+    private Map<String, Object> validMessage;
+    private Map<String, Object> invalidMessage;
+
+    @Setup
+    public void setup() {
+        compiled = new SchemaValidator();
+        compiled.compileSchema("mobile.push.v1", MOBILE_SCHEMA);
+        jsonObject = new JsonObjectSchemaValidator(new JSONObject(MOBILE_SCHEMA));
+
+        validMessage = new HashMap<>();
+        validMessage.put("title", "Seat Reserved");
+        validMessage.put("body", "Desk 42A booked");
+        validMessage.put("priority", "high");
+        validMessage.put("badge_count", 1);
+
+        invalidMessage = new HashMap<>();
+        invalidMessage.put("title", "This title is way too long for mobile and will fail validation");
+        invalidMessage.put("body", "Test");
+        invalidMessage.put("action_url", "ftp://booking/123");
+        invalidMessage.put("badge_count", 999);
+        invalidMessage.put("priority", "invalid_priority");
+    }
+
+    @Benchmark
+    public ValidationResult compiledValid() {
+        return compiled.validate("mobile.push.v1", validMessage);
+    }
+
+    @Benchmark
+    public ValidationResult jsonObjectValid() {
+        return jsonObject.validate(validMessage);
+    }
+
+    @Benchmark
+    public ValidationResult compiledInvalid() {
+        return compiled.validate("mobile.push.v1", invalidMessage);
+    }
+
+    @Benchmark
+    public ValidationResult jsonObjectInvalid() {
+        return jsonObject.validate(invalidMessage);
+    }
+}
+
+/**
+ * Baseline: the pre-compilation SchemaValidator path, kept verbatim for comparison.
+ */
+class JsonObjectSchemaValidator {
+    private final JSONObject schemaJson;
+
+    JsonObjectSchemaValidator(JSONObject schemaJson) {
+        this.schemaJson = schemaJson;
+    }
+
+    ValidationResult validate(Map<String, Object> message) {
+        JSONObject messageJson = new JSONObject(message);
+        List<String> errors = new ArrayList<>();
+
+        JSONArray required = schemaJson.optJSONArray("required");
+        if (required != null) {
+            for (int i = 0; i < required.length(); i++) {
+                String field = required.getString(i);
+                if (!messageJson.has(field)) {
+                    errors.add("Missing required field: " + field);
+                }
+            }
+        }
+
+        JSONObject properties = schemaJson.optJSONObject("properties");
+        if (properties != null) {
+            for (String key : messageJson.keySet()) {
+                if (!properties.has(key)) {
+                    if (!schemaJson.optBoolean("additionalProperties", true)) {
+                        errors.add("Additional property not allowed: " + key);
+                    }
+                    continue;
+                }
+
+                JSONObject prop = properties.getJSONObject(key);
+                Object value = messageJson.get(key);
+
+                if (prop.has("type")) {
+                    String expectedType = prop.getString("type");
+                    if (!validateType(value, expectedType)) {
+                        errors.add("Field '" + key + "' has wrong type. Expected: " + expectedType);
+                        continue;
+                    }
+                }
+
+                if (value instanceof String) {
+                    String str = (String) value;
+                    if (prop.has("maxLength")) {
+                        int maxLength = prop.getInt("maxLength");
+                        if (str.length() > maxLength) {
+                            errors.add("Field '" + key + "' exceeds maxLength of " +
+                                maxLength + " (actual: " + str.length() + ")");
+                        }
+                    }
+                    if (prop.has("minLength")) {
+                        int minLength = prop.getInt("minLength");
+                        if (str.length() < minLength) {
+                            errors.add("Field '" + key + "' below minLength of " + minLength);
+                        }
+                    }
+                    if (prop.has("pattern")) {
+                        String pattern = prop.getString("pattern");
+                        if (!str.matches(pattern)) {
+                            errors.add("Field '" + key + "' doesn't match pattern: " + pattern);
+                        }
+                    }
+                    if (prop.has("enum")) {
+                        JSONArray enumValues = prop.getJSONArray("enum");
+                        boolean found = false;
+                        for (int i = 0; i < enumValues.length(); i++) {
+                            if (enumValues.getString(i).equals(str)) {
+                                found = true;
+                                break;
+                            }
+                        }
+                        if (!found) {
+                            errors.add("Field '" + key + "' value '" + str +
+                                "' not in allowed values: " + enumValues.toString());
+                        }
+                    }
+                }
+
+                if (value instanceof Integer) {
+                    int intValue = (Integer) value;
+                    if (prop.has("minimum")) {
+                        int min = prop.getInt("minimum");
+                        if (intValue < min) {
+                            errors.add("Field '" + key + "' below minimum: " + min);
+                        }
+                    }
+                    if (prop.has("maximum")) {
+                        int max = prop.getInt("maximum");
+                        if (intValue > max) {
+                            errors.add("Field '" + key + "' exceeds maximum: " + max +
+                                " (actual: " + intValue + ")");
+                        }
+                    }
+                }
+            }
+        }
+
+        return new ValidationResult(errors.isEmpty(), errors);
+    }
+
+    private boolean validateType(Object value, String expectedType) {
+        switch (expectedType) {
+            case "string":
+                return value instanceof String;
+            case "integer":
+                return value instanceof Integer;
+            case "number":
+                return value instanceof Number;
+            case "boolean":
+                return value instanceof Boolean;
+            case "array":
+                return value instanceof List || value instanceof JSONArray;
+            case "object":
+                return value instanceof Map || value instanceof JSONObject;
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.sqslistener.router;
+
+import com.example.sqslistener.retry.ThrottledException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DomainRateLimitersTest {
+
+    // 10 deliveries per second, burst 10: an idle bucket grants 20 within the 1s backlog
+    private final Domain domain = new Domain("ios", "mobile-team", "mobile", Map.of("rate_limit", "10/second"));
+    private final DomainRateLimiters limiters = new DomainRateLimiters(Duration.ofSeconds(1));
+
+    @Test
+    void admitsRequestWithinBacklog() {
+        assertDoesNotThrow(() -> limiters.admit(domain, 20));
+    }
+
+    @Test
+    void refusesRequestBehindFullBacklog() {
+        limiters.reserve(domain, 20);
+
+        ThrottledException refused = assertThrows(ThrottledException.class, () -> limiters.admit(domain, 5));
+        assertTrue(refused.getRetryAfter().compareTo(Duration.ZERO) > 0);
+    }
+
+    @Test
+    void admitsSingleOversizedRequestOnIdleBucket() {
+        // 1000 deliveries take ~100s at 10/s; refusing them would defer the message forever
+        assertDoesNotThrow(() -> limiters.admit(domain, 1000));
+    }
+
+    @Test
+    void oversizedRequestWaitsForBacklogAheadOfIt() {
+        limiters.reserve(domain, 1000);
+
+        ThrottledException refused = assertThrows(ThrottledException.class, () -> limiters.admit(domain, 1000));
+        // Deferred by the backlog ahead of it (~98s), not by its own size
+        assertTrue(refused.getRetryAfter().compareTo(Duration.ofSeconds(90)) > 0);
+        assertTrue(refused.getRetryAfter().compareTo(Duration.ofSeconds(110)) < 0);
+    }
+
+    @Test
+    void unlimitedDomainIsNeverRefused() {
+        Domain unlimited = new Domain("email", "mail-team", "email");
+        assertDoesNotThrow(() -> limiters.admit(unlimited, 1_000_000));
+    }
+}
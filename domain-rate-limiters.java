@@ -0,0 +1,96 @@
+package com.example.sqslistener.router;
+
+import com.example.sqslistener.retry.ThrottledException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One TokenBucket per domain, built from its governance "rate_limit" (and optional
+ * "rate_limit_burst"). Buckets outlive routing-table rebuilds and are only replaced when the
+ * domain's rate_limit changes; domains without one are unlimited.
+ *
+ * Two levels, neither of which blocks a thread:
+ * - admit(): called by NotificationPlatform.dispatch() on the listener thread. If the domain's
+ *   backlog already exceeds maxBacklog the request is refused with a ThrottledException, and
+ *   the message waits on the queue (RetryPolicy defers it by the remaining backlog). A request
+ *   that alone exceeds maxBacklog is judged by the backlog ahead of it, so it is never deferred
+ *   forever.
+ * - reserve(): called per delivery chunk by RateLimitedDeliverySink; the returned delay (at most
+ *   about maxBacklog, thanks to admit) is waited out with a delayed executor.
+ */
+final class DomainRateLimiters {
+    private final Duration maxBacklog;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private volatile RouterMetrics metrics = RouterMetrics.NOOP;
+
+    DomainRateLimiters(Duration maxBacklog) {
+        this.maxBacklog = maxBacklog;
+    }
+
+    void setMetrics(RouterMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Refuses the deliveries if the domain couldn't start them within maxBacklog. A request
+     * bigger than an idle bucket grants within maxBacklog could never pass that test; it is
+     * admitted once the backlog ahead of it is within maxBacklog, and its chunks then queue up
+     * in RateLimitedDeliverySink like any others.
+     */
+    void admit(Domain domain, int deliveries) {
+        TokenBucket bucket = bucketFor(domain);
+        if (bucket == null) {
+            return;
+        }
+        boolean oversized = deliveries > bucket.capacityWithin(maxBacklog.toNanos());
+        long waitNanos = bucket.waitNanos(oversized ? 0 : deliveries);
+        if (waitNanos > maxBacklog.toNanos()) {
+            metrics.rateLimited(domain.getId(), true);
+            throw new ThrottledException("Rate limit " + bucket.getSpec() + " of domain " + domain.getId()
+                    + " saturated", Duration.ofNanos(waitNanos - maxBacklog.toNanos()));
+        }
+    }
+
+    /**
+     * Takes tokens for the deliveries; returns the nanos to wait before sending them.
+     */
+    long reserve(Domain domain, int deliveries) {
+        TokenBucket bucket = bucketFor(domain);
+        if (bucket == null) {
+            return 0L;
+        }
+        long waitNanos = bucket.reserve(deliveries);
+        if (waitNanos > 0) {
+            metrics.rateLimited(domain.getId(), false);
+        }
+        return waitNanos;
+    }
+
+    private TokenBucket bucketFor(Domain domain) {
+        if (domain == null) {
+            return null;
+        }
+        String spec = domain.getGovernance().get("rate_limit");
+        if (spec == null) {
+            return null;
+        }
+        TokenBucket bucket = buckets.get(domain.getId());
+        if (bucket == null || !bucket.getSpec().equals(spec)) {
+            bucket = buckets.compute(domain.getId(), (id, current) ->
+                    current != null && current.getSpec().equals(spec) ? current : newBucket(domain, spec));
+        }
+        return bucket.isUnlimited() ? null : bucket;
+    }
+
+    private static TokenBucket newBucket(Domain domain, String spec) {
+        try {
+            String burst = domain.getGovernance().get("rate_limit_burst");
+            return TokenBucket.parse(spec, burst == null ? null : Integer.valueOf(burst.trim()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring rate limit of domain " + domain.getId() + ": " + e.getMessage());
+            return TokenBucket.unlimited(spec);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.sqslistener.config;
+
+import com.example.sqslistener.metrics.AwsHttpPoolMetrics;
+import com.example.sqslistener.metrics.AwsSdkCallMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.eventbridge.EventBridgeAsyncClient;
+import software.amazon.awssdk.services.eventbridge.EventBridgeAsyncClientBuilder;
+
+import java.net.URI;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "eventbridge.publisher.enabled", havingValue = "true")
+public class EventBridgeConfig {
+
+    @Value("${aws.region:us-east-1}")
+    private String awsRegion;
+
+    // Point at a local stub (e.g. LocalStack or a WireMock PutEvents endpoint) for testing
+    @Value("${eventbridge.endpoint:}")
+    private String endpoint;
+
+    // Off gives the publisher its own pool (same aws.http.* settings), e.g. to keep a PutEvents
+    // backlog from taking connections the SQS listeners need
+    @Value("${eventbridge.shared-http-client:true}")
+    private boolean sharedHttpClient;
+
+    @Bean
+    public EventBridgeAsyncClient eventBridgeAsyncClient(AwsSdkCallMetrics awsSdkCallMetrics,
+                                                         AwsHttpPoolMetrics awsHttpPoolMetrics,
+                                                         AwsHttpClientConfig awsHttpClientConfig,
+                                                         SdkAsyncHttpClient awsAsyncHttpClient) {
+        EventBridgeAsyncClientBuilder builder = EventBridgeAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(config -> config
+                        .addExecutionInterceptor(awsSdkCallMetrics)
+                        .addMetricPublisher(awsHttpPoolMetrics));
+        if (sharedHttpClient) {
+            builder.httpClient(awsAsyncHttpClient);
+        } else {
+            // Owned by the EventBridge client, which closes it
+            builder.httpClientBuilder(awsHttpClientConfig.newClientBuilder());
+        }
+
+        if (!endpoint.isBlank()) {
+            log.info("Configuring EventBridge client against endpoint override: {}", endpoint);
+            builder.endpointOverride(URI.create(endpoint));
+        } else {
+            log.info("Configuring EventBridge client with IAM role in region: {}", awsRegion);
+        }
+        return builder.build();
+    }
+}
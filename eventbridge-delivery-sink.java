@@ -0,0 +1,43 @@
+package com.example.sqslistener.router;
+
+import com.example.sqslistener.publisher.EventBridgePublisher;
+import org.json.JSONObject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out sink that publishes every delivery of a chunk as one EventBridge event through the
+ * batching EventBridgePublisher. The detail-type is the route id, so EventBridge rules can
+ * target a channel; the detail carries the recipient, the delivery domain and the message.
+ */
+class EventBridgeDeliverySink implements DeliverySink {
+
+    private final EventBridgePublisher publisher;
+
+    EventBridgeDeliverySink(EventBridgePublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public CompletableFuture<Integer> deliver(DeliveryChunk chunk) {
+        ResolvedRoute route = chunk.getPayload().getRoute();
+        // Everything but the recipient is shared by the chunk - serialize it once
+        String detailSuffix = ",\"route\":" + JSONObject.quote(route.getRoute().getId())
+                + ",\"domain\":" + JSONObject.quote(route.getDomain().getId())
+                + ",\"platformType\":" + JSONObject.quote(route.getDomain().getPlatformType())
+                + ",\"message\":" + new JSONObject(chunk.getPayload().getMessage()) + "}";
+
+        AtomicInteger failed = new AtomicInteger();
+        CompletableFuture<?>[] events = new CompletableFuture<?>[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            String detail = "{\"recipient\":" + JSONObject.quote(chunk.get(i)) + detailSuffix;
+            events[i] = publisher.publish(route.getRoute().getId(), detail)
+                    .exceptionally(throwable -> {
+                        failed.incrementAndGet();
+                        return null;
+                    });
+        }
+        return CompletableFuture.allOf(events).thenApply(ignored -> failed.get());
+    }
+}
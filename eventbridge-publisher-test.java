@@ -0,0 +1,245 @@
+package com.example.sqslistener.publisher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.eventbridge.EventBridgeAsyncClient;
+import software.amazon.awssdk.services.eventbridge.model.EventBridgeException;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResponse;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventBridgePublisherTest {
+
+    private final StubEventBridge eventBridge = new StubEventBridge();
+    private EventBridgePublisher publisher;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    void publishesBufferedEntriesInOneCall() throws Exception {
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(10, 16, 100);
+
+        List<CompletableFuture<String>> published = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            published.add(publisher.publish("NOTIFICATION", "{\"n\":" + i + "}"));
+        }
+        publisher.flush();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("event-" + i, published.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, eventBridge.calls.size());
+        assertEquals(3, eventBridge.calls.get(0).entries().size());
+    }
+
+    @Test
+    void retriesThrottledCall() throws Exception {
+        eventBridge.respond(request -> CompletableFuture.failedFuture(serviceException(400, "ThrottlingException")));
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(1, 16, 100);
+
+        assertEquals("event-0", publisher.publish("NOTIFICATION", "{}").get(5, TimeUnit.SECONDS));
+        assertEquals(2, eventBridge.calls.size());
+    }
+
+    @Test
+    void retriesCallFailedWithIoError() throws Exception {
+        eventBridge.respond(request -> CompletableFuture.failedFuture(
+                SdkClientException.create("Unable to execute HTTP request", new IOException("connection reset"))));
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(1, 16, 100);
+
+        assertEquals("event-0", publisher.publish("NOTIFICATION", "{}").get(5, TimeUnit.SECONDS));
+        assertEquals(2, eventBridge.calls.size());
+    }
+
+    @Test
+    void doesNotRetryAccessDenied() {
+        eventBridge.respond(request -> CompletableFuture.failedFuture(serviceException(403, "AccessDeniedException")));
+        publisher = publisher(1, 16, 100);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> publisher.publish("NOTIFICATION", "{}").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(EventBridgeException.class, failure.getCause());
+        assertEquals(1, eventBridge.calls.size());
+    }
+
+    @Test
+    void retriesEntryRejectedWithTransientCode() throws Exception {
+        eventBridge.respond(request -> CompletableFuture.completedFuture(PutEventsResponse.builder()
+                .failedEntryCount(1)
+                .entries(PutEventsResultEntry.builder().errorCode("ThrottlingException").errorMessage("slow down").build())
+                .build()));
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(1, 16, 100);
+
+        assertEquals("event-0", publisher.publish("NOTIFICATION", "{}").get(5, TimeUnit.SECONDS));
+        assertEquals(2, eventBridge.calls.size());
+    }
+
+    @Test
+    void failsFastOnceWaitingBatchesAreFull() {
+        // The first call hangs: it runs, one batch waits behind it, the next is refused
+        CompletableFuture<PutEventsResponse> hanging = new CompletableFuture<>();
+        eventBridge.respond(request -> hanging);
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(1, 1, 1);
+
+        CompletableFuture<String> running = publisher.publish("NOTIFICATION", "{}");
+        CompletableFuture<String> waiting = publisher.publish("NOTIFICATION", "{}");
+        CompletableFuture<String> refused = publisher.publish("NOTIFICATION", "{}");
+
+        assertTrue(refused.isCompletedExceptionally());
+        ExecutionException failure = assertThrows(ExecutionException.class, refused::get);
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertFalse(running.isDone());
+        assertFalse(waiting.isDone());
+        assertEquals(1, eventBridge.calls.size());
+
+        hanging.complete(StubEventBridge.accepted(eventBridge.calls.get(0)).join());
+        assertEquals("event-0", waiting.join());
+    }
+
+    @Test
+    void waitingBatchesFailingInlineAreRunWithoutRecursion() throws Exception {
+        // Every call after the first throws at once; each hands its slot to the next waiting batch
+        CompletableFuture<PutEventsResponse> hanging = new CompletableFuture<>();
+        eventBridge.respond(request -> hanging);
+        eventBridge.respond(request -> {
+            throw SdkClientException.create("Unable to load credentials");
+        });
+        publisher = publisher(1, 1, 20_000);
+
+        CompletableFuture<String> running = publisher.publish("NOTIFICATION", "{}");
+        List<CompletableFuture<String>> waiting = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            waiting.add(publisher.publish("NOTIFICATION", "{}"));
+        }
+
+        hanging.complete(StubEventBridge.accepted(eventBridge.calls.get(0)).join());
+        assertEquals("event-0", running.get(5, TimeUnit.SECONDS));
+        assertTrue(waiting.stream().allMatch(CompletableFuture::isCompletedExceptionally));
+        assertEquals(20_001, eventBridge.calls.size());
+    }
+
+    @Test
+    void retryPendingAtShutdownCompletesExceptionally() throws InterruptedException {
+        eventBridge.respond(request -> CompletableFuture.failedFuture(serviceException(400, "ThrottlingException")));
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(1, 16, 100);
+        ReflectionTestUtils.setField(publisher, "retryBackoff", Duration.ofSeconds(10));
+
+        CompletableFuture<String> published = publisher.publish("NOTIFICATION", "{}");
+        assertFalse(published.isDone());
+        publisher.shutdown();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> published.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(1, eventBridge.calls.size());
+    }
+
+    @Test
+    void publishAfterShutdownCompletesExceptionally() throws InterruptedException {
+        eventBridge.respond(StubEventBridge::accepted);
+        publisher = publisher(10, 16, 100);
+        publisher.shutdown();
+
+        CompletableFuture<String> published = publisher.publish("NOTIFICATION", "{}");
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> published.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(0, eventBridge.calls.size());
+    }
+
+    @Test
+    void classifiesWholeCallFailures() {
+        assertTrue(EventBridgePublisher.isRetryable(serviceException(500, "InternalException")));
+        assertTrue(EventBridgePublisher.isRetryable(serviceException(429, "TooManyRequestsException")));
+        assertFalse(EventBridgePublisher.isRetryable(serviceException(400, "ValidationException")));
+        assertFalse(EventBridgePublisher.isRetryable(SdkClientException.create("Unable to load credentials")));
+    }
+
+    private EventBridgePublisher publisher(int maxBatchEntries, int maxInFlightBatches, int maxWaitingBatches) {
+        EventBridgePublisher publisher = new EventBridgePublisher(eventBridge, new SimpleMeterRegistry(),
+                maxInFlightBatches, maxWaitingBatches);
+        ReflectionTestUtils.setField(publisher, "eventBusName", "test-bus");
+        ReflectionTestUtils.setField(publisher, "source", "test");
+        ReflectionTestUtils.setField(publisher, "maxBatchEntries", maxBatchEntries);
+        ReflectionTestUtils.setField(publisher, "linger", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(publisher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(publisher, "retryBackoff", Duration.ofMillis(1));
+        return publisher;
+    }
+
+    private static EventBridgeException serviceException(int statusCode, String errorCode) {
+        return (EventBridgeException) EventBridgeException.builder()
+                .statusCode(statusCode)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode(errorCode).errorMessage(errorCode).build())
+                .build();
+    }
+
+    /**
+     * Answers PutEvents with the queued responses in order, repeating the last one.
+     */
+    private static final class StubEventBridge implements EventBridgeAsyncClient {
+        private final Queue<Function<PutEventsRequest, CompletableFuture<PutEventsResponse>>> responses = new ArrayDeque<>();
+        private final List<PutEventsRequest> calls = new ArrayList<>();
+
+        void respond(Function<PutEventsRequest, CompletableFuture<PutEventsResponse>> response) {
+            responses.add(response);
+        }
+
+        @Override
+        public synchronized CompletableFuture<PutEventsResponse> putEvents(PutEventsRequest request) {
+            calls.add(request);
+            Function<PutEventsRequest, CompletableFuture<PutEventsResponse>> response =
+                    responses.size() > 1 ? responses.poll() : responses.peek();
+            return response.apply(request);
+        }
+
+        static CompletableFuture<PutEventsResponse> accepted(PutEventsRequest request) {
+            List<PutEventsResultEntry> entries = new ArrayList<>();
+            for (int i = 0; i < request.entries().size(); i++) {
+                entries.add(PutEventsResultEntry.builder().eventId("event-" + i).build());
+            }
+            return CompletableFuture.completedFuture(PutEventsResponse.builder().failedEntryCount(0).entries(entries).build());
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
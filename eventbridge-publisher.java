@@ -0,0 +1,487 @@
+package com.example.sqslistener.publisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.services.eventbridge.EventBridgeAsyncClient;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequest;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsRequestEntry;
+import software.amazon.awssdk.services.eventbridge.model.PutEventsResultEntry;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces routed notifications into PutEvents batches.
+ *
+ * Entries are buffered until the batch holds max-batch-entries (at most 10) entries, the next
+ * entry would push it past 256 KB, or the oldest entry has waited linger. At most
+ * max-in-flight-batches PutEvents calls run at once; once they are all busy, up to
+ * max-waiting-batches further batches wait in order for a call to finish, and beyond that a batch
+ * fails at once with RejectedExecutionException. publish() never blocks, so it is safe to call
+ * from SDK completion threads: callers push back by bounding the entries they have outstanding
+ * (FanOutEngine and AsyncNotificationPipeline do), and a slow bus holds those futures longer.
+ * Entries EventBridge rejects with a transient error code, and whole calls that failed with
+ * throttling, a 5xx or an I/O error or timeout, are re-batched and retried with exponential
+ * backoff; every other entry completes its future with the event id or the failure.
+ *
+ * On shutdown the buffer is flushed and running calls get up to 30s to finish; retries still
+ * waiting out their backoff, batches still waiting for a call and anything published afterwards
+ * complete exceptionally with IllegalStateException, so no caller is left holding a future that
+ * never completes.
+ *
+ * Enable with eventbridge.publisher.enabled=true; set eventbridge.endpoint to use a local stub.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "eventbridge.publisher.enabled", havingValue = "true")
+public class EventBridgePublisher {
+
+    // PutEvents limits
+    static final int MAX_BATCH_ENTRIES = 10;
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    private static final Set<String> RETRYABLE_ERROR_CODES = Set.of(
+            "ThrottlingException", "InternalFailure", "InternalException", "ServiceUnavailable");
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(5);
+
+    private final EventBridgeAsyncClient eventBridgeAsyncClient;
+    private final ScheduledExecutorService scheduler;
+    private final int maxInFlightBatches;
+    private final int maxWaitingBatches;
+
+    // PutEvents calls running, and full batches waiting for one of them to finish
+    private final Object callLock = new Object();
+    private final ArrayDeque<List<PendingEntry>> waitingBatches = new ArrayDeque<>();
+    private int inFlightBatches;
+    // Batches handed a slot while this thread is already starting calls, run by its outer loop
+    private final ThreadLocal<ArrayDeque<List<PendingEntry>>> handedOff = new ThreadLocal<>();
+
+    private final Object bufferLock = new Object();
+    private List<PendingEntry> buffer = new ArrayList<>(MAX_BATCH_ENTRIES);
+    private int bufferBytes;
+    private ScheduledFuture<?> lingerFlush;
+    // Set under bufferLock, so nothing is buffered or scheduled once shutdown() has taken the buffer
+    private volatile boolean shutdown;
+
+    // Entries waiting out a retry backoff; whoever removes one owns it
+    private final Set<PendingEntry> retrying = ConcurrentHashMap.newKeySet();
+
+    private final Counter publishedEntries;
+    private final Counter failedEntries;
+    private final Counter retriedEntries;
+    private final DistributionSummary batchEntries;
+    private final Timer publishLatency;
+
+    @Value("${eventbridge.event-bus-name:default}")
+    private String eventBusName;
+
+    @Value("${eventbridge.source:omnichannel.router}")
+    private String source;
+
+    @Value("${eventbridge.publisher.max-batch-entries:10}")
+    private int maxBatchEntries;
+
+    @Value("${eventbridge.publisher.linger:20ms}")
+    private Duration linger;
+
+    @Value("${eventbridge.publisher.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${eventbridge.publisher.retry-backoff:100ms}")
+    private Duration retryBackoff;
+
+    public EventBridgePublisher(EventBridgeAsyncClient eventBridgeAsyncClient,
+                                MeterRegistry meterRegistry,
+                                @Value("${eventbridge.publisher.max-in-flight-batches:16}") int maxInFlightBatches,
+                                @Value("${eventbridge.publisher.max-waiting-batches:1000}") int maxWaitingBatches) {
+        this.eventBridgeAsyncClient = eventBridgeAsyncClient;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.maxWaitingBatches = maxWaitingBatches;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "eventbridge-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.publishedEntries = entriesCounter(meterRegistry, "published");
+        this.failedEntries = entriesCounter(meterRegistry, "failed");
+        this.retriedEntries = entriesCounter(meterRegistry, "retried");
+        this.batchEntries = DistributionSummary.builder("eventbridge.publisher.batch.entries")
+                .description("Entries per PutEvents call")
+                .register(meterRegistry);
+        this.publishLatency = Timer.builder("eventbridge.publisher.latency")
+                .description("Time from publish() until EventBridge accepted the entry, batching and retries included")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("eventbridge.publisher.in.flight.batches", this, publisher -> publisher.callState(false))
+                .description("PutEvents calls currently running")
+                .register(meterRegistry);
+        Gauge.builder("eventbridge.publisher.waiting.batches", this, publisher -> publisher.callState(true))
+                .description("Batches waiting for a PutEvents call to finish")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes one event to the configured bus and source; completes with its event id.
+     */
+    public CompletableFuture<String> publish(String detailType, String detail) {
+        return publish(PutEventsRequestEntry.builder()
+                .eventBusName(eventBusName)
+                .source(source)
+                .detailType(detailType)
+                .detail(detail)
+                .build());
+    }
+
+    /**
+     * Publishes a prepared entry; completes with its event id, or exceptionally once the entry
+     * was rejected with a non-retryable code or ran out of attempts.
+     */
+    public CompletableFuture<String> publish(PutEventsRequestEntry entry) {
+        PendingEntry pending = new PendingEntry(entry, entrySize(entry));
+        if (pending.size > MAX_BATCH_BYTES) {
+            failedEntries.increment();
+            pending.future.completeExceptionally(new IllegalArgumentException(
+                    "Event of " + pending.size + " bytes exceeds the PutEvents limit of " + MAX_BATCH_BYTES));
+            return pending.future;
+        }
+        enqueue(pending);
+        return pending.future;
+    }
+
+    private void enqueue(PendingEntry pending) {
+        List<PendingEntry> overflow = null;
+        List<PendingEntry> full = null;
+        synchronized (bufferLock) {
+            if (shutdown) {
+                fail(pending, shutDown());
+                return;
+            }
+            if (!buffer.isEmpty() && bufferBytes + pending.size > MAX_BATCH_BYTES) {
+                overflow = takeBuffer();
+            }
+            buffer.add(pending);
+            bufferBytes += pending.size;
+            if (buffer.size() >= Math.min(maxBatchEntries, MAX_BATCH_ENTRIES)) {
+                full = takeBuffer();
+            } else if (lingerFlush == null) {
+                lingerFlush = scheduler.schedule(this::flush, linger.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        send(overflow);
+        send(full);
+    }
+
+    /**
+     * Sends whatever is buffered without waiting for the batch to fill.
+     */
+    public void flush() {
+        List<PendingEntry> batch;
+        synchronized (bufferLock) {
+            batch = buffer.isEmpty() ? null : takeBuffer();
+        }
+        send(batch);
+    }
+
+    // Caller holds bufferLock
+    private List<PendingEntry> takeBuffer() {
+        List<PendingEntry> batch = buffer;
+        buffer = new ArrayList<>(MAX_BATCH_ENTRIES);
+        bufferBytes = 0;
+        if (lingerFlush != null) {
+            lingerFlush.cancel(false);
+            lingerFlush = null;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingEntry> batch) {
+        if (batch == null) {
+            return;
+        }
+        boolean rejected = false;
+        synchronized (callLock) {
+            if (inFlightBatches >= maxInFlightBatches) {
+                if (waitingBatches.size() < maxWaitingBatches) {
+                    waitingBatches.addLast(batch);
+                    return;
+                }
+                rejected = true;
+            } else {
+                inFlightBatches++;
+            }
+        }
+        if (rejected) {
+            RejectedExecutionException full = new RejectedExecutionException(
+                    "EventBridge publisher has " + maxWaitingBatches + " batches waiting");
+            batch.forEach(pending -> fail(pending, full));
+            return;
+        }
+        putEvents(batch);
+    }
+
+    /**
+     * Runs the batch on a call slot the caller holds. A call that fails or completes inline hands
+     * its slot to the next waiting batch on the same thread; those batches are run by this loop
+     * rather than by recursion, so a burst of synchronous failures can't nest max-waiting-batches deep.
+     */
+    private void putEvents(List<PendingEntry> batch) {
+        ArrayDeque<List<PendingEntry>> batches = handedOff.get();
+        if (batches != null) {
+            batches.addLast(batch);
+            return;
+        }
+        batches = new ArrayDeque<>();
+        handedOff.set(batches);
+        try {
+            for (List<PendingEntry> next = batch; next != null; next = batches.pollFirst()) {
+                call(next);
+            }
+        } finally {
+            handedOff.remove();
+        }
+    }
+
+    private void call(List<PendingEntry> batch) {
+        List<PutEventsRequestEntry> entries = new ArrayList<>(batch.size());
+        batch.forEach(pending -> entries.add(pending.entry));
+        batchEntries.record(batch.size());
+
+        try {
+            eventBridgeAsyncClient.putEvents(PutEventsRequest.builder().entries(entries).build())
+                    .whenComplete((response, throwable) -> {
+                        callCompleted();
+                        if (throwable != null) {
+                            log.warn("PutEvents call for {} entries failed: {}", batch.size(), throwable.getMessage());
+                            callFailed(batch, throwable);
+                        } else {
+                            complete(batch, response.entries());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            callCompleted();
+            callFailed(batch, e);
+        }
+    }
+
+    private void callFailed(List<PendingEntry> batch, Throwable throwable) {
+        boolean retryable = isRetryable(throwable);
+        batch.forEach(pending -> {
+            if (retryable) {
+                retryOrFail(pending, throwable);
+            } else {
+                fail(pending, throwable);
+            }
+        });
+    }
+
+    /**
+     * Whole-call failures worth another attempt: throttling, 5xx, I/O errors and timeouts.
+     * Access denied, validation and other client errors fail the same way every time.
+     */
+    static boolean isRetryable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AwsServiceException) {
+                AwsServiceException serviceException = (AwsServiceException) cause;
+                return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+            }
+            if (cause instanceof IOException
+                    || cause instanceof ApiCallTimeoutException
+                    || cause instanceof ApiCallAttemptTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Passes the finished call's slot to the oldest waiting batch, or frees it
+    private void callCompleted() {
+        List<PendingEntry> next;
+        synchronized (callLock) {
+            next = waitingBatches.pollFirst();
+            if (next == null) {
+                inFlightBatches--;
+                callLock.notifyAll();
+                return;
+            }
+        }
+        putEvents(next);
+    }
+
+    private int callState(boolean waiting) {
+        synchronized (callLock) {
+            return waiting ? waitingBatches.size() : inFlightBatches;
+        }
+    }
+
+    // Result entries are in request order
+    private void complete(List<PendingEntry> batch, List<PutEventsResultEntry> results) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEntry pending = batch.get(i);
+            PutEventsResultEntry result = i < results.size() ? results.get(i) : null;
+            if (result != null && result.errorCode() == null) {
+                publishedEntries.increment();
+                publishLatency.record(System.nanoTime() - pending.createdNanos, TimeUnit.NANOSECONDS);
+                pending.future.complete(result.eventId());
+                continue;
+            }
+
+            String errorCode = result == null ? "MissingResult" : result.errorCode();
+            String errorMessage = result == null ? "no result entry returned" : result.errorMessage();
+            IllegalStateException rejection = new IllegalStateException(
+                    "PutEvents rejected entry: " + errorCode + " - " + errorMessage);
+            if (result == null || RETRYABLE_ERROR_CODES.contains(errorCode)) {
+                retryOrFail(pending, rejection);
+            } else {
+                fail(pending, rejection);
+            }
+        }
+    }
+
+    /**
+     * Re-batches the entry after an exponential backoff; retries go through the scheduler so
+     * SDK completion threads never block on the in-flight limit.
+     */
+    private void retryOrFail(PendingEntry pending, Throwable cause) {
+        if (pending.attempts >= maxAttempts || shutdown) {
+            fail(pending, cause);
+            return;
+        }
+        long backoffMillis = Math.min(MAX_RETRY_BACKOFF.toMillis(),
+                retryBackoff.toMillis() << Math.min(pending.attempts - 1, 16));
+        pending.attempts++;
+        retriedEntries.increment();
+        retrying.add(pending);
+        try {
+            scheduler.schedule(() -> {
+                if (retrying.remove(pending)) {
+                    enqueue(pending);
+                }
+            }, backoffMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (retrying.remove(pending)) {
+                fail(pending, shutDown());
+            }
+        }
+    }
+
+    private static IllegalStateException shutDown() {
+        return new IllegalStateException("EventBridge publisher is shut down");
+    }
+
+    private void fail(PendingEntry pending, Throwable cause) {
+        failedEntries.increment();
+        log.error("Dropping EventBridge entry {} after {} attempt(s): {}",
+                pending.entry.detailType(), pending.attempts, cause.getMessage());
+        pending.future.completeExceptionally(cause);
+    }
+
+    /**
+     * Entry size as EventBridge counts it against the 256 KB PutEvents limit.
+     */
+    static int entrySize(PutEventsRequestEntry entry) {
+        int size = 0;
+        if (entry.time() != null) {
+            size += 14;
+        }
+        size += utf8Length(entry.source());
+        size += utf8Length(entry.detailType());
+        size += utf8Length(entry.detail());
+        if (entry.hasResources()) {
+            for (String resource : entry.resources()) {
+                size += utf8Length(resource);
+            }
+        }
+        return size;
+    }
+
+    private static int utf8Length(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static Counter entriesCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("eventbridge.publisher.entries")
+                .description("Entries handled by the EventBridge publisher")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        List<PendingEntry> batch;
+        synchronized (bufferLock) {
+            shutdown = true;
+            batch = buffer.isEmpty() ? null : takeBuffer();
+        }
+        send(batch);
+        failRetrying();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        synchronized (callLock) {
+            // Waiting batches take over finishing calls' slots, so none in flight means none waiting
+            while (inFlightBatches > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    log.warn("EventBridge publisher shut down with {} PutEvents calls in flight and {} batches waiting",
+                            inFlightBatches, waitingBatches.size());
+                    break;
+                }
+                callLock.wait(remainingMillis);
+            }
+        }
+        List<List<PendingEntry>> stranded;
+        synchronized (callLock) {
+            stranded = new ArrayList<>(waitingBatches);
+            waitingBatches.clear();
+        }
+        stranded.forEach(waiting -> waiting.forEach(pending -> fail(pending, shutDown())));
+        scheduler.shutdownNow();
+        // Calls that failed while we waited already failed their entries; this catches any that raced
+        failRetrying();
+    }
+
+    private void failRetrying() {
+        for (PendingEntry pending : retrying) {
+            if (retrying.remove(pending)) {
+                fail(pending, shutDown());
+            }
+        }
+    }
+
+    private static final class PendingEntry {
+        private final PutEventsRequestEntry entry;
+        private final int size;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        private final long createdNanos = System.nanoTime();
+        private int attempts = 1;
+
+        private PendingEntry(PutEventsRequestEntry entry, int size) {
+            this.entry = entry;
+            this.size = size;
+        }
+    }
+}
@@ -1,28 +1,23 @@
+package com.example.sqslistener.router;
+
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import org.json.JSONObject;
 import org.json.JSONArray;
-// Uncomment for Everit support:
-// import org.everit.json.schema.Schema;
-// import org.everit.json.schema.loader.SchemaLoader;
-// import org.everit.json.schema.ValidationException;
 
 /**
- * Notification Platform with configurable validation (Everit or Basic JSON)
- * Set USE_EVERIT = true to use Everit validation (requires library)
- * Set USE_EVERIT = false to use basic JSON validation
+ * Notification Platform with compiled JSON Schema (draft 2020-12) validation
  */
 public class SimpleNotificationPlatform {
     
-    // Configuration flag - switch between Everit and basic validation
-    private static final boolean USE_EVERIT = false; // Set to true if Everit library is available
-    
     public static void main(String[] args) {
         // Initialize platform
-        NotificationPlatform platform = new NotificationPlatform(USE_EVERIT);
+        NotificationPlatform platform = new NotificationPlatform();
         
         System.out.println("=== NOTIFICATION PLATFORM SETUP ===");
-        System.out.println("Validation Mode: " + (USE_EVERIT ? "Everit JSON Schema" : "Basic JSON Validation") + "\n");
+        System.out.println("Validation Mode: Compiled JSON Schema (draft 2020-12)\n");
         
         // Setup domains
         setupDomains(platform);
@@ -200,88 +195,180 @@ public class SimpleNotificationPlatform {
             "priority", "invalid_priority"  // Invalid enum value
         ));
         request.addPayload(invalidPayload);
-        
+
         platform.send(request);
+
+        // Routing stops at the first violation; onboarding gets the full list
+        System.out.println("\n  Full diagnosis for mobile.push.v1:");
+        platform.diagnose("mobile.push.v1", invalidPayload.getMessage())
+            .getErrors().forEach(error -> System.out.println("    - " + error));
     }
 }
 
 // Main Platform Class
 class NotificationPlatform {
-    private Map<String, Domain> domains = new HashMap<>();
-    private Map<String, SchemaDocument> schemas = new HashMap<>();
-    private Map<String, Route> routes = new HashMap<>();
-    private Map<String, Capability> capabilities = new HashMap<>();
-    private SchemaValidator validator;
+    // Registries are only touched by register* under registrationLock; send() reads routingTable only
+    private final Object registrationLock = new Object();
+    private final Map<String, Domain> domains = new HashMap<>();
+    private final Map<String, SchemaDocument> schemas = new HashMap<>();
+    private final Map<String, Route> routes = new HashMap<>();
+    private final Map<String, Capability> capabilities = new HashMap<>();
+    private final SchemaValidator validator;
+    private volatile RoutingTable routingTable = RoutingTable.EMPTY;
+    private volatile RouterMetrics metrics = RouterMetrics.NOOP;
+    // Governance rate_limit per domain; requests backlogged beyond a second go back to the queue
+    private final DomainRateLimiters rateLimiters = new DomainRateLimiters(Duration.ofSeconds(1));
     
-    public NotificationPlatform(boolean useEverit) {
-        this.validator = new SchemaValidator(useEverit);
+    public NotificationPlatform() {
+        this.validator = new SchemaValidator();
+    }
+    
+    public void setMetrics(RouterMetrics metrics) {
+        this.metrics = metrics;
+        rateLimiters.setMetrics(metrics);
+    }
+    
+    // Wrap the fan-out sink in a RateLimitedDeliverySink over these to enforce the limits
+    DomainRateLimiters getRateLimiters() {
+        return rateLimiters;
     }
     
     public void registerDomain(Domain domain) {
-        domains.put(domain.getId(), domain);
+        synchronized (registrationLock) {
+            domains.put(domain.getId(), domain);
+            publishRoutingTable();
+        }
         System.out.println("✓ Registered domain: " + domain.getId());
     }
     
     public void registerSchema(SchemaDocument schema) {
-        schemas.put(schema.getId(), schema);
-        validator.compileSchema(schema.getId(), schema.getJsonSchema());
+        synchronized (registrationLock) {
+            schemas.put(schema.getId(), schema);
+            validator.compileSchema(schema.getId(), schema.getJsonSchema());
+            publishRoutingTable();
+        }
         System.out.println("✓ Registered schema: " + schema.getId());
     }
     
     public void registerRoute(Route route) {
-        routes.put(route.getId(), route);
+        synchronized (registrationLock) {
+            routes.put(route.getId(), route);
+            publishRoutingTable();
+        }
         System.out.println("✓ Registered route: " + route.getId() + " → " + route.getSchemaId());
     }
     
+    // The capability's routes are captured now; register it again after addRoute()
     public void registerCapability(Capability capability) {
-        capabilities.put(capability.getId(), capability);
+        synchronized (registrationLock) {
+            capabilities.put(capability.getId(), capability);
+            publishRoutingTable();
+        }
         System.out.println("✓ Registered capability: " + capability.getId());
     }
+
+    // Onboarding diagnostics: every violation of the sample message, not just the first one routing stops at
+    public ValidationResult diagnose(String schemaId, Map<String, Object> sampleMessage) {
+        return validator.validate(schemaId, sampleMessage, ValidationMode.COLLECT_ALL);
+    }
+
+    /**
+     * Applies a batch of registry changes (MongoRouteRegistry) with one routing-table swap, so
+     * traffic sees either none or all of them. Schemas are compiled once per (id, version); a
+     * schema that fails to compile is skipped and its previous version keeps serving. A full
+     * snapshot also drops every registration it doesn't contain.
+     */
+    void applyChanges(RegistryChanges changes) {
+        int compiled = 0;
+        synchronized (registrationLock) {
+            if (changes.isFullSnapshot()) {
+                domains.keySet().retainAll(changes.getDomains().keySet());
+                schemas.keySet().retainAll(changes.getSchemas().keySet());
+                routes.keySet().retainAll(changes.getRoutes().keySet());
+                capabilities.keySet().retainAll(changes.getCapabilities().keySet());
+            }
+            domains.putAll(changes.getDomains());
+            for (SchemaDocument schema : changes.getSchemas().values()) {
+                SchemaDocument current = schemas.get(schema.getId());
+                if (current != null && current.getVersion().equals(schema.getVersion())) {
+                    continue;
+                }
+                try {
+                    validator.compileSchema(schema);
+                    schemas.put(schema.getId(), schema);
+                    compiled++;
+                } catch (RuntimeException e) {
+                    System.err.println("Failed to compile schema " + schema.getId() + " version "
+                        + schema.getVersion() + ", keeping the previous version: " + e.getMessage());
+                }
+            }
+            routes.putAll(changes.getRoutes());
+            capabilities.putAll(changes.getCapabilities());
+            
+            domains.keySet().removeAll(changes.getRemovedDomains());
+            schemas.keySet().removeAll(changes.getRemovedSchemas());
+            routes.keySet().removeAll(changes.getRemovedRoutes());
+            capabilities.keySet().removeAll(changes.getRemovedCapabilities());
+            
+            publishRoutingTable();
+            validator.retainVersions(schemas.values());
+        }
+        System.out.println("✓ Applied registry changes: " + changes + ", " + compiled + " schema(s) compiled");
+    }
+    
+    // Copy-on-write: in-flight sends keep the snapshot they started with
+    private void publishRoutingTable() {
+        routingTable = RoutingTable.build(domains, schemas, routes, capabilities, validator);
+    }
+    
+    RoutingTable getRoutingTable() {
+        return routingTable;
+    }
     
     public void send(NotificationRequest request) {
         System.out.println("Processing notification:");
         System.out.println("  Capability: " + request.getCapability());
         System.out.println("  Recipients: " + request.getRecipients());
         
-        Capability capability = capabilities.get(request.getCapability());
-        if (capability == null) {
+        // One snapshot per request, so every payload is routed against the same registrations
+        RoutingTable table = routingTable;
+        RouterMetrics metrics = this.metrics;
+        if (!table.hasCapability(request.getCapability())) {
             System.out.println("❌ Unknown capability: " + request.getCapability());
+            metrics.requestCompleted(request.getCapability(), false);
             return;
         }
         
-        for (NotificationPayload payload : request.getPayloads()) {
+        boolean accepted = false;
+        for (NotificationPayload payload : payloadsOf(table, request)) {
             System.out.println("\n  Route: " + payload.getRoute());
             
-            Route route = routes.get(payload.getRoute());
-            if (route == null) {
-                System.out.println("  ❌ Unknown route");
+            ResolvedRoute resolved = resolve(table, metrics, request.getCapability(), payload.getRoute());
+            if (resolved == null) {
+                System.out.println("  ❌ " + table.explainMiss(request.getCapability(), payload.getRoute()));
                 continue;
             }
             
-            if (!capability.supportsRoute(payload.getRoute())) {
-                System.out.println("  ❌ Route not supported by capability");
-                continue;
-            }
+            System.out.println("  Schema: " + resolved.getSchema().getId());
             
-            SchemaDocument schema = schemas.get(route.getSchemaId());
-            if (schema == null) {
-                System.out.println("  ❌ Schema not found");
-                continue;
-            }
-            
-            System.out.println("  Schema: " + schema.getId());
-            
-            // Validate message
-            ValidationResult result = validator.validate(schema.getId(), payload.getMessage());
+            // The route's variant (truncated, mapped, defaulted) is what gets validated and delivered
+            Map<String, Object> message = resolved.getTransform().apply(payload.getMessage());
+            ValidationResult result = validate(metrics, resolved, message);
             
             if (result.isValid()) {
                 System.out.println("  ✓ Validation passed");
                 
-                Domain domain = domains.get(route.getDomainId());
+                Domain domain = resolved.getDomain();
+                if (domain == null) {
+                    System.out.println("  ❌ Domain not found: " + resolved.getRoute().getDomainId());
+                    continue;
+                }
                 System.out.println("  Delivering via: " + domain.getId() + " (" + domain.getPlatformType() + ")");
                 
                 // Display message
-                displayMessage(payload.getRoute(), payload.getMessage());
+                displayMessage(payload.getRoute(), message);
+                metrics.delivered(resolved, request.getRecipients().size(), 0);
+                accepted = true;
             } else {
                 System.out.println("  ❌ Validation failed:");
                 for (String error : result.getErrors()) {
@@ -289,6 +376,101 @@ class NotificationPlatform {
                 }
             }
         }
+        metrics.requestCompleted(request.getCapability(), accepted);
+    }
+    
+    /**
+     * Broadcast path: resolves, transforms and validates each payload once, then lets the engine
+     * deliver every valid route to every recipient in parallel. Rejected payloads are reported
+     * here and left out of the fan-out. Throws ThrottledException, before anything is delivered,
+     * if a domain's rate limit is too far behind to take the request.
+     */
+    public FanOutProgress dispatch(NotificationRequest request, FanOutEngine engine) {
+        return engine.submit(request.getRecipients(), accept(request));
+    }
+    
+    /**
+     * The routing half of dispatch(): the request's valid payloads, each resolved, transformed
+     * and validated once, ready to be delivered to every recipient. Admits them against their
+     * domains' rate limits (ThrottledException) and records the request's metrics.
+     */
+    List<ResolvedPayload> accept(NotificationRequest request) {
+        RoutingTable table = routingTable;
+        RouterMetrics metrics = this.metrics;
+        if (!table.hasCapability(request.getCapability())) {
+            System.out.println("❌ Unknown capability: " + request.getCapability());
+            metrics.requestCompleted(request.getCapability(), false);
+            return Collections.emptyList();
+        }
+        
+        List<NotificationPayload> payloads = payloadsOf(table, request);
+        List<ResolvedPayload> accepted = new ArrayList<>(payloads.size());
+        for (NotificationPayload payload : payloads) {
+            ResolvedRoute resolved = resolve(table, metrics, request.getCapability(), payload.getRoute());
+            if (resolved == null) {
+                System.out.println("  ❌ " + payload.getRoute() + ": " + table.explainMiss(request.getCapability(), payload.getRoute()));
+                continue;
+            }
+            if (resolved.getDomain() == null) {
+                System.out.println("  ❌ " + payload.getRoute() + ": Domain not found: " + resolved.getRoute().getDomainId());
+                continue;
+            }
+            Map<String, Object> message = resolved.getTransform().apply(payload.getMessage());
+            ValidationResult result = validate(metrics, resolved, message);
+            if (!result.isValid()) {
+                System.out.println("  ❌ " + payload.getRoute() + ": Validation failed: " + result.getErrors());
+                continue;
+            }
+            accepted.add(new ResolvedPayload(resolved, message));
+        }
+        admit(accepted, request.getRecipients().size());
+        metrics.requestCompleted(request.getCapability(), !accepted.isEmpty());
+        return accepted;
+    }
+    
+    // Routes sharing a domain are admitted together: they draw on the same bucket
+    private void admit(List<ResolvedPayload> accepted, int recipients) {
+        if (accepted.size() == 1) {
+            rateLimiters.admit(accepted.get(0).getRoute().getDomain(), recipients);
+            return;
+        }
+        Map<String, Domain> domainsById = new HashMap<>();
+        Map<String, Integer> deliveries = new HashMap<>();
+        for (ResolvedPayload payload : accepted) {
+            Domain domain = payload.getRoute().getDomain();
+            domainsById.put(domain.getId(), domain);
+            deliveries.merge(domain.getId(), recipients, Integer::sum);
+        }
+        deliveries.forEach((domainId, count) -> rateLimiters.admit(domainsById.get(domainId), count));
+    }
+    
+    // The request's payloads, or its canonical message once per route of the capability
+    private static List<NotificationPayload> payloadsOf(RoutingTable table, NotificationRequest request) {
+        if (!request.getPayloads().isEmpty() || request.getMessage() == null) {
+            return request.getPayloads();
+        }
+        List<NotificationPayload> payloads = new ArrayList<>();
+        for (String routeId : table.routesOf(request.getCapability())) {
+            NotificationPayload payload = new NotificationPayload();
+            payload.setRoute(routeId);
+            payload.setMessage(request.getMessage());
+            payloads.add(payload);
+        }
+        return payloads;
+    }
+    
+    private static ResolvedRoute resolve(RoutingTable table, RouterMetrics metrics, String capabilityId, String routeId) {
+        long start = System.nanoTime();
+        ResolvedRoute resolved = table.resolve(capabilityId, routeId);
+        metrics.routeResolved(System.nanoTime() - start, resolved != null);
+        return resolved;
+    }
+    
+    private ValidationResult validate(RouterMetrics metrics, ResolvedRoute resolved, Map<String, Object> message) {
+        long start = System.nanoTime();
+        ValidationResult result = validator.validate(resolved, message);
+        metrics.validated(resolved.getSchema().getId(), System.nanoTime() - start, result.isValid());
+        return result;
     }
     
     private void displayMessage(String route, Map<String, Object> message) {
@@ -313,213 +495,322 @@ class NotificationPlatform {
     }
 }
 
-// Schema Validator with flag for Everit or Basic validation
+// Schema Validator - compiles JSON Schemas once and validates messages against the compiled tree
 class SchemaValidator {
-    private boolean useEverit;
-    private Map<String, Object> compiledSchemas = new HashMap<>();
-    
-    public SchemaValidator(boolean useEverit) {
-        this.useEverit = useEverit;
-    }
+    private Map<String, CompiledSchema> compiledSchemas = new ConcurrentHashMap<>();
+    // Registry path: one compiled validator per "schemaId@version", reused until that version is retired
+    private final Map<String, CompiledSchema> compiledVersions = new ConcurrentHashMap<>();
     
     public void compileSchema(String schemaId, String jsonSchema) {
         try {
-            if (useEverit) {
-                // Everit compilation (uncomment when library is available)
-                // JSONObject schemaJson = new JSONObject(jsonSchema);
-                // Schema schema = SchemaLoader.load(schemaJson);
-                // compiledSchemas.put(schemaId, schema);
-                System.out.println("  [Everit mode - schema would be compiled]");
-            } else {
-                // Basic JSON compilation
-                compiledSchemas.put(schemaId, new JSONObject(jsonSchema));
-            }
+            JSONObject schemaJson = new JSONObject(jsonSchema);
+            // Parse the schema once into an immutable validator tree
+            compiledSchemas.put(schemaId, CompiledSchema.compile(schemaId, schemaJson));
         } catch (Exception e) {
             System.err.println("Failed to compile schema: " + e.getMessage());
         }
     }
     
+    // Throws if the schema doesn't compile, leaving the current version of the id in place
+    CompiledSchema compileSchema(SchemaDocument schema) {
+        CompiledSchema compiled = compiledVersions.computeIfAbsent(versionKey(schema),
+                key -> CompiledSchema.compile(schema.getId(), new JSONObject(schema.getJsonSchema())));
+        compiledSchemas.put(schema.getId(), compiled);
+        return compiled;
+    }
+    
+    // Drops compiled versions no live schema refers to any more
+    void retainVersions(Collection<SchemaDocument> liveSchemas) {
+        Set<String> liveKeys = new HashSet<>();
+        Set<String> liveIds = new HashSet<>();
+        for (SchemaDocument schema : liveSchemas) {
+            liveKeys.add(versionKey(schema));
+            liveIds.add(schema.getId());
+        }
+        compiledVersions.keySet().retainAll(liveKeys);
+        compiledSchemas.keySet().retainAll(liveIds);
+    }
+    
+    private static String versionKey(SchemaDocument schema) {
+        return schema.getId() + '@' + schema.getVersion();
+    }
+    
+    // Reports every violation - for onboarding and schema diagnostics
     public ValidationResult validate(String schemaId, Map<String, Object> message) {
+        return validate(schemaId, message, ValidationMode.COLLECT_ALL);
+    }
+    
+    public ValidationResult validate(String schemaId, Map<String, Object> message, ValidationMode mode) {
+        CompiledSchema schema = compiledSchemas.get(schemaId);
+        if (schema == null) {
+            return new ValidationResult(false, Arrays.asList("Schema not found: " + schemaId));
+        }
+        return validate(schema, message, mode);
+    }
+    
+    /**
+     * Routing-table path: the compiled schema was resolved together with the route. The router
+     * only needs accept/reject, so this stops at the first violation and reports just that one.
+     */
+    public ValidationResult validate(ResolvedRoute resolved, Map<String, Object> message) {
+        CompiledSchema schema = resolved.getValidator();
+        if (schema == null) {
+            return validate(resolved.getSchema().getId(), message, ValidationMode.FAIL_FAST);
+        }
+        return validate(schema, message, ValidationMode.FAIL_FAST);
+    }
+    
+    private static ValidationResult validate(CompiledSchema schema, Map<String, Object> message, ValidationMode mode) {
         try {
-            if (useEverit) {
-                return validateWithEverit(schemaId, message);
-            } else {
-                return validateWithBasicJson(schemaId, message);
-            }
+            // Runs directly against the message map - no JSONObject conversion per message
+            return schema.validate(message, mode);
         } catch (Exception e) {
             return new ValidationResult(false, Arrays.asList("Validation error: " + e.getMessage()));
         }
     }
     
-    private ValidationResult validateWithEverit(String schemaId, Map<String, Object> message) {
-        // Everit validation (uncomment when library is available)
-        /*
-        try {
-            JSONObject messageJson = new JSONObject(message);
-            Schema schema = (Schema) compiledSchemas.get(schemaId);
-            
-            if (schema == null) {
-                return new ValidationResult(false, Arrays.asList("Schema not found: " + schemaId));
-            }
-            
-            schema.validate(messageJson);
-            return new ValidationResult(true, new ArrayList<>());
-            
-        } catch (ValidationException e) {
-            List<String> errors = new ArrayList<>();
-            errors.add(e.getMessage());
-            
-            // Get all validation errors
-            e.getCausingExceptions().forEach(ve -> {
-                errors.add(ve.getMessage());
-            });
-            
-            return new ValidationResult(false, errors);
-        }
-        */
-        
-        // Placeholder when Everit is not available
-        System.out.println("  [Everit validation would run here]");
-        return validateWithBasicJson(schemaId, message);
+    CompiledSchema getCompiledSchema(String schemaId) {
+        return compiledSchemas.get(schemaId);
     }
+}
+
+/**
+ * Compiled Schema - immutable validator tree produced by SchemaValidator.compileSchema().
+ * The keywords (draft 2020-12: nested properties/items, $ref/$defs, allOf/anyOf/oneOf, format,
+ * number bounds...) are compiled by SchemaCompiler into SchemaNode evaluators; this class is the
+ * entry point plus a summary of the top-level properties for MessageTransform.
+ */
+final class CompiledSchema {
+    static final ValidationResult VALID = new ValidationResult(true, Collections.emptyList());
     
-    private ValidationResult validateWithBasicJson(String schemaId, Map<String, Object> message) {
-        JSONObject messageJson = new JSONObject(message);
-        JSONObject schemaJson = (JSONObject) compiledSchemas.get(schemaId);
-        
-        if (schemaJson == null) {
-            return new ValidationResult(false, Arrays.asList("Schema not found: " + schemaId));
+    private final String id;
+    private final SchemaNode root;
+    private final CompiledProperty[] properties;
+    private final boolean rejectAdditionalProperties;
+    
+    private CompiledSchema(String id, SchemaNode root, CompiledProperty[] properties, boolean rejectAdditionalProperties) {
+        this.id = id;
+        this.root = root;
+        this.properties = properties;
+        this.rejectAdditionalProperties = rejectAdditionalProperties;
+    }
+    
+    // Throws IllegalArgumentException (or JSONException) if the schema is invalid or unsupported
+    static CompiledSchema compile(String id, JSONObject schemaJson) {
+        SchemaNode root;
+        try {
+            root = SchemaCompiler.compile(schemaJson);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Schema " + id + ": " + e.getMessage(), e);
         }
         
-        List<String> errors = new ArrayList<>();
-        
-        // Check required fields
-        JSONArray required = schemaJson.optJSONArray("required");
-        if (required != null) {
-            for (int i = 0; i < required.length(); i++) {
-                String field = required.getString(i);
-                if (!messageJson.has(field)) {
-                    errors.add("Missing required field: " + field);
-                }
+        JSONObject propertiesJson = schemaJson.optJSONObject("properties");
+        JSONArray requiredJson = schemaJson.optJSONArray("required");
+        Set<String> required = new HashSet<>();
+        if (requiredJson != null) {
+            for (int i = 0; i < requiredJson.length(); i++) {
+                required.add(requiredJson.getString(i));
+            }
+        }
+        List<CompiledProperty> properties = new ArrayList<>();
+        if (propertiesJson != null) {
+            for (String name : propertiesJson.keySet()) {
+                JSONObject prop = propertiesJson.optJSONObject(name);
+                Object defaultValue = prop == null ? null : SchemaCompiler.plain(prop.opt("default"));
+                properties.add(new CompiledProperty(name, required.contains(name), defaultValue));
             }
         }
         
-        // Check properties
-        JSONObject properties = schemaJson.optJSONObject("properties");
-        if (properties != null) {
-            // Check each field in the message
-            for (String key : messageJson.keySet()) {
-                // Check if additional properties are allowed
-                if (!properties.has(key)) {
-                    if (!schemaJson.optBoolean("additionalProperties", true)) {
-                        errors.add("Additional property not allowed: " + key);
-                    }
+        return new CompiledSchema(
+            id,
+            root,
+            properties.toArray(new CompiledProperty[0]),
+            propertiesJson != null && Boolean.FALSE.equals(schemaJson.opt("additionalProperties"))
+        );
+    }
+    
+    ValidationResult validate(Map<String, Object> message) {
+        return validate(message, ValidationMode.COLLECT_ALL);
+    }
+    
+    /**
+     * Validates the message in place. The success path allocates nothing beyond the context
+     * and returns the shared VALID result; error strings are only built on failure.
+     */
+    ValidationResult validate(Object message, ValidationMode mode) {
+        ValidationContext ctx = new ValidationContext(mode);
+        if (root.evaluate(message, ctx)) {
+            return VALID;
+        }
+        return new ValidationResult(false, ctx.getErrors());
+    }
+    
+    static List<String> addError(List<String> errors, String error) {
+        if (errors == null) {
+            errors = new ArrayList<>();
+        }
+        errors.add(error);
+        return errors;
+    }
+    
+    public String getId() { return id; }
+    // Shared with MessageTransform.compile(); not to be modified
+    CompiledProperty[] getProperties() { return properties; }
+    boolean rejectsAdditionalProperties() { return rejectAdditionalProperties; }
+}
+
+// Compiled Property - what MessageTransform needs to know about a top-level property
+final class CompiledProperty {
+    private final String name;
+    private final boolean required;
+    private final Object defaultValue;
+    
+    CompiledProperty(String name, boolean required, Object defaultValue) {
+        this.name = name;
+        this.required = required;
+        this.defaultValue = defaultValue;
+    }
+    
+    public String getName() { return name; }
+    public boolean isRequired() { return required; }
+    public Object getDefaultValue() { return defaultValue; }
+}
+
+// Routing snapshot - immutable (capability, route) → ResolvedRoute table, rebuilt on every
+// registration. Open addressing over parallel arrays: one probe sequence, no key allocation.
+final class RoutingTable {
+    static final RoutingTable EMPTY = new RoutingTable(Collections.emptyMap(), Collections.emptyMap(),
+            Collections.emptyMap(), new String[1], new String[1], new ResolvedRoute[1]);
+    
+    // Kept only to explain misses with the same messages as the registries did
+    private final Map<String, Capability> capabilities;
+    private final Map<String, Route> routes;
+    private final Map<String, SchemaDocument> schemas;
+    private final String[] capabilityKeys;
+    private final String[] routeKeys;
+    private final ResolvedRoute[] entries;
+    private final int mask;
+    
+    private RoutingTable(Map<String, Capability> capabilities, Map<String, Route> routes,
+                         Map<String, SchemaDocument> schemas, String[] capabilityKeys,
+                         String[] routeKeys, ResolvedRoute[] entries) {
+        this.capabilities = capabilities;
+        this.routes = routes;
+        this.schemas = schemas;
+        this.capabilityKeys = capabilityKeys;
+        this.routeKeys = routeKeys;
+        this.entries = entries;
+        this.mask = entries.length - 1;
+    }
+    
+    static RoutingTable build(Map<String, Domain> domains, Map<String, SchemaDocument> schemas,
+                              Map<String, Route> routes, Map<String, Capability> capabilities,
+                              SchemaValidator validator) {
+        List<ResolvedRoute> resolved = new ArrayList<>();
+        List<String> capabilityIds = new ArrayList<>();
+        for (Capability capability : capabilities.values()) {
+            for (String routeId : capability.getSupportedRoutes()) {
+                Route route = routes.get(routeId);
+                if (route == null) {
                     continue;
                 }
-                
-                JSONObject prop = properties.getJSONObject(key);
-                Object value = messageJson.get(key);
-                
-                // Type validation
-                if (prop.has("type")) {
-                    String expectedType = prop.getString("type");
-                    if (!validateType(value, expectedType)) {
-                        errors.add("Field '" + key + "' has wrong type. Expected: " + expectedType);
-                        continue;
-                    }
-                }
-                
-                // String validation
-                if (value instanceof String) {
-                    String str = (String) value;
-                    
-                    // Check maxLength
-                    if (prop.has("maxLength")) {
-                        int maxLength = prop.getInt("maxLength");
-                        if (str.length() > maxLength) {
-                            errors.add("Field '" + key + "' exceeds maxLength of " + 
-                                maxLength + " (actual: " + str.length() + ")");
-                        }
-                    }
-                    
-                    // Check minLength
-                    if (prop.has("minLength")) {
-                        int minLength = prop.getInt("minLength");
-                        if (str.length() < minLength) {
-                            errors.add("Field '" + key + "' below minLength of " + minLength);
-                        }
-                    }
-                    
-                    // Check pattern
-                    if (prop.has("pattern")) {
-                        String pattern = prop.getString("pattern");
-                        if (!str.matches(pattern)) {
-                            errors.add("Field '" + key + "' doesn't match pattern: " + pattern);
-                        }
-                    }
-                    
-                    // Check enum
-                    if (prop.has("enum")) {
-                        JSONArray enumValues = prop.getJSONArray("enum");
-                        boolean found = false;
-                        for (int i = 0; i < enumValues.length(); i++) {
-                            if (enumValues.getString(i).equals(str)) {
-                                found = true;
-                                break;
-                            }
-                        }
-                        if (!found) {
-                            errors.add("Field '" + key + "' value '" + str + 
-                                "' not in allowed values: " + enumValues.toString());
-                        }
-                    }
-                }
-                
-                // Integer validation
-                if (value instanceof Integer) {
-                    int intValue = (Integer) value;
-                    
-                    // Check minimum
-                    if (prop.has("minimum")) {
-                        int min = prop.getInt("minimum");
-                        if (intValue < min) {
-                            errors.add("Field '" + key + "' below minimum: " + min);
-                        }
-                    }
-                    
-                    // Check maximum
-                    if (prop.has("maximum")) {
-                        int max = prop.getInt("maximum");
-                        if (intValue > max) {
-                            errors.add("Field '" + key + "' exceeds maximum: " + max + 
-                                " (actual: " + intValue + ")");
-                        }
-                    }
+                SchemaDocument schema = schemas.get(route.getSchemaId());
+                if (schema == null) {
+                    continue;
                 }
+                capabilityIds.add(capability.getId());
+                resolved.add(new ResolvedRoute(route, schema, validator.getCompiledSchema(schema.getId()),
+                        domains.get(route.getDomainId())));
             }
         }
         
-        return new ValidationResult(errors.isEmpty(), errors);
-    }
-    
-    private boolean validateType(Object value, String expectedType) {
-        switch (expectedType) {
-            case "string":
-                return value instanceof String;
-            case "integer":
-                return value instanceof Integer;
-            case "number":
-                return value instanceof Number;
-            case "boolean":
-                return value instanceof Boolean;
-            case "array":
-                return value instanceof List || value instanceof JSONArray;
-            case "object":
-                return value instanceof Map || value instanceof JSONObject;
-            default:
-                return true;
+        // Load factor <= 0.5 keeps probe sequences short
+        int size = Integer.highestOneBit(Math.max(1, resolved.size() * 2 - 1)) << 1;
+        String[] capabilityKeys = new String[size];
+        String[] routeKeys = new String[size];
+        ResolvedRoute[] entries = new ResolvedRoute[size];
+        for (int i = 0; i < resolved.size(); i++) {
+            String capabilityId = capabilityIds.get(i);
+            String routeId = resolved.get(i).getRoute().getId();
+            int slot = hash(capabilityId, routeId) & (size - 1);
+            while (capabilityKeys[slot] != null) {
+                slot = (slot + 1) & (size - 1);
+            }
+            capabilityKeys[slot] = capabilityId;
+            routeKeys[slot] = routeId;
+            entries[slot] = resolved.get(i);
+        }
+        return new RoutingTable(Map.copyOf(capabilities), Map.copyOf(routes), Map.copyOf(schemas),
+                capabilityKeys, routeKeys, entries);
+    }
+    
+    private static int hash(String capabilityId, String routeId) {
+        int h = capabilityId.hashCode() * 31 + routeId.hashCode();
+        return h ^ (h >>> 16);
+    }
+    
+    public boolean hasCapability(String capabilityId) {
+        return capabilityId != null && capabilities.containsKey(capabilityId);
+    }
+    
+    public Set<String> routesOf(String capabilityId) {
+        Capability capability = capabilities.get(capabilityId);
+        return capability == null ? Collections.emptySet() : capability.getSupportedRoutes();
+    }
+    
+    // Null when the payload cannot be delivered; explainMiss() says why
+    public ResolvedRoute resolve(String capabilityId, String routeId) {
+        if (capabilityId == null || routeId == null) {
+            return null;
+        }
+        for (int slot = hash(capabilityId, routeId) & mask; ; slot = (slot + 1) & mask) {
+            String key = capabilityKeys[slot];
+            if (key == null) {
+                return null;
+            }
+            if (key.equals(capabilityId) && routeKeys[slot].equals(routeId)) {
+                return entries[slot];
+            }
         }
     }
+    
+    public String explainMiss(String capabilityId, String routeId) {
+        Route route = routeId == null ? null : routes.get(routeId);
+        if (route == null) {
+            return "Unknown route";
+        }
+        Capability capability = capabilities.get(capabilityId);
+        if (capability == null || !capability.supportsRoute(routeId)) {
+            return "Route not supported by capability";
+        }
+        if (!schemas.containsKey(route.getSchemaId())) {
+            return "Schema not found";
+        }
+        return "Route not in routing table";
+    }
+}
+
+// Everything send() needs for one (capability, route), resolved at registration time
+final class ResolvedRoute {
+    private final Route route;
+    private final SchemaDocument schema;
+    private final CompiledSchema validator;
+    private final Domain domain;
+    private final MessageTransform transform;
+    
+    ResolvedRoute(Route route, SchemaDocument schema, CompiledSchema validator, Domain domain) {
+        this.route = route;
+        this.schema = schema;
+        this.validator = validator;
+        this.domain = domain;
+        this.transform = MessageTransform.compile(domain, validator);
+    }
+    
+    public Route getRoute() { return route; }
+    public SchemaDocument getSchema() { return schema; }
+    public CompiledSchema getValidator() { return validator; }
+    public Domain getDomain() { return domain; }
+    public MessageTransform getTransform() { return transform; }
 }
 
 // Domain Model
@@ -527,32 +818,47 @@ class Domain {
     private String id;
     private String ownerTeam;
     private String platformType;
+    // Platform limits and message rules, e.g. max_title_length (see MessageTransform)
+    private Map<String, String> governance;
     
     public Domain(String id, String ownerTeam, String platformType) {
+        this(id, ownerTeam, platformType, Collections.emptyMap());
+    }
+    
+    public Domain(String id, String ownerTeam, String platformType, Map<String, String> governance) {
         this.id = id;
         this.ownerTeam = ownerTeam;
         this.platformType = platformType;
+        this.governance = Map.copyOf(governance);
     }
     
     public String getId() { return id; }
     public String getOwnerTeam() { return ownerTeam; }
     public String getPlatformType() { return platformType; }
+    public Map<String, String> getGovernance() { return governance; }
 }
 
 // Schema Document
 class SchemaDocument {
     private String id;
     private String domainId;
+    private String version;
     private String jsonSchema;
     
     public SchemaDocument(String id, String domainId, String jsonSchema) {
+        this(id, domainId, "1", jsonSchema);
+    }
+    
+    public SchemaDocument(String id, String domainId, String version, String jsonSchema) {
         this.id = id;
         this.domainId = domainId;
+        this.version = version;
         this.jsonSchema = jsonSchema;
     }
     
     public String getId() { return id; }
     public String getDomainId() { return domainId; }
+    public String getVersion() { return version; }
     public String getJsonSchema() { return jsonSchema; }
 }
 
@@ -592,6 +898,8 @@ class Capability {
         return supportedRoutes.contains(route);
     }
     
+    public Set<String> getSupportedRoutes() { return Collections.unmodifiableSet(supportedRoutes); }
+    
     public String getId() { return id; }
     public String getDescription() { return description; }
 }
@@ -601,11 +909,17 @@ class NotificationRequest {
     private String capability;
     private List<String> recipients = new ArrayList<>();
     private List<NotificationPayload> payloads = new ArrayList<>();
+    // Sent to every route of the capability, each getting its own variant, when there are no payloads
+    private Map<String, Object> message;
     
     public void setCapability(String capability) {
         this.capability = capability;
     }
     
+    public void setMessage(Map<String, Object> message) {
+        this.message = message;
+    }
+    
     public void addRecipient(String recipient) {
         recipients.add(recipient);
     }
@@ -617,6 +931,7 @@ class NotificationRequest {
     public String getCapability() { return capability; }
     public List<String> getRecipients() { return recipients; }
     public List<NotificationPayload> getPayloads() { return payloads; }
+    public Map<String, Object> getMessage() { return message; }
 }
 
 // Notification Payload
@@ -0,0 +1,306 @@
+package com.example.sqslistener.router;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fan-out engine - expands a validated request into its recipient × route matrix and hands
+ * it to a DeliverySink in chunks, several chunks at a time.
+ *
+ * Messages are validated once per route by NotificationPlatform.dispatch() before they get
+ * here; the engine only pairs them with recipients. Chunks are views over the recipient list
+ * (nothing is copied per recipient), and at most maxChunksInFlight chunks are handed to the
+ * sink before one completes, so a 50k-member broadcast cannot flood the publisher.
+ *
+ * Across requests, maxTotalChunksInFlight chunks are in flight at most, and requests are
+ * produced by a fixed pool of producer threads with a bounded queue: a burst of broadcasts
+ * waits for a producer (or fails with RejectedExecutionException once maxQueuedRequests are
+ * waiting) instead of starting a thread each and multiplying the per-request limit.
+ */
+class FanOutEngine implements AutoCloseable {
+
+    static final int DEFAULT_MAX_QUEUED_REQUESTS = 1024;
+
+    private final ExecutorService workers;
+    private final ExecutorService producers;
+    private final DeliverySink sink;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final Semaphore totalInFlight;
+    private final RouterMetrics metrics;
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    public FanOutEngine(DeliverySink sink, int chunkSize, int maxChunksInFlight) {
+        this(sink, chunkSize, maxChunksInFlight, Runtime.getRuntime().availableProcessors());
+    }
+
+    public FanOutEngine(DeliverySink sink, int chunkSize, int maxChunksInFlight, int parallelism) {
+        this(sink, chunkSize, maxChunksInFlight, parallelism, RouterMetrics.NOOP);
+    }
+
+    /**
+     * Up to {@code parallelism} requests are produced at once, sharing
+     * {@code maxChunksInFlight * parallelism} chunks in flight.
+     */
+    public FanOutEngine(DeliverySink sink, int chunkSize, int maxChunksInFlight, int parallelism,
+                        RouterMetrics metrics) {
+        this(sink, chunkSize, maxChunksInFlight, maxChunksInFlight * parallelism, parallelism,
+                DEFAULT_MAX_QUEUED_REQUESTS, metrics);
+    }
+
+    /**
+     * @param maxChunksInFlight      chunks of one request in flight at most
+     * @param maxTotalChunksInFlight chunks of all requests together in flight at most
+     * @param parallelism            delivery workers, and requests produced at once
+     * @param maxQueuedRequests      requests waiting for a producer before submit() fails them
+     */
+    public FanOutEngine(DeliverySink sink, int chunkSize, int maxChunksInFlight, int maxTotalChunksInFlight,
+                        int parallelism, int maxQueuedRequests, RouterMetrics metrics) {
+        if (chunkSize < 1 || maxChunksInFlight < 1 || maxTotalChunksInFlight < 1 || parallelism < 1
+                || maxQueuedRequests < 1) {
+            throw new IllegalArgumentException(
+                    "chunkSize, chunks in flight, parallelism and maxQueuedRequests must be positive");
+        }
+        this.sink = sink;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = Math.min(maxChunksInFlight, maxTotalChunksInFlight);
+        this.totalInFlight = new Semaphore(maxTotalChunksInFlight);
+        this.metrics = metrics;
+        this.workers = Executors.newFixedThreadPool(parallelism, threadFactory("fan-out-"));
+        this.producers = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxQueuedRequests), threadFactory("fan-out-producer-"));
+    }
+
+    /**
+     * Starts delivering every route to every recipient and returns immediately; the returned
+     * progress completes once every chunk has been delivered or has failed.
+     */
+    public FanOutProgress submit(List<String> recipients, List<ResolvedPayload> payloads) {
+        return submit(recipients, payloads, progress -> { });
+    }
+
+    /**
+     * As {@link #submit(List, List)}, calling {@code onChunkCompleted} after every chunk.
+     */
+    public FanOutProgress submit(List<String> recipients, List<ResolvedPayload> payloads,
+                                 Consumer<FanOutProgress> onChunkCompleted) {
+        List<String> frozenRecipients = List.copyOf(recipients);
+        List<ResolvedPayload> frozenPayloads = List.copyOf(payloads);
+        int chunksPerRoute = (frozenRecipients.size() + chunkSize - 1) / chunkSize;
+        FanOutProgress progress = new FanOutProgress(requestCounter.incrementAndGet(),
+                (long) frozenRecipients.size() * frozenPayloads.size(), chunksPerRoute * frozenPayloads.size());
+
+        if (progress.getTotalChunks() == 0) {
+            progress.finish();
+            return progress;
+        }
+
+        try {
+            producers.execute(new Production(frozenRecipients, frozenPayloads, progress, onChunkCompleted));
+        } catch (RejectedExecutionException e) {
+            progress.fail(e);
+        }
+        return progress;
+    }
+
+    private void produce(List<String> recipients, List<ResolvedPayload> payloads,
+                         FanOutProgress progress, Consumer<FanOutProgress> onChunkCompleted) {
+        Semaphore inFlight = new Semaphore(maxChunksInFlight);
+        try {
+            for (ResolvedPayload payload : payloads) {
+                for (int from = 0; from < recipients.size(); from += chunkSize) {
+                    // Own permit first, so a request waiting on the shared pool holds at most one
+                    inFlight.acquire();
+                    try {
+                        totalInFlight.acquire();
+                    } catch (InterruptedException e) {
+                        inFlight.release();
+                        throw e;
+                    }
+                    DeliveryChunk chunk = new DeliveryChunk(payload,
+                            recipients.subList(from, Math.min(from + chunkSize, recipients.size())));
+                    try {
+                        workers.execute(() -> deliver(chunk, progress, inFlight, onChunkCompleted));
+                    } catch (RejectedExecutionException e) {
+                        totalInFlight.release();
+                        throw e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.fail(e);
+        } catch (RejectedExecutionException e) {
+            progress.fail(e);
+        }
+    }
+
+    private void deliver(DeliveryChunk chunk, FanOutProgress progress, Semaphore inFlight,
+                         Consumer<FanOutProgress> onChunkCompleted) {
+        CompletableFuture<Integer> delivery;
+        try {
+            delivery = sink.deliver(chunk);
+        } catch (RuntimeException e) {
+            delivery = CompletableFuture.failedFuture(e);
+        }
+        delivery.whenComplete((failed, throwable) -> {
+            totalInFlight.release();
+            inFlight.release();
+            int failedCount = throwable != null ? chunk.size() : Math.min(failed == null ? 0 : failed, chunk.size());
+            progress.chunkCompleted(chunk.size() - failedCount, failedCount);
+            metrics.delivered(chunk.getPayload().getRoute(), chunk.size() - failedCount, failedCount);
+            try {
+                onChunkCompleted.accept(progress);
+            } catch (RuntimeException e) {
+                System.err.println("Fan-out progress callback failed: " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        // Running producers are interrupted and fail their request; queued ones never start
+        for (Runnable queued : producers.shutdownNow()) {
+            ((Production) queued).progress.fail(new RejectedExecutionException("Fan-out engine closed"));
+        }
+        workers.shutdown();
+    }
+
+    // A request waiting for or running on a producer thread
+    private final class Production implements Runnable {
+        private final List<String> recipients;
+        private final List<ResolvedPayload> payloads;
+        private final FanOutProgress progress;
+        private final Consumer<FanOutProgress> onChunkCompleted;
+
+        private Production(List<String> recipients, List<ResolvedPayload> payloads,
+                           FanOutProgress progress, Consumer<FanOutProgress> onChunkCompleted) {
+            this.recipients = recipients;
+            this.payloads = payloads;
+            this.progress = progress;
+            this.onChunkCompleted = onChunkCompleted;
+        }
+
+        @Override
+        public void run() {
+            produce(recipients, payloads, progress, onChunkCompleted);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
+
+// Downstream of the fan-out - the EventBridge publisher in production
+interface DeliverySink {
+    /**
+     * Delivers one chunk; completes with the number of deliveries in it that failed.
+     * Completing exceptionally counts the whole chunk as failed.
+     */
+    CompletableFuture<Integer> deliver(DeliveryChunk chunk);
+}
+
+// A validated payload bound to its route - validated once, shared by every recipient
+final class ResolvedPayload {
+    private final ResolvedRoute route;
+    private final Map<String, Object> message;
+
+    ResolvedPayload(ResolvedRoute route, Map<String, Object> message) {
+        this.route = route;
+        this.message = message;
+    }
+
+    public ResolvedRoute getRoute() { return route; }
+    public Map<String, Object> getMessage() { return message; }
+}
+
+// One route × a contiguous slice of recipients
+final class DeliveryChunk extends AbstractList<String> {
+    private final ResolvedPayload payload;
+    private final List<String> recipients;
+
+    DeliveryChunk(ResolvedPayload payload, List<String> recipients) {
+        this.payload = payload;
+        this.recipients = recipients;
+    }
+
+    public ResolvedPayload getPayload() { return payload; }
+
+    @Override
+    public String get(int index) { return recipients.get(index); }
+
+    @Override
+    public int size() { return recipients.size(); }
+}
+
+// Progress of one dispatched request
+final class FanOutProgress {
+    private final long requestNumber;
+    private final long totalDeliveries;
+    private final int totalChunks;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger completedChunks = new AtomicInteger();
+    private final CompletableFuture<FanOutProgress> completion = new CompletableFuture<>();
+
+    FanOutProgress(long requestNumber, long totalDeliveries, int totalChunks) {
+        this.requestNumber = requestNumber;
+        this.totalDeliveries = totalDeliveries;
+        this.totalChunks = totalChunks;
+    }
+
+    void chunkCompleted(int deliveredCount, int failedCount) {
+        delivered.addAndGet(deliveredCount);
+        failed.addAndGet(failedCount);
+        if (completedChunks.incrementAndGet() == totalChunks) {
+            finish();
+        }
+    }
+
+    void finish() {
+        completion.complete(this);
+    }
+
+    void fail(Throwable cause) {
+        completion.completeExceptionally(cause);
+    }
+
+    public CompletableFuture<FanOutProgress> completion() { return completion; }
+    public long getRequestNumber() { return requestNumber; }
+    public long getTotalDeliveries() { return totalDeliveries; }
+    public int getTotalChunks() { return totalChunks; }
+    public long getDelivered() { return delivered.get(); }
+    public long getFailed() { return failed.get(); }
+    public int getCompletedChunks() { return completedChunks.get(); }
+    public boolean isDone() { return completion.isDone(); }
+
+    public double getPercentComplete() {
+        return totalDeliveries == 0 ? 100.0 : 100.0 * (delivered.get() + failed.get()) / totalDeliveries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("fan-out #%d: %d/%d delivered, %d failed, %d/%d chunks (%.1f%%)",
+                requestNumber, delivered.get(), totalDeliveries, failed.get(),
+                completedChunks.get(), totalChunks, getPercentComplete());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sqslistener.listener;
+
+import com.example.sqslistener.executor.MessageGroupExecutor;
+import com.example.sqslistener.model.MessageDto;
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.acknowledgement.Acknowledgement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Router queue listener that hands each message to its MessageGroupId lane and returns,
+ * so the container's maxConcurrentMessages only bounds the hand-off, not the processing.
+ * Order within a group is kept by the lane; the acknowledgement is sent once the lane
+ * has processed the message. A failed or skipped message is not acknowledged, and neither is
+ * anything of its group queued behind it, so SQS redelivers the group in order. With the
+ * visibility heartbeat on, the message stays extended until it is acknowledged and is released
+ * when it fails or is skipped.
+ *
+ * Enable with sqs.group-executor.enabled=true and a queue in sqs.queue-name-grouped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sqs.group-executor.enabled", havingValue = "true")
+public class GroupedMessageListener {
+
+    private final MessageGroupExecutor messageGroupExecutor;
+    private final ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat;
+
+    @SqsListener(value = "${sqs.queue-name-grouped}", id = "grouped-listener")
+    public void processMessage(@Payload MessageDto message,
+                               @Header("MessageId") String messageId,
+                               @Header(name = SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER, required = false) String messageGroupId,
+                               Acknowledgement acknowledgement,
+                               Message<MessageDto> sqsMessage) {
+
+        log.info("Dispatching message {} to group lane {}", messageId, messageGroupId);
+
+        messageGroupExecutor.submit(messageGroupId, () -> {
+            processGroupMessage(message);
+            return null;
+        }).whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                visibilityHeartbeat.ifAvailable(heartbeat -> heartbeat.release(sqsMessage));
+            }
+            if (throwable instanceof MessageGroupExecutor.SkippedTaskException) {
+                log.warn("Message {} in group {} left for redelivery: {}", messageId, messageGroupId, throwable.getMessage());
+                return;
+            }
+            if (throwable != null) {
+                log.error("Error processing message {} in group {}: {}", messageId, messageGroupId, throwable.getMessage(), throwable);
+                // Not acknowledging - message will be retried after the visibility timeout,
+                // and the lane skips the rest of the group so it is not acked ahead of this one
+                return;
+            }
+            acknowledgement.acknowledgeAsync().whenComplete((ack, ackError) -> {
+                if (ackError != null) {
+                    log.error("Failed to acknowledge message {}: {}", messageId, ackError.getMessage());
+                }
+            });
+        });
+    }
+
+    private void processGroupMessage(MessageDto message) {
+        switch (message.getType()) {
+            case "ORDER":
+                log.info("Processing order: {}", message.getContent());
+                // Add order processing logic
+                break;
+            case "NOTIFICATION":
+                log.info("Processing notification: {}", message.getContent());
+                // Add notification processing logic
+                break;
+            default:
+                log.warn("Unknown message type: {}", message.getType());
+        }
+    }
+}
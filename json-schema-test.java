@@ -0,0 +1,151 @@
+package com.example.sqslistener.router;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonSchemaTest {
+
+    @Test
+    void nullValueIsCheckedAgainstItsType() {
+        CompiledSchema schema = compile("{\"properties\": {\"x\": {\"type\": \"string\"}}}");
+
+        assertEquals(List.of("Field 'x' has wrong type. Expected: string"), errors(schema, "{\"x\": null}"));
+        assertTrue(valid(schema, "{\"x\": \"a\"}"));
+    }
+
+    @Test
+    void nullValuePassesWhenNullIsAllowed() {
+        CompiledSchema schema = compile("{\"properties\": {\"x\": {\"type\": [\"string\", \"null\"]}}}");
+
+        assertTrue(valid(schema, "{\"x\": null}"));
+    }
+
+    @Test
+    void nullValueIsCheckedInJsonObjectMessages() {
+        CompiledSchema schema = compile("{\"properties\": {\"x\": {\"type\": \"string\"}}}");
+
+        ValidationResult result = schema.validate(new JSONObject("{\"x\": null}"), ValidationMode.COLLECT_ALL);
+        assertFalse(result.isValid());
+    }
+
+    @Test
+    void absentPropertyIsNotChecked() {
+        CompiledSchema schema = compile("{\"properties\": {\"x\": {\"type\": \"string\"}}}");
+
+        assertTrue(valid(schema, "{}"));
+    }
+
+    @Test
+    void requiredReportsMissingFieldsWithTheirPath() {
+        CompiledSchema schema = compile("{\"required\": [\"id\", \"address\"], \"properties\": {"
+                + "\"id\": {\"type\": \"string\"},"
+                + "\"address\": {\"type\": \"object\", \"required\": [\"city\"]}}}");
+
+        assertEquals(List.of("Missing required field: id"), errors(schema, "{\"address\": {\"city\": \"Oslo\"}}"));
+        assertEquals(List.of("Missing required field: address.city"), errors(schema, "{\"id\": \"1\", \"address\": {}}"));
+    }
+
+    @Test
+    void requiredIsSatisfiedByPresentNullOnlyWhenNullIsAllowed() {
+        CompiledSchema schema = compile("{\"required\": [\"x\", \"y\"], \"properties\": {"
+                + "\"x\": {\"type\": [\"string\", \"null\"]},"
+                + "\"y\": {\"type\": \"string\"}}}");
+
+        assertEquals(List.of("Field 'y' has wrong type. Expected: string"), errors(schema, "{\"x\": null, \"y\": null}"));
+    }
+
+    @Test
+    void recursiveRefValidatesEveryLevel() {
+        CompiledSchema schema = compile("{\"$ref\": \"#/$defs/node\", \"$defs\": {\"node\": {"
+                + "\"type\": \"object\", \"required\": [\"name\"], \"properties\": {"
+                + "\"name\": {\"type\": \"string\"},"
+                + "\"children\": {\"type\": \"array\", \"items\": {\"$ref\": \"#/$defs/node\"}}}}}}");
+
+        assertTrue(valid(schema, "{\"name\": \"a\", \"children\": [{\"name\": \"b\", \"children\": [{\"name\": \"c\"}]}]}"));
+        assertEquals(List.of("Missing required field: children[0].children[0].name"),
+                errors(schema, "{\"name\": \"a\", \"children\": [{\"name\": \"b\", \"children\": [{}]}]}"));
+    }
+
+    @Test
+    void refCycleThatNeverDescendsIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"allOf\": [{\"$ref\": \"#\"}]}"));
+    }
+
+    @Test
+    void mutualRefCycleThatNeverDescendsIsRejected() {
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class, () -> compile(
+                "{\"$defs\": {\"a\": {\"$ref\": \"#/$defs/b\"}, \"b\": {\"$ref\": \"#/$defs/a\"}}, \"$ref\": \"#/$defs/a\"}"));
+        assertTrue(rejected.getMessage().contains("#/$defs/a -> #/$defs/b -> #/$defs/a"), rejected.getMessage());
+    }
+
+    @Test
+    void refCycleThroughCombinatorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compile("{\"$defs\": {"
+                + "\"a\": {\"anyOf\": [{\"type\": \"string\"}, {\"$ref\": \"#/$defs/b\"}]},"
+                + "\"b\": {\"not\": {\"$ref\": \"#/$defs/a\"}}}, \"$ref\": \"#/$defs/a\"}"));
+    }
+
+    @Test
+    void mutualRefCycleThroughPropertyCompiles() {
+        CompiledSchema schema = compile("{\"$defs\": {"
+                + "\"a\": {\"type\": \"object\", \"properties\": {\"next\": {\"$ref\": \"#/$defs/b\"}}},"
+                + "\"b\": {\"$ref\": \"#/$defs/a\"}}, \"$ref\": \"#/$defs/a\"}");
+
+        assertTrue(valid(schema, "{\"next\": {\"next\": {}}}"));
+        assertFalse(valid(schema, "{\"next\": {\"next\": 1}}"));
+    }
+
+    @Test
+    void additionalPropertiesFalseRejectsUndeclaredKeys() {
+        CompiledSchema schema = compile("{\"properties\": {\"a\": {}}, \"additionalProperties\": false}");
+
+        assertTrue(valid(schema, "{\"a\": 1}"));
+        assertEquals(List.of("Additional property not allowed: b"), errors(schema, "{\"a\": 1, \"b\": 2}"));
+        assertEquals(List.of("Additional property not allowed: b"), errors(schema, "{\"a\": 1, \"b\": null}"));
+    }
+
+    @Test
+    void additionalPropertiesSchemaAppliesToUndeclaredKeys() {
+        CompiledSchema schema = compile("{\"properties\": {\"a\": {}}, \"additionalProperties\": {\"type\": \"integer\"}}");
+
+        assertTrue(valid(schema, "{\"a\": \"x\", \"b\": 2}"));
+        assertEquals(List.of("Field 'b' has wrong type. Expected: integer"), errors(schema, "{\"b\": \"2\"}"));
+    }
+
+    @Test
+    void formatChecksKnownFormats() {
+        CompiledSchema schema = compile("{\"properties\": {"
+                + "\"email\": {\"type\": \"string\", \"format\": \"email\"},"
+                + "\"at\": {\"type\": \"string\", \"format\": \"date-time\"}}}");
+
+        assertTrue(valid(schema, "{\"email\": \"a@example.com\", \"at\": \"2024-02-29T10:00:00Z\"}"));
+        assertFalse(valid(schema, "{\"email\": \"not-an-email\"}"));
+        assertFalse(valid(schema, "{\"at\": \"2023-02-29T10:00:00Z\"}"));
+    }
+
+    @Test
+    void unknownFormatIsIgnored() {
+        CompiledSchema schema = compile("{\"properties\": {\"x\": {\"type\": \"string\", \"format\": \"shoe-size\"}}}");
+
+        assertTrue(valid(schema, "{\"x\": \"44\"}"));
+    }
+
+    private static CompiledSchema compile(String schema) {
+        return CompiledSchema.compile("test", new JSONObject(schema));
+    }
+
+    private static boolean valid(CompiledSchema schema, String message) {
+        return schema.validate(new JSONObject(message).toMap()).isValid();
+    }
+
+    private static List<String> errors(CompiledSchema schema, String message) {
+        return schema.validate(new JSONObject(message).toMap()).getErrors();
+    }
+}
@@ -0,0 +1,1429 @@
+package com.example.sqslistener.router;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// How much a validation run reports: the router only needs accept/reject, onboarding wants everything
+enum ValidationMode {
+    FAIL_FAST,
+    COLLECT_ALL
+}
+
+/**
+ * Mutable state of one validation run: the collected errors and the path of the value being
+ * evaluated. Paths are kept as a stack of names/indices and only turned into strings when an
+ * error is reported, so a valid message builds no strings at all.
+ *
+ * Inside anyOf/oneOf/not/if branches ("trials") errors are not recorded and evaluation stops at
+ * the first failure; the combinator reports one error of its own.
+ */
+final class ValidationContext {
+    private final boolean failFast;
+    private List<String> errors;
+    private int trialDepth;
+    private String[] names;
+    private int[] indices;
+    private int depth;
+
+    ValidationContext(ValidationMode mode) {
+        this.failFast = mode == ValidationMode.FAIL_FAST;
+    }
+
+    // True once evaluating further can't change the outcome or the report
+    boolean stop() {
+        return failFast || trialDepth > 0;
+    }
+
+    // Whether errors are recorded; check before building a message
+    boolean reporting() {
+        return trialDepth == 0;
+    }
+
+    void error(String message) {
+        if (trialDepth == 0) {
+            errors = CompiledSchema.addError(errors, message);
+        }
+    }
+
+    List<String> getErrors() {
+        return errors == null ? Collections.emptyList() : errors;
+    }
+
+    void enterTrial() { trialDepth++; }
+    void exitTrial() { trialDepth--; }
+
+    void push(String name) {
+        ensureCapacity();
+        names[depth] = name;
+        indices[depth++] = -1;
+    }
+
+    void push(int index) {
+        ensureCapacity();
+        names[depth] = null;
+        indices[depth++] = index;
+    }
+
+    void pop() {
+        depth--;
+    }
+
+    private void ensureCapacity() {
+        if (names == null) {
+            names = new String[8];
+            indices = new int[8];
+        } else if (depth == names.length) {
+            names = Arrays.copyOf(names, depth * 2);
+            indices = Arrays.copyOf(indices, depth * 2);
+        }
+    }
+
+    // "address.lines[2]"; empty at the root
+    String path() {
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            if (names[i] != null) {
+                if (path.length() > 0) {
+                    path.append('.');
+                }
+                path.append(names[i]);
+            } else {
+                path.append('[').append(indices[i]).append(']');
+            }
+        }
+        return path.toString();
+    }
+
+    // Path of a child of the current value, e.g. for "Missing required field: address.city"
+    String child(String name) {
+        String path = path();
+        return path.isEmpty() ? name : path + "." + name;
+    }
+
+    // Subject of an error message about the current value
+    String subject() {
+        String path = path();
+        return path.isEmpty() ? "Message" : "Field '" + path + "'";
+    }
+}
+
+// One compiled keyword (or group of keywords) of a schema
+interface Evaluator {
+    boolean evaluate(Object value, ValidationContext ctx);
+}
+
+/**
+ * A compiled (sub)schema: its type check followed by the keyword evaluators that apply.
+ * Nodes are created before their keywords are compiled, so a $ref may point at a node that is
+ * still being built - recursive schemas compile to a cyclic graph.
+ */
+final class SchemaNode {
+    static final SchemaNode TRUE = new SchemaNode();
+    static final SchemaNode FALSE = new SchemaNode();
+
+    static {
+        TRUE.init(null, new Evaluator[0]);
+        FALSE.init(null, new Evaluator[] { (value, ctx) -> {
+            if (ctx.reporting()) {
+                ctx.error(ctx.subject() + " is not allowed");
+            }
+            return false;
+        } });
+    }
+
+    private TypeEvaluator type;
+    private Evaluator[] evaluators;
+
+    void init(TypeEvaluator type, Evaluator[] evaluators) {
+        this.type = type;
+        this.evaluators = evaluators;
+    }
+
+    boolean evaluate(Object value, ValidationContext ctx) {
+        // A value of the wrong type only produces the type error
+        if (type != null && !type.evaluate(value, ctx)) {
+            return false;
+        }
+        boolean valid = true;
+        for (Evaluator evaluator : evaluators) {
+            if (!evaluator.evaluate(value, ctx)) {
+                valid = false;
+                if (ctx.stop()) {
+                    return false;
+                }
+            }
+        }
+        return valid;
+    }
+}
+
+final class TypeEvaluator implements Evaluator {
+    static final int NULL = 1;
+    static final int BOOLEAN = 1 << 1;
+    static final int OBJECT = 1 << 2;
+    static final int ARRAY = 1 << 3;
+    static final int NUMBER = 1 << 4;
+    static final int INTEGER = 1 << 5;
+    static final int STRING = 1 << 6;
+
+    private final int types;
+    private final String display;
+
+    TypeEvaluator(int types, String display) {
+        this.types = types;
+        this.display = display;
+    }
+
+    static int code(String type) {
+        switch (type) {
+            case "null": return NULL;
+            case "boolean": return BOOLEAN;
+            case "object": return OBJECT;
+            case "array": return ARRAY;
+            case "number": return NUMBER;
+            case "integer": return INTEGER;
+            case "string": return STRING;
+            default: throw new IllegalArgumentException("Unknown type: " + type);
+        }
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        if ((types & typeOf(value)) != 0) {
+            return true;
+        }
+        if (ctx.reporting()) {
+            ctx.error(ctx.subject() + " has wrong type. Expected: " + display);
+        }
+        return false;
+    }
+
+    // Bits of every JSON type the value is an instance of (an integer is also a number)
+    private static int typeOf(Object value) {
+        if (value instanceof String) {
+            return STRING;
+        }
+        if (value instanceof Number) {
+            return Numbers.isInteger((Number) value) ? INTEGER | NUMBER : NUMBER;
+        }
+        if (value instanceof Boolean) {
+            return BOOLEAN;
+        }
+        if (value instanceof Map || value instanceof JSONObject) {
+            return OBJECT;
+        }
+        if (value instanceof List || value instanceof JSONArray) {
+            return ARRAY;
+        }
+        if (value == null || value == JSONObject.NULL) {
+            return NULL;
+        }
+        return 0;
+    }
+}
+
+/**
+ * Number keywords for every Number a parser may produce: Integer, Long, BigInteger, Double,
+ * BigDecimal... Integral values are compared as longs, floating values as doubles, and
+ * anything else (or a bound that doesn't fit) as BigDecimal.
+ */
+final class Numbers {
+    private Numbers() {
+    }
+
+    static boolean isInteger(Number value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            return true;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = value.doubleValue();
+            return !Double.isInfinite(d) && d == Math.rint(d);
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            return decimal.signum() == 0 || decimal.stripTrailingZeros().scale() <= 0;
+        }
+        return false;
+    }
+
+    private static boolean isLongValued(Number value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    static BigDecimal toBigDecimal(Number value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (isLongValued(value)) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    // A schema bound, pre-converted for each comparison strategy
+    static final class Bound {
+        final BigDecimal exact;
+        final boolean fitsLong;
+        final long asLong;
+        final double asDouble;
+        final String display;
+
+        Bound(Number number) {
+            this.exact = toBigDecimal(number);
+            BigDecimal stripped = exact.stripTrailingZeros();
+            long asLong = 0L;
+            boolean fitsLong = false;
+            if (stripped.scale() <= 0) {
+                try {
+                    asLong = stripped.longValueExact();
+                    fitsLong = true;
+                } catch (ArithmeticException e) {
+                    // Beyond long: compared as BigDecimal
+                }
+            }
+            this.fitsLong = fitsLong;
+            this.asLong = asLong;
+            this.asDouble = exact.doubleValue();
+            this.display = number.toString();
+        }
+
+        // Sign of value - bound
+        int compare(Number value) {
+            if (isLongValued(value) && fitsLong) {
+                return Long.compare(value.longValue(), asLong);
+            }
+            if ((value instanceof Double || value instanceof Float) && !Double.isNaN(value.doubleValue())) {
+                return Double.compare(value.doubleValue(), asDouble);
+            }
+            return toBigDecimal(value).compareTo(exact);
+        }
+
+        boolean divides(Number value) {
+            if (isLongValued(value) && fitsLong && asLong != 0L) {
+                return value.longValue() % asLong == 0L;
+            }
+            return toBigDecimal(value).remainder(exact).signum() == 0;
+        }
+    }
+}
+
+final class NumberEvaluator implements Evaluator {
+    private final Numbers.Bound minimum;
+    private final Numbers.Bound maximum;
+    private final Numbers.Bound exclusiveMinimum;
+    private final Numbers.Bound exclusiveMaximum;
+    private final Numbers.Bound multipleOf;
+
+    NumberEvaluator(Numbers.Bound minimum, Numbers.Bound maximum, Numbers.Bound exclusiveMinimum,
+                    Numbers.Bound exclusiveMaximum, Numbers.Bound multipleOf) {
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.exclusiveMinimum = exclusiveMinimum;
+        this.exclusiveMaximum = exclusiveMaximum;
+        this.multipleOf = multipleOf;
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        if (!(value instanceof Number)) {
+            return true;
+        }
+        Number number = (Number) value;
+        boolean valid = true;
+        if (minimum != null && minimum.compare(number) < 0) {
+            valid = fail(ctx, " below minimum: " + minimum.display);
+            if (ctx.stop()) return false;
+        }
+        if (maximum != null && maximum.compare(number) > 0) {
+            valid = fail(ctx, " exceeds maximum: " + maximum.display + " (actual: " + number + ")");
+            if (ctx.stop()) return false;
+        }
+        if (exclusiveMinimum != null && exclusiveMinimum.compare(number) <= 0) {
+            valid = fail(ctx, " must be greater than " + exclusiveMinimum.display);
+            if (ctx.stop()) return false;
+        }
+        if (exclusiveMaximum != null && exclusiveMaximum.compare(number) >= 0) {
+            valid = fail(ctx, " must be less than " + exclusiveMaximum.display);
+            if (ctx.stop()) return false;
+        }
+        if (multipleOf != null && !multipleOf.divides(number)) {
+            valid = fail(ctx, " is not a multiple of " + multipleOf.display);
+        }
+        return valid;
+    }
+
+    private static boolean fail(ValidationContext ctx, String problem) {
+        if (ctx.reporting()) {
+            ctx.error(ctx.subject() + problem);
+        }
+        return false;
+    }
+}
+
+final class StringEvaluator implements Evaluator {
+    private final int minLength;
+    private final int maxLength;
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> matcher;
+    private final String format;
+    private final Predicate<String> formatCheck;
+
+    StringEvaluator(int minLength, int maxLength, Pattern pattern, String format) {
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.pattern = pattern;
+        // Matchers aren't thread-safe; reuse one per thread instead of allocating per call
+        this.matcher = pattern == null ? null : ThreadLocal.withInitial(() -> pattern.matcher(""));
+        this.format = format;
+        this.formatCheck = format == null ? null : Formats.checker(format);
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        if (!(value instanceof String)) {
+            return true;
+        }
+        String str = (String) value;
+        boolean valid = true;
+        // Lengths are in code points; only count them when the char length is inconclusive
+        if (maxLength >= 0 && str.length() > maxLength) {
+            int length = str.codePointCount(0, str.length());
+            if (length > maxLength) {
+                valid = fail(ctx, " exceeds maxLength of " + maxLength + " (actual: " + length + ")");
+                if (ctx.stop()) return false;
+            }
+        }
+        if (minLength > 0 && (str.length() < minLength || str.codePointCount(0, str.length()) < minLength)) {
+            valid = fail(ctx, " below minLength of " + minLength);
+            if (ctx.stop()) return false;
+        }
+        // JSON Schema patterns are unanchored: find(), not matches()
+        if (pattern != null && !matcher.get().reset(str).find()) {
+            valid = fail(ctx, " doesn't match pattern: " + pattern.pattern());
+            if (ctx.stop()) return false;
+        }
+        if (formatCheck != null && !formatCheck.test(str)) {
+            valid = fail(ctx, " is not a valid " + format);
+        }
+        return valid;
+    }
+
+    private static boolean fail(ValidationContext ctx, String problem) {
+        if (ctx.reporting()) {
+            ctx.error(ctx.subject() + problem);
+        }
+        return false;
+    }
+}
+
+/**
+ * Assertions for the common "format" values. Unknown formats are annotations only, as the
+ * specification allows, and are not checked.
+ */
+final class Formats {
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern UUID = Pattern.compile(
+            "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
+    private static final Pattern IPV4 = Pattern.compile(
+            "^((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)$");
+    private static final Pattern IPV6 = Pattern.compile("^[0-9a-fA-F:.]+$");
+    private static final String TIME_SHAPE = "\\d{2}:\\d{2}:\\d{2}(\\.\\d+)?([Zz]|[+-]\\d{2}:\\d{2})";
+    private static final Pattern DATE = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+    private static final Pattern TIME = Pattern.compile("^" + TIME_SHAPE + "$");
+    private static final Pattern DATE_TIME = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}[Tt]" + TIME_SHAPE + "$");
+    private static final Pattern HOSTNAME = Pattern.compile(
+            "^(?=.{1,253}$)([a-zA-Z0-9]([a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)(\\.[a-zA-Z0-9]([a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?)*$");
+
+    private Formats() {
+    }
+
+    static Predicate<String> checker(String format) {
+        switch (format) {
+            case "date-time":
+                return Formats::isDateTime;
+            case "date":
+                return value -> DATE.matcher(value).matches() && isDate(value, 0);
+            case "time":
+                return value -> TIME.matcher(value).matches() && isTime(value, 0);
+            case "email":
+                return value -> EMAIL.matcher(value).matches();
+            case "uuid":
+                return value -> UUID.matcher(value).matches();
+            case "ipv4":
+                return value -> IPV4.matcher(value).matches();
+            case "ipv6":
+                return Formats::isIpv6;
+            case "hostname":
+                return value -> HOSTNAME.matcher(value).matches();
+            case "uri":
+                return value -> {
+                    URI uri = uri(value);
+                    return uri != null && uri.isAbsolute();
+                };
+            case "uri-reference":
+                return value -> uri(value) != null;
+            case "regex":
+                return Formats::isRegex;
+            default:
+                return null;
+        }
+    }
+
+    // RFC 3339 date-time: the shape by regex, the field ranges by hand (java.time parsing is ~10x slower)
+    private static boolean isDateTime(String value) {
+        return DATE_TIME.matcher(value).matches() && isDate(value, 0) && isTime(value, 11);
+    }
+
+    // yyyy-MM-dd at offset, shape already checked
+    private static boolean isDate(String value, int offset) {
+        int year = digits(value, offset, 4);
+        int month = digits(value, offset + 5, 2);
+        int day = digits(value, offset + 8, 2);
+        if (month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        return day <= YearMonth.of(year, month).lengthOfMonth();
+    }
+
+    // HH:mm:ss[.fraction](Z|+HH:mm) at offset, shape already checked; second 60 is a leap second
+    private static boolean isTime(String value, int offset) {
+        if (digits(value, offset, 2) > 23 || digits(value, offset + 3, 2) > 59 || digits(value, offset + 6, 2) > 60) {
+            return false;
+        }
+        char last = value.charAt(value.length() - 1);
+        if (last == 'Z' || last == 'z') {
+            return true;
+        }
+        int zone = value.length() - 5;
+        return digits(value, zone, 2) <= 23 && digits(value, zone + 3, 2) <= 59;
+    }
+
+    private static int digits(String value, int offset, int count) {
+        int result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    private static boolean isRegex(String value) {
+        try {
+            Pattern.compile(value);
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+
+    private static URI uri(String value) {
+        try {
+            return new URI(value);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private static boolean isIpv6(String value) {
+        if (value.indexOf(':') < 0 || !IPV6.matcher(value).matches()) {
+            return false;
+        }
+        int groups = 0;
+        boolean compressed = false;
+        String[] parts = value.split(":", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.isEmpty()) {
+                // "::" once, or the leading/trailing half of it
+                if (i > 0 && i < parts.length - 1) {
+                    if (compressed) {
+                        return false;
+                    }
+                    compressed = true;
+                }
+                continue;
+            }
+            if (i == parts.length - 1 && part.indexOf('.') >= 0) {
+                if (!IPV4.matcher(part).matches()) {
+                    return false;
+                }
+                groups += 2;
+                continue;
+            }
+            if (part.length() > 4 || part.indexOf('.') >= 0) {
+                return false;
+            }
+            groups++;
+        }
+        boolean edgesCompressed = value.startsWith("::") || value.endsWith("::");
+        return compressed || edgesCompressed ? groups < 8 : groups == 8;
+    }
+}
+
+/**
+ * enum and const. Numbers compare by value (1 equals 1.0 and 1L); strings, the common case,
+ * are a plain set lookup.
+ */
+final class EnumEvaluator implements Evaluator {
+    private final Set<Object> allowed;
+    private final String display;
+    private final boolean isConst;
+
+    EnumEvaluator(List<Object> values, String display, boolean isConst) {
+        Set<Object> allowed = new HashSet<>();
+        for (Object value : values) {
+            allowed.add(normalize(value));
+        }
+        this.allowed = allowed;
+        this.display = display;
+        this.isConst = isConst;
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        if (allowed.contains(normalize(value))) {
+            return true;
+        }
+        if (ctx.reporting()) {
+            String shown = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+            ctx.error(ctx.subject() + " value " + shown
+                    + (isConst ? " is not the constant " : " not in allowed values: ") + display);
+        }
+        return false;
+    }
+
+    static Object normalize(Object value) {
+        if (value instanceof String || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Number) {
+            BigDecimal decimal = Numbers.toBigDecimal((Number) value);
+            return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+        }
+        if (value == JSONObject.NULL) {
+            return null;
+        }
+        if (value instanceof JSONObject) {
+            return normalize(((JSONObject) value).toMap());
+        }
+        if (value instanceof JSONArray) {
+            return normalize(((JSONArray) value).toList());
+        }
+        if (value instanceof Map) {
+            Map<Object, Object> normalized = new HashMap<>();
+            ((Map<?, ?>) value).forEach((key, item) -> normalized.put(key, normalize(item)));
+            return normalized;
+        }
+        if (value instanceof List) {
+            List<Object> normalized = new ArrayList<>();
+            for (Object item : (List<?>) value) {
+                normalized.add(normalize(item));
+            }
+            return normalized;
+        }
+        return value;
+    }
+}
+
+/**
+ * properties, required, additionalProperties, patternProperties, propertyNames,
+ * min/maxProperties and dependentRequired of an object.
+ *
+ * Declared properties are looked up by name (no iteration over the message), and each required
+ * declared property owns one bit of a mask, so "all required present" is one AND. The entries
+ * are only walked when the message holds keys the schema doesn't declare. A property mapped to
+ * null is present: it satisfies required and is evaluated against its subschema as JSON null, so
+ * {"x": null} fails {"type": "string"} unless null is one of the allowed types. Only keys
+ * missing from the object are skipped.
+ */
+final class ObjectEvaluator implements Evaluator {
+    private final String[] names;
+    private final SchemaNode[] nodes;
+    private final long[] requiredBits;
+    private final String[] requiredByBit;
+    private final long requiredMask;
+    private final String[] requiredOther;
+    private final Set<String> declared;
+    private final Pattern[] patterns;
+    private final SchemaNode[] patternNodes;
+    private final SchemaNode additional;
+    private final SchemaNode propertyNames;
+    private final int minProperties;
+    private final int maxProperties;
+    private final Map<String, String[]> dependentRequired;
+
+    ObjectEvaluator(Map<String, SchemaNode> properties, Set<String> required, Map<Pattern, SchemaNode> patternProperties,
+                    SchemaNode additional, SchemaNode propertyNames, int minProperties, int maxProperties,
+                    Map<String, String[]> dependentRequired) {
+        int count = properties.size();
+        this.names = new String[count];
+        this.nodes = new SchemaNode[count];
+        this.requiredBits = new long[count];
+        List<String> requiredByBit = new ArrayList<>();
+        Set<String> requiredOther = new LinkedHashSet<>(required);
+        long mask = 0L;
+        int i = 0;
+        for (Map.Entry<String, SchemaNode> property : properties.entrySet()) {
+            names[i] = property.getKey();
+            nodes[i] = property.getValue();
+            // Required properties beyond 64 are checked by lookup instead
+            if (requiredOther.contains(names[i]) && requiredByBit.size() < Long.SIZE) {
+                requiredOther.remove(names[i]);
+                requiredBits[i] = 1L << requiredByBit.size();
+                requiredByBit.add(names[i]);
+                mask |= requiredBits[i];
+            }
+            i++;
+        }
+        this.requiredByBit = requiredByBit.toArray(new String[0]);
+        this.requiredMask = mask;
+        this.requiredOther = requiredOther.toArray(new String[0]);
+        this.declared = Set.copyOf(properties.keySet());
+        this.patterns = patternProperties.keySet().toArray(new Pattern[0]);
+        this.patternNodes = patternProperties.values().toArray(new SchemaNode[0]);
+        this.additional = additional;
+        this.propertyNames = propertyNames;
+        this.minProperties = minProperties;
+        this.maxProperties = maxProperties;
+        this.dependentRequired = dependentRequired;
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        Map<?, ?> map;
+        if (value instanceof Map) {
+            map = (Map<?, ?>) value;
+        } else if (value instanceof JSONObject) {
+            map = ((JSONObject) value).toMap();
+        } else {
+            return true;
+        }
+
+        boolean valid = true;
+        long seen = 0L;
+        int matched = 0;
+        for (int i = 0; i < names.length; i++) {
+            Object property = map.get(names[i]);
+            if (property == null) {
+                if (!map.containsKey(names[i])) {
+                    continue;
+                }
+                // JSONObject.toMap() turns JSON null into Java null
+                property = JSONObject.NULL;
+            }
+            matched++;
+            seen |= requiredBits[i];
+            ctx.push(names[i]);
+            boolean ok = nodes[i].evaluate(property, ctx);
+            ctx.pop();
+            if (!ok) {
+                valid = false;
+                if (ctx.stop()) return false;
+            }
+        }
+
+        long missing = requiredMask & ~seen;
+        while (missing != 0L) {
+            int bit = Long.numberOfTrailingZeros(missing);
+            valid = missing(ctx, requiredByBit[bit]);
+            if (ctx.stop()) return false;
+            missing &= missing - 1;
+        }
+        for (String name : requiredOther) {
+            if (!map.containsKey(name)) {
+                valid = missing(ctx, name);
+                if (ctx.stop()) return false;
+            }
+        }
+
+        // Only walk the entries when the map holds keys the properties don't cover
+        if (additional != null && map.size() > matched || propertyNames != null || patterns.length > 0) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String key = String.valueOf(entry.getKey());
+                Object property = entry.getValue() == null ? JSONObject.NULL : entry.getValue();
+                if (!evaluateEntry(key, property, ctx)) {
+                    valid = false;
+                    if (ctx.stop()) return false;
+                }
+            }
+        }
+
+        if (minProperties > 0 && map.size() < minProperties) {
+            valid = fail(ctx, " has fewer than " + minProperties + " properties");
+            if (ctx.stop()) return false;
+        }
+        if (maxProperties >= 0 && map.size() > maxProperties) {
+            valid = fail(ctx, " has more than " + maxProperties + " properties");
+            if (ctx.stop()) return false;
+        }
+        if (dependentRequired != null) {
+            for (Map.Entry<String, String[]> dependency : dependentRequired.entrySet()) {
+                if (!map.containsKey(dependency.getKey())) {
+                    continue;
+                }
+                for (String name : dependency.getValue()) {
+                    if (!map.containsKey(name)) {
+                        valid = missing(ctx, name);
+                        if (ctx.stop()) return false;
+                    }
+                }
+            }
+        }
+        return valid;
+    }
+
+    private boolean evaluateEntry(String key, Object property, ValidationContext ctx) {
+        boolean valid = true;
+        if (propertyNames != null) {
+            ctx.push(key);
+            boolean ok = propertyNames.evaluate(key, ctx);
+            ctx.pop();
+            if (!ok) {
+                valid = false;
+                if (ctx.stop()) return false;
+            }
+        }
+        boolean covered = declared.contains(key);
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matcher(key).find()) {
+                covered = true;
+                ctx.push(key);
+                boolean ok = patternNodes[i].evaluate(property, ctx);
+                ctx.pop();
+                if (!ok) {
+                    valid = false;
+                    if (ctx.stop()) return false;
+                }
+            }
+        }
+        if (covered || additional == null) {
+            return valid;
+        }
+        if (additional == SchemaNode.FALSE) {
+            if (ctx.reporting()) {
+                ctx.error("Additional property not allowed: " + ctx.child(key));
+            }
+            return false;
+        }
+        ctx.push(key);
+        boolean ok = additional.evaluate(property, ctx);
+        ctx.pop();
+        return valid && ok;
+    }
+
+    private static boolean missing(ValidationContext ctx, String name) {
+        if (ctx.reporting()) {
+            ctx.error("Missing required field: " + ctx.child(name));
+        }
+        return false;
+    }
+
+    private static boolean fail(ValidationContext ctx, String problem) {
+        if (ctx.reporting()) {
+            ctx.error(ctx.subject() + problem);
+        }
+        return false;
+    }
+}
+
+// prefixItems, items, contains, min/maxItems, uniqueItems of an array
+final class ArrayEvaluator implements Evaluator {
+    private final SchemaNode[] prefixItems;
+    private final SchemaNode items;
+    private final SchemaNode contains;
+    private final int minContains;
+    private final int maxContains;
+    private final int minItems;
+    private final int maxItems;
+    private final boolean uniqueItems;
+
+    ArrayEvaluator(SchemaNode[] prefixItems, SchemaNode items, SchemaNode contains, int minContains, int maxContains,
+                   int minItems, int maxItems, boolean uniqueItems) {
+        this.prefixItems = prefixItems;
+        this.items = items;
+        this.contains = contains;
+        this.minContains = minContains;
+        this.maxContains = maxContains;
+        this.minItems = minItems;
+        this.maxItems = maxItems;
+        this.uniqueItems = uniqueItems;
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        List<?> list;
+        if (value instanceof List) {
+            list = (List<?>) value;
+        } else if (value instanceof JSONArray) {
+            list = ((JSONArray) value).toList();
+        } else {
+            return true;
+        }
+
+        boolean valid = true;
+        int size = list.size();
+        if (minItems > 0 && size < minItems) {
+            valid = fail(ctx, " has fewer than " + minItems + " items");
+            if (ctx.stop()) return false;
+        }
+        if (maxItems >= 0 && size > maxItems) {
+            valid = fail(ctx, " has more than " + maxItems + " items");
+            if (ctx.stop()) return false;
+        }
+
+        int i = 0;
+        for (Object item : list) {
+            SchemaNode node = i < prefixItems.length ? prefixItems[i] : items;
+            if (node != null) {
+                ctx.push(i);
+                boolean ok = node.evaluate(item, ctx);
+                ctx.pop();
+                if (!ok) {
+                    valid = false;
+                    if (ctx.stop()) return false;
+                }
+            }
+            i++;
+        }
+
+        if (contains != null) {
+            int matches = 0;
+            ctx.enterTrial();
+            try {
+                for (Object item : list) {
+                    if (contains.evaluate(item, ctx)) {
+                        matches++;
+                    }
+                }
+            } finally {
+                ctx.exitTrial();
+            }
+            if (matches < minContains) {
+                valid = fail(ctx, " must contain at least " + minContains + " matching item(s), found " + matches);
+                if (ctx.stop()) return false;
+            }
+            if (maxContains >= 0 && matches > maxContains) {
+                valid = fail(ctx, " must contain at most " + maxContains + " matching item(s), found " + matches);
+                if (ctx.stop()) return false;
+            }
+        }
+
+        if (uniqueItems && size > 1) {
+            Set<Object> seen = new HashSet<>();
+            for (Object item : list) {
+                if (!seen.add(EnumEvaluator.normalize(item))) {
+                    valid = fail(ctx, " has duplicate items");
+                    break;
+                }
+            }
+        }
+        return valid;
+    }
+
+    private static boolean fail(ValidationContext ctx, String problem) {
+        if (ctx.reporting()) {
+            ctx.error(ctx.subject() + problem);
+        }
+        return false;
+    }
+}
+
+// allOf / anyOf / oneOf / not / if-then-else
+final class CombinatorEvaluator implements Evaluator {
+    enum Kind { ALL_OF, ANY_OF, ONE_OF, NOT, IF }
+
+    private final Kind kind;
+    private final SchemaNode[] schemas;
+    private final SchemaNode then;
+    private final SchemaNode otherwise;
+
+    CombinatorEvaluator(Kind kind, SchemaNode[] schemas) {
+        this(kind, schemas, null, null);
+    }
+
+    CombinatorEvaluator(Kind kind, SchemaNode[] schemas, SchemaNode then, SchemaNode otherwise) {
+        this.kind = kind;
+        this.schemas = schemas;
+        this.then = then;
+        this.otherwise = otherwise;
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        switch (kind) {
+            case ALL_OF: {
+                boolean valid = true;
+                for (SchemaNode schema : schemas) {
+                    if (!schema.evaluate(value, ctx)) {
+                        valid = false;
+                        if (ctx.stop()) return false;
+                    }
+                }
+                return valid;
+            }
+            case ANY_OF: {
+                for (SchemaNode schema : schemas) {
+                    if (trial(schema, value, ctx)) {
+                        return true;
+                    }
+                }
+                return fail(ctx, " doesn't match any of the anyOf schemas");
+            }
+            case ONE_OF: {
+                int matches = 0;
+                for (SchemaNode schema : schemas) {
+                    if (trial(schema, value, ctx) && ++matches > 1) {
+                        break;
+                    }
+                }
+                return matches == 1 || fail(ctx, matches == 0
+                        ? " doesn't match any of the oneOf schemas"
+                        : " matches more than one of the oneOf schemas");
+            }
+            case NOT:
+                return !trial(schemas[0], value, ctx) || fail(ctx, " must not match the 'not' schema");
+            case IF: {
+                SchemaNode branch = trial(schemas[0], value, ctx) ? then : otherwise;
+                return branch == null || branch.evaluate(value, ctx);
+            }
+            default:
+                throw new IllegalStateException("Unknown combinator " + kind);
+        }
+    }
+
+    private static boolean trial(SchemaNode schema, Object value, ValidationContext ctx) {
+        ctx.enterTrial();
+        try {
+            return schema.evaluate(value, ctx);
+        } finally {
+            ctx.exitTrial();
+        }
+    }
+
+    private static boolean fail(ValidationContext ctx, String problem) {
+        if (ctx.reporting()) {
+            ctx.error(ctx.subject() + problem);
+        }
+        return false;
+    }
+}
+
+// $ref: delegates to the target node, which may be this node's ancestor
+final class RefEvaluator implements Evaluator {
+    private final SchemaNode target;
+
+    RefEvaluator(SchemaNode target) {
+        this.target = target;
+    }
+
+    @Override
+    public boolean evaluate(Object value, ValidationContext ctx) {
+        return target.evaluate(value, ctx);
+    }
+}
+
+/**
+ * Compiles a JSON Schema (draft 2020-12 vocabulary) into a SchemaNode graph.
+ *
+ * Supported: type, enum, const, string/number/object/array keywords, format (asserted for
+ * date-time, date, time, email, uuid, ipv4, ipv6, hostname, uri, uri-reference, regex), allOf,
+ * anyOf, oneOf, not, if/then/else, $ref to "#", JSON pointers ("#/$defs/x"), $anchor and
+ * embedded $id. Remote references and the unevaluated* / $dynamicRef keywords are rejected at
+ * compile time rather than silently ignored.
+ */
+final class SchemaCompiler {
+    private final JSONObject root;
+    private final String rootId;
+    private final Map<String, SchemaNode> byPointer = new HashMap<>();
+    private final Map<String, String> pointerByAnchor = new HashMap<>();
+    // $ref and allOf/anyOf/oneOf/not/if/then/else edges: the target validates the same value.
+    // Subschemas of properties, items and the like apply to a member and get no edge.
+    private final Map<String, List<String>> sameValue = new HashMap<>();
+
+    private SchemaCompiler(JSONObject root) {
+        this.root = root;
+        this.rootId = stripFragment(root.optString("$id", ""));
+        index(root, "#");
+    }
+
+    static SchemaNode compile(JSONObject schema) {
+        SchemaCompiler compiler = new SchemaCompiler(schema);
+        SchemaNode node = compiler.node(schema, "#");
+        compiler.rejectLoopsWithoutDescending();
+        return node;
+    }
+
+    // Records $anchor and embedded $id locations so $ref can find them
+    private void index(Object json, String pointer) {
+        if (json instanceof JSONObject) {
+            JSONObject object = (JSONObject) json;
+            String anchor = object.optString("$anchor", null);
+            if (anchor != null) {
+                pointerByAnchor.put("#" + anchor, pointer);
+            }
+            String id = object.optString("$id", null);
+            if (id != null && !"#".equals(pointer)) {
+                pointerByAnchor.put(stripFragment(id), pointer);
+            }
+            for (String key : object.keySet()) {
+                if (!"enum".equals(key) && !"const".equals(key) && !"default".equals(key) && !"examples".equals(key)) {
+                    index(object.get(key), pointer + "/" + escape(key));
+                }
+            }
+        } else if (json instanceof JSONArray) {
+            JSONArray array = (JSONArray) json;
+            for (int i = 0; i < array.length(); i++) {
+                index(array.get(i), pointer + "/" + i);
+            }
+        }
+    }
+
+    private SchemaNode node(Object json, String pointer) {
+        if (json instanceof Boolean) {
+            return (Boolean) json ? SchemaNode.TRUE : SchemaNode.FALSE;
+        }
+        if (!(json instanceof JSONObject)) {
+            throw new IllegalArgumentException("Schema at " + pointer + " must be an object or a boolean");
+        }
+        SchemaNode existing = byPointer.get(pointer);
+        if (existing != null) {
+            return existing;
+        }
+        SchemaNode node = new SchemaNode();
+        byPointer.put(pointer, node);
+
+        JSONObject schema = (JSONObject) json;
+        for (String unsupported : List.of("$dynamicRef", "unevaluatedProperties", "unevaluatedItems")) {
+            if (schema.has(unsupported)) {
+                throw new IllegalArgumentException("Unsupported keyword " + unsupported + " at " + pointer);
+            }
+        }
+
+        List<Evaluator> evaluators = new ArrayList<>();
+        if (schema.has("$ref")) {
+            evaluators.add(new RefEvaluator(resolve(schema.getString("$ref"), pointer)));
+        }
+        if (schema.has("enum")) {
+            JSONArray values = schema.getJSONArray("enum");
+            evaluators.add(new EnumEvaluator(plainList(values), values.toString(), false));
+        }
+        if (schema.has("const")) {
+            Object value = schema.get("const");
+            evaluators.add(new EnumEvaluator(Collections.singletonList(plain(value)), String.valueOf(value), true));
+        }
+        Evaluator strings = strings(schema, pointer);
+        if (strings != null) {
+            evaluators.add(strings);
+        }
+        Evaluator numbers = numbers(schema);
+        if (numbers != null) {
+            evaluators.add(numbers);
+        }
+        Evaluator objects = objects(schema, pointer);
+        if (objects != null) {
+            evaluators.add(objects);
+        }
+        Evaluator arrays = arrays(schema, pointer);
+        if (arrays != null) {
+            evaluators.add(arrays);
+        }
+        combinators(schema, pointer, evaluators);
+
+        node.init(type(schema), evaluators.toArray(new Evaluator[0]));
+        return node;
+    }
+
+    private TypeEvaluator type(JSONObject schema) {
+        Object type = schema.opt("type");
+        if (type == null) {
+            return null;
+        }
+        if (type instanceof JSONArray) {
+            JSONArray types = (JSONArray) type;
+            int bits = 0;
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < types.length(); i++) {
+                bits |= TypeEvaluator.code(types.getString(i));
+                names.add(types.getString(i));
+            }
+            return new TypeEvaluator(bits, String.join(" or ", names));
+        }
+        return new TypeEvaluator(TypeEvaluator.code(type.toString()), type.toString());
+    }
+
+    private Evaluator strings(JSONObject schema, String pointer) {
+        if (!schema.has("minLength") && !schema.has("maxLength") && !schema.has("pattern") && !schema.has("format")) {
+            return null;
+        }
+        Pattern pattern = null;
+        if (schema.has("pattern")) {
+            try {
+                pattern = Pattern.compile(schema.getString("pattern"));
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("Invalid pattern at " + pointer + ": " + e.getDescription());
+            }
+        }
+        String format = schema.optString("format", null);
+        if (format != null && Formats.checker(format) == null) {
+            format = null;
+        }
+        if (pattern == null && format == null && !schema.has("minLength") && !schema.has("maxLength")) {
+            return null;
+        }
+        return new StringEvaluator(schema.optInt("minLength", 0), schema.optInt("maxLength", -1), pattern, format);
+    }
+
+    private Evaluator numbers(JSONObject schema) {
+        Numbers.Bound minimum = bound(schema, "minimum");
+        Numbers.Bound maximum = bound(schema, "maximum");
+        Numbers.Bound exclusiveMinimum = bound(schema, "exclusiveMinimum");
+        Numbers.Bound exclusiveMaximum = bound(schema, "exclusiveMaximum");
+        Numbers.Bound multipleOf = bound(schema, "multipleOf");
+        if (minimum == null && maximum == null && exclusiveMinimum == null && exclusiveMaximum == null
+                && multipleOf == null) {
+            return null;
+        }
+        return new NumberEvaluator(minimum, maximum, exclusiveMinimum, exclusiveMaximum, multipleOf);
+    }
+
+    private static Numbers.Bound bound(JSONObject schema, String keyword) {
+        Object value = schema.opt(keyword);
+        return value instanceof Number ? new Numbers.Bound((Number) value) : null;
+    }
+
+    private Evaluator objects(JSONObject schema, String pointer) {
+        JSONObject properties = schema.optJSONObject("properties");
+        JSONArray required = schema.optJSONArray("required");
+        JSONObject patternProperties = schema.optJSONObject("patternProperties");
+        Object additional = schema.opt("additionalProperties");
+        Object propertyNames = schema.opt("propertyNames");
+        JSONObject dependentRequired = schema.optJSONObject("dependentRequired");
+        if (properties == null && required == null && patternProperties == null && additional == null
+                && propertyNames == null && dependentRequired == null
+                && !schema.has("minProperties") && !schema.has("maxProperties")) {
+            return null;
+        }
+
+        Map<String, SchemaNode> propertyNodes = new LinkedHashMap<>();
+        if (properties != null) {
+            for (String name : properties.keySet()) {
+                propertyNodes.put(name, node(properties.get(name), pointer + "/properties/" + escape(name)));
+            }
+        }
+        Set<String> requiredNames = new LinkedHashSet<>();
+        if (required != null) {
+            for (int i = 0; i < required.length(); i++) {
+                requiredNames.add(required.getString(i));
+            }
+        }
+        Map<Pattern, SchemaNode> patternNodes = new LinkedHashMap<>();
+        if (patternProperties != null) {
+            for (String regex : patternProperties.keySet()) {
+                patternNodes.put(Pattern.compile(regex),
+                        node(patternProperties.get(regex), pointer + "/patternProperties/" + escape(regex)));
+            }
+        }
+        Map<String, String[]> dependencies = null;
+        if (dependentRequired != null) {
+            dependencies = new HashMap<>();
+            for (String name : dependentRequired.keySet()) {
+                dependencies.put(name, plainList(dependentRequired.getJSONArray(name)).toArray(new String[0]));
+            }
+        }
+        return new ObjectEvaluator(propertyNodes, requiredNames, patternNodes,
+                additional == null ? null : node(additional, pointer + "/additionalProperties"),
+                propertyNames == null ? null : node(propertyNames, pointer + "/propertyNames"),
+                schema.optInt("minProperties", 0), schema.optInt("maxProperties", -1), dependencies);
+    }
+
+    private Evaluator arrays(JSONObject schema, String pointer) {
+        JSONArray prefixItems = schema.optJSONArray("prefixItems");
+        Object items = schema.opt("items");
+        Object contains = schema.opt("contains");
+        if (prefixItems == null && items == null && contains == null && !schema.has("minItems")
+                && !schema.has("maxItems") && !schema.optBoolean("uniqueItems", false)) {
+            return null;
+        }
+        if (items instanceof JSONArray) {
+            throw new IllegalArgumentException("Array form of items at " + pointer + " is draft 2019-09; use prefixItems");
+        }
+        SchemaNode[] prefix = new SchemaNode[prefixItems == null ? 0 : prefixItems.length()];
+        for (int i = 0; i < prefix.length; i++) {
+            prefix[i] = node(prefixItems.get(i), pointer + "/prefixItems/" + i);
+        }
+        return new ArrayEvaluator(prefix,
+                items == null ? null : node(items, pointer + "/items"),
+                contains == null ? null : node(contains, pointer + "/contains"),
+                contains == null ? 0 : schema.optInt("minContains", 1),
+                schema.optInt("maxContains", -1),
+                schema.optInt("minItems", 0), schema.optInt("maxItems", -1),
+                schema.optBoolean("uniqueItems", false));
+    }
+
+    private void combinators(JSONObject schema, String pointer, List<Evaluator> evaluators) {
+        addCombinator(schema, "allOf", CombinatorEvaluator.Kind.ALL_OF, pointer, evaluators);
+        addCombinator(schema, "anyOf", CombinatorEvaluator.Kind.ANY_OF, pointer, evaluators);
+        addCombinator(schema, "oneOf", CombinatorEvaluator.Kind.ONE_OF, pointer, evaluators);
+        if (schema.has("not")) {
+            evaluators.add(new CombinatorEvaluator(CombinatorEvaluator.Kind.NOT,
+                    new SchemaNode[] { sameValueNode(schema.get("not"), pointer, "/not") }));
+        }
+        if (schema.has("if")) {
+            evaluators.add(new CombinatorEvaluator(CombinatorEvaluator.Kind.IF,
+                    new SchemaNode[] { sameValueNode(schema.get("if"), pointer, "/if") },
+                    schema.has("then") ? sameValueNode(schema.get("then"), pointer, "/then") : null,
+                    schema.has("else") ? sameValueNode(schema.get("else"), pointer, "/else") : null));
+        }
+    }
+
+    // A subschema applied to the value of the schema at pointer itself
+    private SchemaNode sameValueNode(Object json, String pointer, String path) {
+        sameValue(pointer, pointer + path);
+        return node(json, pointer + path);
+    }
+
+    private void sameValue(String from, String to) {
+        sameValue.computeIfAbsent(from, key -> new ArrayList<>()).add(to);
+    }
+
+    private void addCombinator(JSONObject schema, String keyword, CombinatorEvaluator.Kind kind, String pointer,
+                               List<Evaluator> evaluators) {
+        JSONArray array = schema.optJSONArray(keyword);
+        if (array == null) {
+            return;
+        }
+        SchemaNode[] schemas = new SchemaNode[array.length()];
+        for (int i = 0; i < schemas.length; i++) {
+            schemas[i] = sameValueNode(array.get(i), pointer, "/" + keyword + "/" + i);
+        }
+        evaluators.add(new CombinatorEvaluator(kind, schemas));
+    }
+
+    private SchemaNode resolve(String ref, String from) {
+        String target = ref;
+        if (!rootId.isEmpty() && target.startsWith(rootId)) {
+            target = target.substring(rootId.length());
+        }
+        if (target.isEmpty()) {
+            target = "#";
+        }
+        String pointer = pointerByAnchor.get(target);
+        if (pointer == null) {
+            if (!target.startsWith("#")) {
+                throw new IllegalArgumentException("Unsupported $ref " + ref + " at " + from + ": only local references resolve");
+            }
+            pointer = target;
+        }
+        sameValue(from, pointer);
+        return node(at(pointer, ref), pointer);
+    }
+
+    /**
+     * A cycle of same-value edges validates one value over and over and would recurse until the
+     * stack overflows, whether it is a $ref to an ancestor or a chain of $defs referring to each
+     * other. Only a cycle that passes through a member keyword (properties, items, ...) terminates.
+     */
+    private void rejectLoopsWithoutDescending() {
+        Map<String, Boolean> finished = new HashMap<>();
+        for (String pointer : sameValue.keySet()) {
+            visit(pointer, finished, new ArrayList<>());
+        }
+    }
+
+    // finished: true once every edge from the pointer is checked, false while it is on the chain
+    private void visit(String pointer, Map<String, Boolean> finished, List<String> chain) {
+        Boolean state = finished.get(pointer);
+        if (Boolean.TRUE.equals(state)) {
+            return;
+        }
+        if (state != null) {
+            List<String> cycle = new ArrayList<>(chain.subList(chain.indexOf(pointer), chain.size()));
+            cycle.add(pointer);
+            throw new IllegalArgumentException("$ref cycle " + String.join(" -> ", cycle)
+                    + " refers to itself without descending into the value");
+        }
+        finished.put(pointer, false);
+        chain.add(pointer);
+        for (String next : sameValue.getOrDefault(pointer, Collections.emptyList())) {
+            visit(next, finished, chain);
+        }
+        chain.remove(chain.size() - 1);
+        finished.put(pointer, true);
+    }
+
+    // The JSON at a "#/a/b/0" pointer
+    private Object at(String pointer, String ref) {
+        Object current = root;
+        if (pointer.equals("#")) {
+            return current;
+        }
+        for (String token : pointer.substring(2).split("/", -1)) {
+            String key = URLDecoder.decode(token.replace("+", "%2B"), StandardCharsets.UTF_8)
+                    .replace("~1", "/").replace("~0", "~");
+            if (current instanceof JSONObject && ((JSONObject) current).has(key)) {
+                current = ((JSONObject) current).get(key);
+            } else if (current instanceof JSONArray && key.matches("\\d+") && Integer.parseInt(key) < ((JSONArray) current).length()) {
+                current = ((JSONArray) current).get(Integer.parseInt(key));
+            } else {
+                throw new IllegalArgumentException("Unresolvable $ref " + ref);
+            }
+        }
+        return current;
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String stripFragment(String id) {
+        int hash = id.indexOf('#');
+        return hash < 0 ? id : id.substring(0, hash);
+    }
+
+    // Schema literals (enum, const, default) as plain Java values
+    static Object plain(Object json) {
+        if (json == JSONObject.NULL) {
+            return null;
+        }
+        if (json instanceof JSONObject) {
+            return ((JSONObject) json).toMap();
+        }
+        if (json instanceof JSONArray) {
+            return ((JSONArray) json).toList();
+        }
+        return json;
+    }
+
+    private static List<Object> plainList(JSONArray array) {
+        List<Object> values = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            values.add(plain(array.get(i)));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.sqslistener.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message logging of the listeners.
+ *
+ * By default it keeps the classic output: received / acknowledged lines at INFO on the
+ * listener's own logger, and the body, truncated to body-max-chars, only at DEBUG. With
+ * sqs.logging.structured.enabled=true each message instead produces one compact key-value line
+ * on the sqs.listener.events logger,
+ *
+ *   event=processed listener=sqs-listener messageId=... route=... latencyMs=12 outcome="processed and acknowledged"
+ *
+ * where values holding spaces, quotes or '=' are double-quoted with \" and \\ escapes, and the
+ * body is only logged for a sample of messages (body-sample-rate), truncated to body-max-chars,
+ * on sqs.listener.bodies. Every call checks the level first, so nothing is formatted or boxed
+ * when the logger is off. Pair with the async-logging profile
+ * (logback-spring.xml) to move appender I/O off the listener threads.
+ */
+@Component
+public class ListenerEventLog {
+
+    private static final Logger events = LoggerFactory.getLogger("sqs.listener.events");
+    private static final Logger bodies = LoggerFactory.getLogger("sqs.listener.bodies");
+
+    private final boolean structured;
+    private final double bodySampleRate;
+    private final int bodyMaxChars;
+
+    public ListenerEventLog(@Value("${sqs.logging.structured.enabled:false}") boolean structured,
+                            @Value("${sqs.logging.body-sample-rate:0.01}") double bodySampleRate,
+                            @Value("${sqs.logging.body-max-chars:512}") int bodyMaxChars) {
+        this.structured = structured;
+        this.bodySampleRate = bodySampleRate;
+        this.bodyMaxChars = bodyMaxChars;
+    }
+
+    public void received(Logger log, String messageId, String receiveCount, String body) {
+        if (!structured) {
+            if (log.isInfoEnabled()) {
+                if (receiveCount != null) {
+                    log.info("Received message with ID: {} (Attempt: {})", messageId, receiveCount);
+                } else {
+                    log.info("Received message with ID: {}", messageId);
+                }
+            }
+            if (body != null && log.isDebugEnabled()) {
+                log.debug("Message body ({} chars): {}", body.length(), truncate(body));
+            }
+            return;
+        }
+        if (body != null && bodies.isInfoEnabled() && ThreadLocalRandom.current().nextDouble() < bodySampleRate) {
+            bodies.info("event=body messageId={} length={} body={}", quote(messageId), body.length(), quote(truncate(body)));
+        }
+    }
+
+    /**
+     * Outcome of one message, with the time since startNanos (System.nanoTime() on receipt).
+     */
+    public void processed(Logger log, String listener, String messageId, String route, long startNanos, String outcome) {
+        if (!structured) {
+            if (log.isInfoEnabled()) {
+                log.info("Message {} {}", messageId, outcome);
+            }
+            return;
+        }
+        if (events.isInfoEnabled()) {
+            events.info("event=processed listener={} messageId={} route={} latencyMs={} outcome={}",
+                    quote(listener), quote(messageId), quote(route),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), quote(outcome));
+        }
+    }
+
+    private String truncate(String body) {
+        return body.length() <= bodyMaxChars ? body : body.substring(0, bodyMaxChars) + "...";
+    }
+
+    // A key=value value as is, or double-quoted with escapes when it would break the line's format
+    static String quote(String value) {
+        if (value == null) {
+            return null;
+        }
+        boolean plain = !value.isEmpty();
+        for (int i = 0; i < value.length() && plain; i++) {
+            char c = value.charAt(i);
+            plain = c > ' ' && c != '"' && c != '=' && c != '\\';
+        }
+        if (plain) {
+            return value;
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 8).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    public boolean isStructured() {
+        return structured;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.sqslistener.metrics;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.acknowledgement.AcknowledgementResultCallback;
+import io.awspring.cloud.sqs.listener.interceptor.MessageInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listener-side timings, registered on the container factories as interceptor and
+ * acknowledgement callback:
+ *
+ * - sqs.message.queue.wait: SentTimestamp to the message reaching the listener
+ * - sqs.listener.processing{outcome}: listener invocation time
+ * - sqs.message.age.at.ack{outcome}: SentTimestamp to the acknowledgement completing, the
+ *   end-to-end queue-to-ack age
+ *
+ * On by default; sqs.metrics.listener.enabled=false turns it off.
+ */
+@Component
+@ConditionalOnProperty(name = "sqs.metrics.listener.enabled", havingValue = "true", matchIfMissing = true)
+public class ListenerMetrics implements MessageInterceptor<Object>, AcknowledgementResultCallback<Object> {
+
+    private final Map<UUID, Long> processingStarts = new ConcurrentHashMap<>();
+    private final Timer queueWait;
+    private final Timer processingSucceeded;
+    private final Timer processingFailed;
+    private final Timer ackAge;
+    private final Counter ackFailures;
+
+    public ListenerMetrics(MeterRegistry meterRegistry) {
+        this.queueWait = Timer.builder("sqs.message.queue.wait")
+                .description("Time from SentTimestamp until the listener received the message")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.processingSucceeded = processingTimer(meterRegistry, "success");
+        this.processingFailed = processingTimer(meterRegistry, "failure");
+        this.ackAge = Timer.builder("sqs.message.age.at.ack")
+                .description("Time from SentTimestamp until the message was deleted")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.ackFailures = Counter.builder("sqs.message.ack.failures")
+                .description("Acknowledgements SQS did not confirm")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<Object> intercept(Message<Object> message) {
+        started(message, System.currentTimeMillis());
+        return message;
+    }
+
+    @Override
+    public Collection<Message<Object>> intercept(Collection<Message<Object>> messages) {
+        long now = System.currentTimeMillis();
+        for (Message<Object> message : messages) {
+            started(message, now);
+        }
+        return messages;
+    }
+
+    @Override
+    public void afterProcessing(Message<Object> message, Throwable t) {
+        finished(message, t, System.nanoTime());
+    }
+
+    @Override
+    public void afterProcessing(Collection<Message<Object>> messages, Throwable t) {
+        long now = System.nanoTime();
+        for (Message<Object> message : messages) {
+            finished(message, t, now);
+        }
+    }
+
+    @Override
+    public void onSuccess(Collection<Message<Object>> messages) {
+        long now = System.currentTimeMillis();
+        for (Message<Object> message : messages) {
+            long sentAt = sentTimestamp(message);
+            if (sentAt > 0) {
+                ackAge.record(Math.max(0, now - sentAt), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void onFailure(Collection<Message<Object>> messages, Throwable t) {
+        ackFailures.increment(messages.size());
+    }
+
+    private void started(Message<?> message, long nowMillis) {
+        long sentAt = sentTimestamp(message);
+        if (sentAt > 0) {
+            queueWait.record(Math.max(0, nowMillis - sentAt), TimeUnit.MILLISECONDS);
+        }
+        UUID id = message.getHeaders().getId();
+        if (id != null) {
+            processingStarts.put(id, System.nanoTime());
+        }
+    }
+
+    private void finished(Message<?> message, Throwable t, long nowNanos) {
+        UUID id = message.getHeaders().getId();
+        Long start = id == null ? null : processingStarts.remove(id);
+        if (start != null) {
+            (t == null ? processingSucceeded : processingFailed).record(nowNanos - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static long sentTimestamp(Message<?> message) {
+        Object sentTimestamp = message.getHeaders().get(SqsHeaders.MessageSystemAttributes.SQS_SENT_TIMESTAMP);
+        if (sentTimestamp == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(sentTimestamp.toString());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static Timer processingTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("sqs.listener.processing")
+                .description("Listener invocation time")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.sqslistener.dedup;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Remembers which messages this node has already processed, so a redelivery (crash before the
+ * batched acknowledgement went out, visibility timeout expiring mid-processing) is acknowledged
+ * and skipped instead of being fetched, validated and fanned out again.
+ *
+ * Ids are stored as 64-bit hashes in open-addressing long[] tables - about 16 bytes per id, no
+ * per-entry objects - split into 16 independently locked segments. Each segment keeps four
+ * generations and rotates to a fresh one every ttl/4, so an id is remembered for at least 3/4
+ * ttl and dropped after at most ttl. max-entries bounds memory: a generation that fills up
+ * rotates early, evicting the oldest ids before their ttl.
+ *
+ * ttl must stay within the 5 minute SQS deduplication interval: past it a producer may reuse a
+ * MessageDeduplicationId for a new message, which a longer ttl would skip as a duplicate. Two
+ * different ids can also share a 64-bit hash, so a lookup is a false positive with probability
+ * about entries / 2^64 (~1e-13 at 2M entries) - negligible, but not zero.
+ *
+ * Disabled unless sqs.dedup.enabled=true; then every lookup is a no-op returning false.
+ */
+@Slf4j
+@Component
+public class MessageDeduplicationCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int GENERATIONS = 4;
+    // SQS drops a repeated MessageDeduplicationId only within this interval
+    private static final Duration SQS_DEDUPLICATION_INTERVAL = Duration.ofMinutes(5);
+
+    private final boolean enabled;
+    private final Segment[] segments;
+    private final long generationNanos;
+    private final Counter duplicates;
+
+    public MessageDeduplicationCache(@Value("${sqs.dedup.enabled:false}") boolean enabled,
+                                     @Value("${sqs.dedup.ttl:5m}") Duration ttl,
+                                     @Value("${sqs.dedup.max-entries:2000000}") int maxEntries,
+                                     MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.generationNanos = ttl.toNanos() / GENERATIONS;
+        this.duplicates = Counter.builder("sqs.dedup.duplicates")
+                .description("Redelivered messages skipped because they were already processed")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            this.segments = new Segment[0];
+            return;
+        }
+
+        int perGeneration = Math.max(1, maxEntries / (SEGMENTS * GENERATIONS));
+        long now = System.nanoTime();
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perGeneration, now);
+        }
+        if (ttl.compareTo(SQS_DEDUPLICATION_INTERVAL) > 0) {
+            log.warn("sqs.dedup.ttl={} exceeds the {} SQS deduplication interval; a reused MessageDeduplicationId "
+                    + "may be skipped as a duplicate", ttl, SQS_DEDUPLICATION_INTERVAL);
+        }
+        Gauge.builder("sqs.dedup.entries", this, MessageDeduplicationCache::size)
+                .description("Message ids currently remembered")
+                .register(meterRegistry);
+
+        log.info("Message deduplication enabled: ttl={}, maxEntries={}, ~{} MB",
+                ttl, maxEntries, (long) SEGMENTS * GENERATIONS * segments[0].tableLength() * Long.BYTES / (1024 * 1024));
+    }
+
+    /**
+     * MessageDeduplicationId when the queue is FIFO and the producer set one, otherwise MessageId.
+     */
+    public static String key(String deduplicationId, String messageId) {
+        return deduplicationId != null && !deduplicationId.isEmpty() ? deduplicationId : messageId;
+    }
+
+    /**
+     * True if the id was marked processed within the ttl.
+     */
+    public boolean isProcessed(String id) {
+        if (!enabled || id == null) {
+            return false;
+        }
+        long hash = hash64(id);
+        boolean processed = segmentFor(hash).contains(hash, System.nanoTime(), generationNanos);
+        if (processed) {
+            duplicates.increment();
+        }
+        return processed;
+    }
+
+    /**
+     * Records the id once its message has been processed successfully.
+     */
+    public void markProcessed(String id) {
+        if (!enabled || id == null) {
+            return;
+        }
+        long hash = hash64(id);
+        segmentFor(hash).add(hash, System.nanoTime(), generationNanos);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private Segment segmentFor(long hash) {
+        // Top bits pick the segment; the table index uses the low bits
+        return segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+    }
+
+    // FNV-1a over the chars, finished with the murmur3 fmix64 avalanche; 0 is the empty-slot marker
+    static long hash64(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static final class Segment {
+        private final long[][] tables = new long[GENERATIONS][];
+        private final int[] sizes = new int[GENERATIONS];
+        private final int threshold;
+        private final int mask;
+        private int current;
+        private long currentStart;
+
+        private Segment(int perGeneration, long now) {
+            // Load factor <= 0.5 keeps probe sequences short
+            int length = Integer.highestOneBit(Math.max(2, perGeneration * 2 - 1)) << 1;
+            for (int i = 0; i < GENERATIONS; i++) {
+                tables[i] = new long[length];
+            }
+            this.threshold = perGeneration;
+            this.mask = length - 1;
+            this.currentStart = now;
+        }
+
+        synchronized boolean contains(long hash, long now, long generationNanos) {
+            expire(now, generationNanos);
+            for (int generation = 0; generation < GENERATIONS; generation++) {
+                if (sizes[generation] > 0 && probe(tables[generation], hash) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void add(long hash, long now, long generationNanos) {
+            expire(now, generationNanos);
+            for (int generation = 0; generation < GENERATIONS; generation++) {
+                if (sizes[generation] > 0 && probe(tables[generation], hash) >= 0) {
+                    return;
+                }
+            }
+            if (sizes[current] >= threshold) {
+                rotate(now);
+            }
+            long[] table = tables[current];
+            int slot = (int) hash & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = hash;
+            sizes[current]++;
+        }
+
+        // Slot holding hash, or -1
+        private int probe(long[] table, long hash) {
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                long value = table[slot];
+                if (value == hash) {
+                    return slot;
+                }
+                if (value == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private void expire(long now, long generationNanos) {
+            for (int rotations = 0; now - currentStart >= generationNanos && rotations < GENERATIONS; rotations++) {
+                rotate(currentStart + generationNanos);
+            }
+            if (now - currentStart >= generationNanos) {
+                // Idle for longer than every generation together - all of them were cleared above
+                currentStart = now;
+            }
+        }
+
+        // The generation after current is the oldest; it is cleared and becomes current
+        private void rotate(long start) {
+            current = (current + 1) % GENERATIONS;
+            if (sizes[current] > 0) {
+                Arrays.fill(tables[current], 0L);
+                sizes[current] = 0;
+            }
+            currentStart = start;
+        }
+
+        synchronized int size() {
+            int size = 0;
+            for (int generationSize : sizes) {
+                size += generationSize;
+            }
+            return size;
+        }
+
+        int tableLength() {
+            return mask + 1;
+        }
+    }
+}
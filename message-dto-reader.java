@@ -0,0 +1,153 @@
+package com.example.sqslistener.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming reader for MessageDto bodies.
+ *
+ * Walks the body with a JsonParser instead of going through ObjectMapper data binding:
+ * the scalar fields are read straight off the parser (whose char buffers Jackson recycles
+ * per thread), and metadata is not bound at all - its byte/char range in the body is kept
+ * as a RawJson and only turned into a Map when MessageDto.getMetadata() is called.
+ * Listeners that route on id/type/content therefore never build the metadata tree.
+ *
+ * Field handling matches the application ObjectMapper: unknown fields are skipped and
+ * timestamp goes through the mapper's JavaTimeModule deserializer.
+ */
+@Component
+public class MessageDtoReader {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader metadataReader;
+    // Null when constructed without a registry (benchmarks)
+    private final Timer deserializeTimer;
+
+    public MessageDtoReader(ObjectMapper objectMapper) {
+        this(objectMapper, (Timer) null);
+    }
+
+    @Autowired
+    public MessageDtoReader(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(objectMapper, Timer.builder("sqs.message.deserialize")
+                .description("MessageDto body parsing, metadata left deferred")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private MessageDtoReader(ObjectMapper objectMapper, Timer deserializeTimer) {
+        this.objectMapper = objectMapper;
+        this.metadataReader = objectMapper.readerFor(new TypeReference<Map<String, Object>>() { });
+        this.deserializeTimer = deserializeTimer;
+    }
+
+    /**
+     * Reads from the UTF-8 bytes of a body; deferred metadata references the array, so it must
+     * not be reused while the MessageDto is alive.
+     */
+    public MessageDto read(byte[] body) throws IOException {
+        long start = System.nanoTime();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return read(parser, body, null);
+        } finally {
+            record(start);
+        }
+    }
+
+    /**
+     * Reads from the body as delivered by SQS, without encoding it to bytes first.
+     */
+    public MessageDto read(String body) throws IOException {
+        long start = System.nanoTime();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return read(parser, null, body);
+        } finally {
+            record(start);
+        }
+    }
+
+    private void record(long start) {
+        if (deserializeTimer != null) {
+            deserializeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private MessageDto read(JsonParser parser, byte[] bytes, String text) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw MismatchedInputException.from(parser, MessageDto.class,
+                    "Expected JSON object for MessageDto but found " + parser.currentToken());
+        }
+
+        MessageDto message = new MessageDto();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id":
+                    message.setId(readString(parser, token));
+                    break;
+                case "type":
+                    message.setType(readString(parser, token));
+                    break;
+                case "content":
+                    message.setContent(readString(parser, token));
+                    break;
+                case "metadata":
+                    readMetadata(parser, token, message, bytes, text);
+                    break;
+                case "timestamp":
+                    message.setTimestamp(token == JsonToken.VALUE_NULL ? null
+                            : objectMapper.readValue(parser, LocalDateTime.class));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return message;
+    }
+
+    private String readString(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        // Numbers, booleans and the rare structured value: same coercion rules as data binding
+        return objectMapper.readValue(parser, String.class);
+    }
+
+    private void readMetadata(JsonParser parser, JsonToken token, MessageDto message,
+                              byte[] bytes, String text) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            message.setMetadata(token == JsonToken.VALUE_NULL ? null : metadataReader.readValue(parser));
+            return;
+        }
+
+        long start = bytes != null
+                ? parser.currentTokenLocation().getByteOffset()
+                : parser.currentTokenLocation().getCharOffset();
+        parser.skipChildren();
+        long end = bytes != null
+                ? parser.currentLocation().getByteOffset()
+                : parser.currentLocation().getCharOffset();
+
+        int length = (int) (end - start);
+        message.deferMetadata(bytes != null
+                ? RawJson.of(metadataReader, bytes, (int) start, length)
+                : RawJson.of(metadataReader, text, (int) start, length));
+    }
+}
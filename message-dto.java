@@ -1,16 +1,20 @@
 package com.example.sqslistener.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.Map;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class MessageDto {
     private String id;
@@ -18,6 +22,49 @@ public class MessageDto {
     private String content;
     private Map<String, Object> metadata;
     private LocalDateTime timestamp;
-    
+
+    // Set by MessageDtoReader: metadata stays as bytes of the body until getMetadata() is called
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient RawJson rawMetadata;
+
     // Add your custom fields based on your message structure
-}
\ No newline at end of file
+
+    public MessageDto(String id, String type, String content, Map<String, Object> metadata, LocalDateTime timestamp) {
+        this.id = id;
+        this.type = type;
+        this.content = content;
+        this.metadata = metadata;
+        this.timestamp = timestamp;
+    }
+
+    public Map<String, Object> getMetadata() {
+        if (rawMetadata != null) {
+            metadata = rawMetadata.read();
+            rawMetadata = null;
+        }
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+        this.rawMetadata = null;
+    }
+
+    /**
+     * True once metadata has been parsed (or was never deferred); lets callers log or route
+     * without forcing the parse.
+     */
+    @JsonIgnore
+    public boolean isMetadataMaterialized() {
+        return rawMetadata == null;
+    }
+
+    void deferMetadata(RawJson rawMetadata) {
+        this.metadata = null;
+        this.rawMetadata = rawMetadata;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.sqslistener.executor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/messagegroups - totals plus the most backlogged groups of the MessageGroupExecutor.
+ * Per-group numbers are served here rather than as meter tags to keep metric cardinality flat.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sqs.group-executor.enabled", havingValue = "true")
+@Endpoint(id = "messagegroups")
+public class MessageGroupEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final MessageGroupExecutor messageGroupExecutor;
+
+    @ReadOperation
+    public Map<String, Object> groups(@Nullable Integer limit) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("activeGroups", messageGroupExecutor.getActiveGroups());
+        body.put("inFlight", messageGroupExecutor.getInFlight());
+        body.put("backlog", messageGroupExecutor.getBacklog());
+        body.put("maxParallelGroups", messageGroupExecutor.getMaxParallelGroups());
+        body.put("maxPending", messageGroupExecutor.getMaxPending());
+        body.put("topGroups", messageGroupExecutor.topGroups(limit != null ? limit : DEFAULT_LIMIT));
+        return body;
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.sqslistener.executor;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keyed serial lanes for FIFO message groups.
+ *
+ * Tasks submitted with the same MessageGroupId run one after another in submission order;
+ * tasks of different groups run in parallel on a shared pool of max-parallel-groups threads.
+ * A lane only exists while its group has work, so thousands of idle user_${userId} groups
+ * cost nothing. submit() blocks once max-pending tasks are queued, which pushes back on the
+ * listener thread and therefore on the poller.
+ *
+ * A failed task stops its group: the tasks queued behind it are skipped (SkippedTaskException)
+ * rather than run and acknowledged ahead of the failed message's redelivery, and tasks of that
+ * group submitted within max-queue-time of the failed one (the rest of the same poll) are
+ * skipped as well. SQS then redelivers them in order. A task that waited longer than
+ * max-queue-time (keep it below the visibility timeout) counts as failed instead of running:
+ * its message may already be visible again and in another consumer's hands.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sqs.group-executor.enabled", havingValue = "true")
+public class MessageGroupExecutor {
+
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    // Group id -> System.nanoTime() until which its new tasks are skipped; written inside lanes.compute
+    private final ConcurrentHashMap<String, Long> failedGroups = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final Semaphore pendingPermits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final int maxParallelGroups;
+    private final int maxPending;
+    private final long maxQueueNanos;
+
+    public MessageGroupExecutor(@Value("${sqs.group-executor.max-parallel-groups:64}") int maxParallelGroups,
+                                @Value("${sqs.group-executor.max-pending:1000}") int maxPending,
+                                @Value("${sqs.group-executor.max-queue-time:20s}") Duration maxQueueTime,
+                                MeterRegistry meterRegistry) {
+        this.maxParallelGroups = maxParallelGroups;
+        this.maxPending = maxPending;
+        this.maxQueueNanos = maxQueueTime.toNanos();
+        this.workers = Executors.newFixedThreadPool(maxParallelGroups, workerThreadFactory());
+        this.pendingPermits = new Semaphore(maxPending);
+
+        Gauge.builder("sqs.group.executor.groups.active", lanes, ConcurrentHashMap::size)
+                .description("Message groups with queued or running work")
+                .register(meterRegistry);
+        Gauge.builder("sqs.group.executor.in.flight", inFlight, AtomicInteger::get)
+                .description("Tasks currently running (at most one per group)")
+                .register(meterRegistry);
+        Gauge.builder("sqs.group.executor.backlog", backlog, AtomicInteger::get)
+                .description("Tasks waiting behind an earlier task of the same group")
+                .register(meterRegistry);
+
+        log.info("Message group executor started: maxParallelGroups={}, maxPending={}, maxQueueTime={}",
+                maxParallelGroups, maxPending, maxQueueTime);
+    }
+
+    /**
+     * Runs the task after every earlier task of the same group has finished; completes
+     * exceptionally with SkippedTaskException if it was skipped (see above).
+     * A null groupId (standard queues) gets no ordering and only shares the parallelism limit.
+     */
+    public <T> CompletableFuture<T> submit(String groupId, Callable<T> callable) {
+        try {
+            pendingPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Task<T> task = new Task<>(callable);
+        if (groupId == null) {
+            backlog.incrementAndGet();
+            workers.execute(() -> {
+                backlog.decrementAndGet();
+                if (expired(task)) {
+                    skip(task, "waited longer than max-queue-time");
+                } else {
+                    runTask(task);
+                }
+            });
+            return task.future;
+        }
+
+        boolean[] schedule = new boolean[1];
+        boolean[] groupFailed = new boolean[1];
+        lanes.compute(groupId, (key, lane) -> {
+            if (lane == null) {
+                Long failedUntil = failedGroups.get(key);
+                if (failedUntil != null && task.submittedNanos - failedUntil < 0) {
+                    groupFailed[0] = true;
+                    return null;
+                }
+                failedGroups.remove(key);
+                lane = new Lane();
+            }
+            synchronized (lane) {
+                lane.tasks.add(task);
+                if (!lane.scheduled) {
+                    lane.scheduled = true;
+                    schedule[0] = true;
+                }
+            }
+            return lane;
+        });
+
+        if (groupFailed[0]) {
+            skip(task, "an earlier message of group " + groupId + " failed");
+            return task.future;
+        }
+        backlog.incrementAndGet();
+        if (schedule[0]) {
+            workers.execute(() -> drain(groupId));
+        }
+        return task.future;
+    }
+
+    /**
+     * Runs the next task of a lane, then hands the lane back to the pool so other groups
+     * get a turn between two tasks of a busy group. After a failure the lane's remaining
+     * tasks are skipped and the group is held for max-queue-time.
+     */
+    private void drain(String groupId) {
+        Task<?>[] next = new Task<?>[1];
+        lanes.computeIfPresent(groupId, (key, lane) -> {
+            synchronized (lane) {
+                next[0] = lane.tasks.poll();
+                lane.running = next[0] != null;
+            }
+            return lane;
+        });
+        if (next[0] == null) {
+            return;
+        }
+
+        backlog.decrementAndGet();
+        Task<?> task = next[0];
+        boolean succeeded;
+        if (expired(task)) {
+            skip(task, "waited longer than max-queue-time");
+            succeeded = false;
+        } else {
+            succeeded = runTask(task);
+        }
+
+        boolean[] reschedule = new boolean[1];
+        List<Task<?>> skipped = new ArrayList<>();
+        lanes.computeIfPresent(groupId, (key, lane) -> {
+            synchronized (lane) {
+                lane.running = false;
+                if (!succeeded) {
+                    skipped.addAll(lane.tasks);
+                    lane.tasks.clear();
+                    lane.scheduled = false;
+                    holdFailedGroup(key, task);
+                    return null;
+                }
+                if (lane.tasks.isEmpty()) {
+                    lane.scheduled = false;
+                    return null;
+                }
+            }
+            reschedule[0] = true;
+            return lane;
+        });
+
+        if (!skipped.isEmpty()) {
+            backlog.addAndGet(-skipped.size());
+            log.warn("Skipping {} queued messages of group {} behind a failed one", skipped.size(), groupId);
+            skipped.forEach(queued -> skip(queued, "an earlier message of group " + groupId + " failed"));
+        }
+        if (reschedule[0]) {
+            workers.execute(() -> drain(groupId));
+        }
+    }
+
+    // Called inside lanes.compute for the group, so no new lane can slip in before the hold
+    private void holdFailedGroup(String groupId, Task<?> failed) {
+        long now = System.nanoTime();
+        failedGroups.values().removeIf(until -> now - until >= 0);
+        failedGroups.put(groupId, failed.submittedNanos + maxQueueNanos);
+    }
+
+    private boolean expired(Task<?> task) {
+        return System.nanoTime() - task.submittedNanos > maxQueueNanos;
+    }
+
+    private void skip(Task<?> task, String reason) {
+        try {
+            task.future.completeExceptionally(new SkippedTaskException("Not processed: " + reason));
+        } finally {
+            pendingPermits.release();
+        }
+    }
+
+    private boolean runTask(Task<?> task) {
+        inFlight.incrementAndGet();
+        try {
+            return task.run();
+        } finally {
+            inFlight.decrementAndGet();
+            pendingPermits.release();
+        }
+    }
+
+    /**
+     * Point-in-time backlog per group, largest first.
+     */
+    public List<GroupStats> topGroups(int limit) {
+        List<GroupStats> stats = new ArrayList<>();
+        lanes.forEach((groupId, lane) -> {
+            int queued;
+            boolean running;
+            synchronized (lane) {
+                queued = lane.tasks.size();
+                running = lane.running;
+            }
+            stats.add(new GroupStats(groupId, queued, running ? 1 : 0));
+        });
+        stats.sort(Comparator.comparingInt(GroupStats::backlog).reversed());
+        return stats.size() > limit ? stats.subList(0, limit) : stats;
+    }
+
+    public int getActiveGroups() { return lanes.size(); }
+    public int getInFlight() { return inFlight.get(); }
+    public int getBacklog() { return backlog.get(); }
+    public int getMaxParallelGroups() { return maxParallelGroups; }
+    public int getMaxPending() { return maxPending; }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Message group executor did not drain within 30s, {} tasks still queued", backlog.get());
+            workers.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "msg-group-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public record GroupStats(String groupId, int backlog, int inFlight) {
+    }
+
+    /**
+     * The task was not run because an earlier task of its group failed or it waited too long;
+     * its message is left to SQS to redeliver in order.
+     */
+    public static class SkippedTaskException extends RuntimeException {
+        public SkippedTaskException(String message) {
+            super(message);
+        }
+    }
+
+    private static final class Task<T> {
+        private final Callable<T> callable;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long submittedNanos = System.nanoTime();
+
+        private Task(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        private boolean run() {
+            try {
+                future.complete(callable.call());
+                return true;
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                return false;
+            }
+        }
+    }
+
+    // Mutated inside ConcurrentHashMap.compute for its key; the monitor only makes topGroups() reads consistent
+    private static final class Lane {
+        private final ArrayDeque<Task<?>> tasks = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean running;
+    }
+}
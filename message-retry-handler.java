@@ -0,0 +1,251 @@
+package com.example.sqslistener.retry;
+
+import com.example.sqslistener.listener.MessageVisibilityService;
+import com.example.sqslistener.listener.VisibilityHeartbeat;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.acknowledgement.Acknowledgement;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies the RetryPolicy to a failed message instead of leaving it to the visibility timeout:
+ *
+ * - RETRY: the message's visibility is set to the policy's backoff with ChangeMessageVisibility,
+ *   so a transient failure is retried in about a second instead of 30. Each fast retry spends one
+ *   token of the listener's RetryBudget; when the budget is spent the message keeps its full
+ *   visibility timeout.
+ * - DEFER: a rate limit refused the work; the visibility is set to the policy's retry-after so
+ *   the message waits on the queue rather than in memory. Doesn't spend the retry budget.
+ * - DEAD_LETTER: the original body and attributes are sent to the dead-letter queue
+ *   (notifications-dlq.fifo) and the message is acknowledged. FailureReason and FailureType are
+ *   added in the room left by SQS's 10-attribute limit; those that don't fit are logged and
+ *   counted in sqs.retry.dead_letter.dropped.attributes.
+ *
+ * Budgets are per listener id; defaults under sqs.retry.budget.*, overrides under
+ * sqs.retry.budget.listeners.&lt;id&gt;.*.
+ */
+@Slf4j
+@Component
+public class MessageRetryHandler {
+
+    // SQS allows 10 message attributes per message
+    private static final int MAX_MESSAGE_ATTRIBUTES = 10;
+
+    private final RetryPolicy retryPolicy;
+    private final MessageVisibilityService messageVisibilityService;
+    private final ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat;
+    private final SqsAsyncClient sqsAsyncClient;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final String deadLetterQueue;
+    private final Map<String, ListenerRetries> listeners = new ConcurrentHashMap<>();
+    private final Counter droppedAttributes;
+    private volatile CompletableFuture<String> deadLetterQueueUrl;
+
+    public MessageRetryHandler(RetryPolicy retryPolicy,
+                               MessageVisibilityService messageVisibilityService,
+                               ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat,
+                               SqsAsyncClient sqsAsyncClient,
+                               MeterRegistry meterRegistry,
+                               Environment environment,
+                               @Value("${sqs.retry.dead-letter-queue:notifications-dlq.fifo}") String deadLetterQueue) {
+        this.retryPolicy = retryPolicy;
+        this.messageVisibilityService = messageVisibilityService;
+        this.visibilityHeartbeat = visibilityHeartbeat;
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.deadLetterQueue = deadLetterQueue;
+        this.droppedAttributes = Counter.builder("sqs.retry.dead_letter.dropped.attributes")
+                .description("Message attributes left off dead-lettered messages by the SQS attribute limit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refills the listener's retry budget; call after a message was processed successfully.
+     */
+    public void onSuccess(String listenerId) {
+        listener(listenerId).budget().recordSuccess();
+    }
+
+    /**
+     * Schedules the retry of, or dead-letters, a message whose processing threw. The returned
+     * future completes once the visibility change or dead-letter send and acknowledgement are
+     * done; it never completes exceptionally, failures are logged and leave the message to SQS.
+     */
+    public CompletableFuture<Void> onFailure(String listenerId, Message<?> message, Throwable failure,
+                                             Acknowledgement acknowledgement) {
+        ListenerRetries retries = listener(listenerId);
+        RetryPolicy.Decision decision = retryPolicy.decide(failure, receiveCount(message));
+        String messageId = messageId(message);
+        // Its visibility is decided here from now on
+        visibilityHeartbeat.ifAvailable(heartbeat -> heartbeat.release(message));
+
+        if (decision.action() == RetryPolicy.Action.DEAD_LETTER) {
+            retries.deadLettered().increment();
+            log.warn("Dead-lettering message {} from {}: {}", messageId, listenerId, decision.reason());
+            return deadLetter(message, failure, decision.reason())
+                    .thenCompose(sent -> acknowledgement.acknowledgeAsync())
+                    .handle((result, throwable) -> {
+                        if (throwable != null) {
+                            log.error("Failed to dead-letter message {}, leaving it to the redrive policy: {}",
+                                    messageId, throwable.getMessage());
+                        }
+                        return null;
+                    });
+        }
+
+        if (decision.action() == RetryPolicy.Action.DEFER) {
+            retries.deferred().increment();
+            log.debug("Deferring message {} from {} by {}s: {}", messageId, listenerId, decision.delaySeconds(), decision.reason());
+            return changeVisibility(message, messageId, decision.delaySeconds());
+        }
+
+        if (!retries.budget().tryAcquire()) {
+            retries.budgetExhausted().increment();
+            log.info("Retry budget of {} spent, message {} waits for its visibility timeout", listenerId, messageId);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        retries.retried().increment();
+        log.info("Retrying message {} from {} in {}s ({})", messageId, listenerId, decision.delaySeconds(), decision.reason());
+        return changeVisibility(message, messageId, decision.delaySeconds());
+    }
+
+    private CompletableFuture<Void> changeVisibility(Message<?> message, String messageId, int delaySeconds) {
+        return messageVisibilityService.changeVisibility(message, delaySeconds)
+                .handle((result, throwable) -> {
+                    if (throwable != null) {
+                        log.warn("Failed to set retry backoff for message {}: {}", messageId, throwable.getMessage());
+                    }
+                    return null;
+                });
+    }
+
+    private CompletableFuture<Void> deadLetter(Message<?> message, Throwable failure, String reason) {
+        software.amazon.awssdk.services.sqs.model.Message source = message.getHeaders()
+                .get(SqsHeaders.SQS_SOURCE_DATA_HEADER, software.amazon.awssdk.services.sqs.model.Message.class);
+        if (source == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No source SQS message in headers"));
+        }
+
+        // The original attributes first, then the failure details in the room that is left
+        Map<String, MessageAttributeValue> attributes = new LinkedHashMap<>(source.messageAttributes());
+        Map<String, MessageAttributeValue> failureAttributes = new LinkedHashMap<>();
+        failureAttributes.put("FailureReason", stringAttribute(reason));
+        failureAttributes.put("FailureType", stringAttribute(failure.getClass().getName()));
+        List<String> dropped = new ArrayList<>();
+        for (Map.Entry<String, MessageAttributeValue> entry : failureAttributes.entrySet()) {
+            if (attributes.size() < MAX_MESSAGE_ATTRIBUTES) {
+                attributes.put(entry.getKey(), entry.getValue());
+            } else {
+                dropped.add(entry.getKey() + "=" + entry.getValue().stringValue());
+            }
+        }
+        if (!dropped.isEmpty()) {
+            droppedAttributes.increment(dropped.size());
+            log.warn("Dead-lettered message {} already has {} attributes, not adding {}",
+                    source.messageId(), source.messageAttributes().size(), dropped);
+        }
+
+        String messageGroupId = message.getHeaders()
+                .get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER, String.class);
+
+        return deadLetterQueueUrl().thenCompose(queueUrl -> sqsAsyncClient.sendMessage(SendMessageRequest.builder()
+                        .queueUrl(queueUrl)
+                        .messageBody(source.body())
+                        .messageAttributes(attributes)
+                        // The DLQ is FIFO: keep the original group, and dedupe re-sends of the same message
+                        .messageGroupId(messageGroupId != null ? messageGroupId : source.messageId())
+                        .messageDeduplicationId(source.messageId())
+                        .build()))
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<String> deadLetterQueueUrl() {
+        CompletableFuture<String> url = deadLetterQueueUrl;
+        if (url == null || url.isCompletedExceptionally()) {
+            url = sqsAsyncClient.getQueueUrl(GetQueueUrlRequest.builder().queueName(deadLetterQueue).build())
+                    .thenApply(response -> response.queueUrl());
+            deadLetterQueueUrl = url;
+        }
+        return url;
+    }
+
+    private ListenerRetries listener(String listenerId) {
+        return listeners.computeIfAbsent(listenerId, this::newListener);
+    }
+
+    private ListenerRetries newListener(String listenerId) {
+        String prefix = "sqs.retry.budget.listeners." + listenerId + ".";
+        double ratio = property(prefix + "ratio", "sqs.retry.budget.ratio", 0.2);
+        double minPerSecond = property(prefix + "min-per-second", "sqs.retry.budget.min-per-second", 1.0);
+        int maxTokens = (int) property(prefix + "max-tokens", "sqs.retry.budget.max-tokens", 100);
+        RetryBudget budget = new RetryBudget(ratio, minPerSecond, maxTokens);
+
+        Gauge.builder("sqs.retry.budget.available", budget, RetryBudget::available)
+                .description("Fast retries the listener may still spend")
+                .tag("listener", listenerId)
+                .register(meterRegistry);
+        log.info("Retry budget for {}: ratio={}, minPerSecond={}, maxTokens={}", listenerId, ratio, minPerSecond, maxTokens);
+        return new ListenerRetries(budget,
+                counter(listenerId, "retry"), counter(listenerId, "defer"), counter(listenerId, "dead_letter"),
+                counter(listenerId, "budget_exhausted"));
+    }
+
+    private double property(String key, String defaultKey, double defaultValue) {
+        return environment.getProperty(key, Double.class,
+                environment.getProperty(defaultKey, Double.class, defaultValue));
+    }
+
+    private Counter counter(String listenerId, String outcome) {
+        return Counter.builder("sqs.retry.decisions")
+                .description("Failed messages by retry outcome")
+                .tag("listener", listenerId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static int receiveCount(Message<?> message) {
+        String receiveCount = message.getHeaders()
+                .get(SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT, String.class);
+        try {
+            return receiveCount != null ? Integer.parseInt(receiveCount) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    // The SQS MessageId, as logged by the listeners; the Spring id only if the source is missing
+    private static String messageId(Message<?> message) {
+        software.amazon.awssdk.services.sqs.model.Message source = message.getHeaders()
+                .get(SqsHeaders.SQS_SOURCE_DATA_HEADER, software.amazon.awssdk.services.sqs.model.Message.class);
+        return source != null ? source.messageId() : String.valueOf(message.getHeaders().getId());
+    }
+
+    private static MessageAttributeValue stringAttribute(String value) {
+        return MessageAttributeValue.builder().dataType("String").stringValue(value).build();
+    }
+
+    private record ListenerRetries(RetryBudget budget, Counter retried, Counter deferred, Counter deadLettered,
+                                   Counter budgetExhausted) {
+    }
+}
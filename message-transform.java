@@ -0,0 +1,211 @@
+package com.example.sqslistener.router;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns one canonical message into the variant a route's platform accepts. Compiled once per
+ * route when the routing table is built, from the domain governance and the route's schema:
+ *
+ * - field mapping: governance "map.<canonical field>" = "<platform field>", e.g. map.title=subject
+ * - truncation: governance "max_<platform field>_length", e.g. max_title_length=25; the text is
+ *   cut at a character boundary and ends with an ellipsis
+ * - defaults for required fields the message lacks: the schema's "default" keyword, or
+ *   governance "default.<platform field>"
+ * - projection: if the schema rejects additional properties, fields it doesn't declare are
+ *   dropped instead of failing validation
+ *
+ * apply() first checks whether any rule fires and returns the message itself when none does,
+ * so routes whose message already fits cost a few map lookups and no allocation. Otherwise it
+ * writes the variant straight into one presized HashMap.
+ */
+final class MessageTransform {
+    static final MessageTransform IDENTITY = new MessageTransform(new String[0], new String[0], new int[0],
+            new Object[0], null, Set.of());
+
+    private static final Pattern MAX_LENGTH_KEY = Pattern.compile("max_(.+)_length");
+    private static final String MAP_PREFIX = "map.";
+    private static final String DEFAULT_PREFIX = "default.";
+    private static final String ELLIPSIS = "…";
+
+    // One rule per platform field: read sources[i] from the message, write targets[i]
+    private final String[] sources;
+    private final String[] targets;
+    private final int[] maxLengths;
+    private final Object[] defaults;
+    // Non-null when only declared fields may be sent
+    private final Set<String> declared;
+    // Canonical fields that are renamed, so they aren't also copied under their own name
+    private final Set<String> renamedSources;
+
+    private MessageTransform(String[] sources, String[] targets, int[] maxLengths, Object[] defaults,
+                             Set<String> declared, Set<String> renamedSources) {
+        this.sources = sources;
+        this.targets = targets;
+        this.maxLengths = maxLengths;
+        this.defaults = defaults;
+        this.declared = declared;
+        this.renamedSources = renamedSources;
+    }
+
+    static MessageTransform compile(Domain domain, CompiledSchema schema) {
+        Map<String, String> governance = domain == null ? Map.of() : domain.getGovernance();
+        Map<String, String> sourceByTarget = new HashMap<>();
+        Map<String, Integer> maxLengthByTarget = new HashMap<>();
+        Map<String, Object> defaultByTarget = new HashMap<>();
+
+        for (Map.Entry<String, String> entry : governance.entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(MAP_PREFIX)) {
+                sourceByTarget.put(entry.getValue(), key.substring(MAP_PREFIX.length()));
+            } else if (key.startsWith(DEFAULT_PREFIX)) {
+                defaultByTarget.put(key.substring(DEFAULT_PREFIX.length()), entry.getValue());
+            } else {
+                Matcher matcher = MAX_LENGTH_KEY.matcher(key);
+                if (matcher.matches()) {
+                    try {
+                        maxLengthByTarget.put(matcher.group(1), Integer.parseInt(entry.getValue().trim()));
+                    } catch (NumberFormatException e) {
+                        System.err.println("Ignoring governance " + key + "=" + entry.getValue()
+                            + " of domain " + domain.getId() + ": not a number");
+                    }
+                }
+            }
+        }
+
+        // Platform fields with a rule: every schema property, plus anything governance mentions
+        Set<String> targetFields = new LinkedHashSet<>();
+        Set<String> declared = null;
+        if (schema != null) {
+            for (CompiledProperty property : schema.getProperties()) {
+                targetFields.add(property.getName());
+                if (property.getDefaultValue() != null && property.isRequired()) {
+                    defaultByTarget.putIfAbsent(property.getName(), property.getDefaultValue());
+                }
+            }
+            if (schema.rejectsAdditionalProperties()) {
+                declared = new HashSet<>(targetFields);
+            }
+        }
+        targetFields.addAll(sourceByTarget.keySet());
+        targetFields.addAll(maxLengthByTarget.keySet());
+        targetFields.addAll(defaultByTarget.keySet());
+
+        List<String> sources = new ArrayList<>();
+        List<String> targets = new ArrayList<>();
+        List<Integer> maxLengths = new ArrayList<>();
+        List<Object> defaults = new ArrayList<>();
+        Set<String> renamedSources = new HashSet<>();
+        for (String target : targetFields) {
+            String source = sourceByTarget.getOrDefault(target, target);
+            Integer maxLength = maxLengthByTarget.get(target);
+            Object defaultValue = defaultByTarget.get(target);
+            boolean renamed = !source.equals(target);
+            // Plain pass-through fields need no rule unless projection has to keep them
+            if (!renamed && maxLength == null && defaultValue == null && declared == null) {
+                continue;
+            }
+            if (renamed) {
+                renamedSources.add(source);
+            }
+            sources.add(source);
+            targets.add(target);
+            maxLengths.add(maxLength == null ? -1 : maxLength);
+            defaults.add(defaultValue);
+        }
+
+        if (sources.isEmpty() && declared == null) {
+            return IDENTITY;
+        }
+        int[] limits = new int[maxLengths.size()];
+        for (int i = 0; i < limits.length; i++) {
+            limits[i] = maxLengths.get(i);
+        }
+        return new MessageTransform(sources.toArray(new String[0]), targets.toArray(new String[0]), limits,
+                defaults.toArray(), declared, Set.copyOf(renamedSources));
+    }
+
+    /**
+     * The route's variant of the message; the message itself if no rule changes anything.
+     * The canonical message is never modified.
+     */
+    Map<String, Object> apply(Map<String, Object> message) {
+        if (!changes(message)) {
+            return message;
+        }
+
+        Map<String, Object> variant = new HashMap<>((int) ((message.size() + defaults.length) / 0.75f) + 1);
+        if (declared == null) {
+            for (Map.Entry<String, Object> entry : message.entrySet()) {
+                if (!renamedSources.contains(entry.getKey())) {
+                    variant.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (int i = 0; i < sources.length; i++) {
+            Object value = message.get(sources[i]);
+            if (value == null) {
+                value = defaults[i];
+            } else if (maxLengths[i] >= 0 && value instanceof String) {
+                value = truncate((String) value, maxLengths[i]);
+            }
+            if (value != null) {
+                variant.put(targets[i], value);
+            }
+        }
+        return variant;
+    }
+
+    private boolean changes(Map<String, Object> message) {
+        int kept = 0;
+        for (int i = 0; i < sources.length; i++) {
+            Object value = message.get(sources[i]);
+            if (value == null) {
+                if (defaults[i] != null) {
+                    return true;
+                }
+                continue;
+            }
+            if (!sources[i].equals(targets[i])) {
+                return true;
+            }
+            if (maxLengths[i] >= 0 && value instanceof String && ((String) value).length() > maxLengths[i]) {
+                return true;
+            }
+            kept++;
+        }
+        // Projection: anything beyond the declared fields present has to go
+        return declared != null && message.size() > kept && hasUndeclared(message);
+    }
+
+    private boolean hasUndeclared(Map<String, Object> message) {
+        for (Map.Entry<String, Object> entry : message.entrySet()) {
+            if (entry.getValue() != null && !declared.contains(entry.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String truncate(String value, int maxLength) {
+        if (value.length() <= maxLength) {
+            return value;
+        }
+        if (maxLength <= 1) {
+            return value.substring(0, Math.max(0, maxLength));
+        }
+        int end = maxLength - 1;
+        // Don't split a surrogate pair
+        if (Character.isHighSurrogate(value.charAt(end - 1))) {
+            end--;
+        }
+        return value.substring(0, end) + ELLIPSIS;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.sqslistener.listener;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Changes the visibility of several received messages with ChangeMessageVisibilityBatch
+ * instead of one ChangeMessageVisibility call per message.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageVisibilityService {
+
+    // SQS accepts at most 10 entries per batch request
+    private static final int MAX_BATCH_ENTRIES = 10;
+
+    private final SqsAsyncClient sqsAsyncClient;
+
+    /**
+     * Sets the visibility timeout of all given messages, grouped per queue and chunked
+     * into batches of 10. Entries SQS rejects are logged; the future only fails when a
+     * whole batch call fails.
+     */
+    public CompletableFuture<Void> changeVisibility(Collection<? extends Message<?>> messages, int visibilitySeconds) {
+        Map<String, List<String>> receiptHandlesByQueue = new LinkedHashMap<>();
+        for (Message<?> message : messages) {
+            String queueUrl = message.getHeaders().get(SqsHeaders.SQS_QUEUE_URL_HEADER, String.class);
+            String receiptHandle = message.getHeaders().get(SqsHeaders.SQS_RECEIPT_HANDLE_HEADER, String.class);
+            if (queueUrl == null || receiptHandle == null) {
+                log.warn("Skipping visibility change for message without queue URL or receipt handle: {}",
+                        message.getHeaders().getId());
+                continue;
+            }
+            receiptHandlesByQueue.computeIfAbsent(queueUrl, url -> new ArrayList<>()).add(receiptHandle);
+        }
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        receiptHandlesByQueue.forEach((queueUrl, receiptHandles) -> {
+            for (int from = 0; from < receiptHandles.size(); from += MAX_BATCH_ENTRIES) {
+                List<String> chunk = receiptHandles.subList(from, Math.min(from + MAX_BATCH_ENTRIES, receiptHandles.size()));
+                calls.add(changeVisibilityBatch(queueUrl, chunk, visibilitySeconds));
+            }
+        });
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Sets the visibility timeout of a single message, for per-message delays such as a retry backoff.
+     */
+    public CompletableFuture<Void> changeVisibility(Message<?> message, int visibilitySeconds) {
+        String queueUrl = message.getHeaders().get(SqsHeaders.SQS_QUEUE_URL_HEADER, String.class);
+        String receiptHandle = message.getHeaders().get(SqsHeaders.SQS_RECEIPT_HANDLE_HEADER, String.class);
+        if (queueUrl == null || receiptHandle == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Message " + message.getHeaders().getId() + " has no queue URL or receipt handle"));
+        }
+
+        return sqsAsyncClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                        .queueUrl(queueUrl)
+                        .receiptHandle(receiptHandle)
+                        .visibilityTimeout(visibilitySeconds)
+                        .build())
+                .thenApply(response -> null);
+    }
+
+    private CompletableFuture<Void> changeVisibilityBatch(String queueUrl, List<String> receiptHandles, int visibilitySeconds) {
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(receiptHandles.size());
+        for (int i = 0; i < receiptHandles.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(receiptHandles.get(i))
+                    .visibilityTimeout(visibilitySeconds)
+                    .build());
+        }
+
+        ChangeMessageVisibilityBatchRequest request = ChangeMessageVisibilityBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build();
+
+        return sqsAsyncClient.changeMessageVisibilityBatch(request)
+                .thenAccept(response -> response.failed().forEach(failed ->
+                        log.warn("Visibility change rejected for entry {} on {}: {} ({})",
+                                failed.id(), queueUrl, failed.message(), failed.code())));
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.sqslistener.router;
+
+import com.example.sqslistener.metrics.NotificationRates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RouterMetrics on Micrometer.
+ *
+ * Meters are registered on first use of a schema, route or capability and then looked up by id
+ * in a ConcurrentHashMap, so the hot path is a map read and a counter/timer update - no tag
+ * lists, no registry lookups. Micrometer counters are DoubleAdder-backed, i.e. striped, so
+ * concurrent fan-out workers bumping the same route don't contend on one cache line.
+ *
+ * Meters: notifications.route.resolution{outcome}, notifications.schema.validation{schema,outcome},
+ * notifications.requests{capability,outcome}, notifications.deliveries{route,domain,platform,outcome},
+ * notifications.rate.limited{domain,outcome}.
+ */
+@Component
+public class MicrometerRouterMetrics implements RouterMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final NotificationRates rates;
+    private final Timer routeFound;
+    private final Timer routeMissing;
+    private final Map<String, Timer[]> validationTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> requestCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> deliveryCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> rateLimitCounters = new ConcurrentHashMap<>();
+
+    public MicrometerRouterMetrics(MeterRegistry meterRegistry, NotificationRates rates) {
+        this.meterRegistry = meterRegistry;
+        this.rates = rates;
+        this.routeFound = routeTimer("found");
+        this.routeMissing = routeTimer("missing");
+    }
+
+    @Override
+    public void requestCompleted(String capabilityId, boolean accepted) {
+        Counter[] counters = requestCounters.get(capabilityId);
+        if (counters == null) {
+            counters = requestCounters.computeIfAbsent(capabilityId, this::newRequestCounters);
+        }
+        counters[accepted ? 0 : 1].increment();
+    }
+
+    @Override
+    public void routeResolved(long nanos, boolean found) {
+        (found ? routeFound : routeMissing).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void validated(String schemaId, long nanos, boolean valid) {
+        Timer[] timers = validationTimers.get(schemaId);
+        if (timers == null) {
+            timers = validationTimers.computeIfAbsent(schemaId, this::newValidationTimers);
+        }
+        timers[valid ? 0 : 1].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void delivered(ResolvedRoute route, int succeeded, int failed) {
+        String routeId = route.getRoute().getId();
+        Counter[] counters = deliveryCounters.get(routeId);
+        if (counters == null) {
+            counters = deliveryCounters.computeIfAbsent(routeId, id -> newDeliveryCounters(route));
+        }
+        if (succeeded > 0) {
+            counters[0].increment(succeeded);
+        }
+        if (failed > 0) {
+            counters[1].increment(failed);
+        }
+        rates.recordDelivered(succeeded);
+        rates.recordFailed(failed);
+    }
+
+    @Override
+    public void rateLimited(String domainId, boolean deferred) {
+        Counter[] counters = rateLimitCounters.get(domainId);
+        if (counters == null) {
+            counters = rateLimitCounters.computeIfAbsent(domainId, this::newRateLimitCounters);
+        }
+        counters[deferred ? 1 : 0].increment();
+    }
+
+    private Timer routeTimer(String outcome) {
+        return Timer.builder("notifications.route.resolution")
+                .description("Routing table lookups of (capability, route)")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Timer[] newValidationTimers(String schemaId) {
+        return new Timer[] { validationTimer(schemaId, "valid"), validationTimer(schemaId, "invalid") };
+    }
+
+    private Timer validationTimer(String schemaId, String outcome) {
+        return Timer.builder("notifications.schema.validation")
+                .description("SchemaValidator.validate per schema")
+                .tag("schema", schemaId)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter[] newRequestCounters(String capabilityId) {
+        return new Counter[] { requestCounter(capabilityId, "accepted"), requestCounter(capabilityId, "rejected") };
+    }
+
+    private Counter requestCounter(String capabilityId, String outcome) {
+        return Counter.builder("notifications.requests")
+                .description("Notification requests by capability")
+                .tag("capability", capabilityId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter[] newRateLimitCounters(String domainId) {
+        return new Counter[] { rateLimitCounter(domainId, "delayed"), rateLimitCounter(domainId, "deferred") };
+    }
+
+    private Counter rateLimitCounter(String domainId, String outcome) {
+        return Counter.builder("notifications.rate.limited")
+                .description("Delivery chunks delayed, and requests deferred to the queue, by domain rate limits")
+                .tag("domain", domainId)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Counter[] newDeliveryCounters(ResolvedRoute route) {
+        return new Counter[] { deliveryCounter(route, "delivered"), deliveryCounter(route, "failed") };
+    }
+
+    private Counter deliveryCounter(ResolvedRoute route, String outcome) {
+        Domain domain = route.getDomain();
+        return Counter.builder("notifications.deliveries")
+                .description("Recipient deliveries by route and domain")
+                .tag("route", route.getRoute().getId())
+                .tag("domain", domain == null ? "unknown" : domain.getId())
+                .tag("platform", domain == null ? "unknown" : domain.getPlatformType())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.sqslistener.router;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a NotificationPlatform in sync with the registry collections in MongoDB, so onboarding
+ * a domain, schema, route or capability is a document write instead of a redeploy.
+ *
+ *   domains          { domain_id, owner_team, platform_type, governance: {...}, status, updated_at }
+ *   message_schemas  { schema_id, domain_id, version, json_schema: {...}, status, updated_at }
+ *   routes           { route_id, domain_id, schema_id, status, updated_at }
+ *   capabilities     { capability_name, description, supported_routes: [...], status, updated_at }
+ *
+ * Reloads are incremental: each poll only reads documents whose updated_at is at or after the
+ * last one seen per collection, and the whole batch is applied with one routing-table swap.
+ * Only new schema versions are compiled (NotificationPlatform.applyChanges). Setting status to
+ * anything but "active" retires an entry; hard deletes are picked up by the periodic full
+ * resync. With watch enabled a change stream on the four collections (replica set required)
+ * triggers a reload as soon as something is written; polling stays on as the fallback.
+ */
+final class MongoRouteRegistry implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(MongoRouteRegistry.class);
+
+    static final String DOMAINS = "domains";
+    static final String SCHEMAS = "message_schemas";
+    static final String ROUTES = "routes";
+    static final String CAPABILITIES = "capabilities";
+    private static final List<String> COLLECTIONS = List.of(DOMAINS, SCHEMAS, ROUTES, CAPABILITIES);
+
+    private final MongoTemplate mongoTemplate;
+    private final NotificationPlatform platform;
+    private final Duration pollInterval;
+    private final Duration fullResyncInterval;
+    private final boolean watch;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+
+    // Reload state, only touched by reload() (synchronized)
+    private final Map<String, Date> watermarks = new HashMap<>();
+    private final Map<String, Set<String>> idsAtWatermark = new HashMap<>();
+    private long lastFullResync;
+
+    private volatile boolean closed;
+    private volatile MongoCursor<ChangeStreamDocument<Document>> changeStream;
+
+    MongoRouteRegistry(MongoTemplate mongoTemplate, NotificationPlatform platform, Duration pollInterval,
+                       Duration fullResyncInterval, boolean watch) {
+        this.mongoTemplate = mongoTemplate;
+        this.platform = platform;
+        this.pollInterval = pollInterval;
+        this.fullResyncInterval = fullResyncInterval;
+        this.watch = watch;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "route-registry-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the full registry on the calling thread, so the platform can route as soon as this
+     * returns, then starts polling (and watching).
+     */
+    void start() {
+        reload(true);
+        long pollMillis = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::reloadSafely, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        if (watch) {
+            Thread watcher = new Thread(this::watchChanges, "route-registry-watch");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    private void reloadSafely() {
+        try {
+            reload(System.nanoTime() - lastFullResync >= fullResyncInterval.toNanos());
+        } catch (RuntimeException e) {
+            // Keep serving the current routing table; the next poll retries
+            log.warn("Route registry reload failed: {}", e.getMessage());
+        }
+    }
+
+    synchronized void reload(boolean full) {
+        RegistryChanges changes = new RegistryChanges(full);
+
+        for (Document document : changedDocuments(DOMAINS, full)) {
+            String id = document.getString("domain_id");
+            if (isActive(document)) {
+                Map<String, String> governance = new HashMap<>();
+                Document governanceDocument = document.get("governance", Document.class);
+                if (governanceDocument != null) {
+                    governanceDocument.forEach((key, value) -> governance.put(key, String.valueOf(value)));
+                }
+                changes.put(new Domain(id, document.getString("owner_team"), document.getString("platform_type"),
+                        governance));
+            } else if (!full) {
+                changes.removeDomain(id);
+            }
+        }
+        for (Document document : changedDocuments(SCHEMAS, full)) {
+            String id = document.getString("schema_id");
+            Document jsonSchema = document.get("json_schema", Document.class);
+            if (isActive(document) && jsonSchema != null) {
+                changes.put(new SchemaDocument(id, document.getString("domain_id"),
+                        String.valueOf(document.get("version")), jsonSchema.toJson()));
+            } else if (!full) {
+                changes.removeSchema(id);
+            }
+        }
+        for (Document document : changedDocuments(ROUTES, full)) {
+            String id = document.getString("route_id");
+            if (isActive(document)) {
+                changes.put(new Route(id, document.getString("domain_id"), document.getString("schema_id")));
+            } else if (!full) {
+                changes.removeRoute(id);
+            }
+        }
+        for (Document document : changedDocuments(CAPABILITIES, full)) {
+            String id = document.getString("capability_name");
+            if (isActive(document)) {
+                Capability capability = new Capability(id, document.getString("description"));
+                for (String route : document.getList("supported_routes", String.class, Collections.emptyList())) {
+                    capability.addRoute(route);
+                }
+                changes.put(capability);
+            } else if (!full) {
+                changes.removeCapability(id);
+            }
+        }
+
+        if (full) {
+            lastFullResync = System.nanoTime();
+        }
+        if (!changes.isEmpty()) {
+            platform.applyChanges(changes);
+            log.info("Route registry reloaded: {}", changes);
+        }
+    }
+
+    /**
+     * Documents of the collection updated at or after its watermark, oldest first. Documents
+     * sharing the watermark timestamp that were already applied are skipped, so a write landing
+     * in the same millisecond as the previous poll is neither lost nor applied twice.
+     */
+    private List<Document> changedDocuments(String collection, boolean full) {
+        Date watermark = full ? null : watermarks.get(collection);
+        Query query = watermark == null
+                ? new Query()
+                : new Query(Criteria.where("updated_at").gte(watermark));
+        query.with(Sort.by(Sort.Direction.ASC, "updated_at"));
+        List<Document> documents = mongoTemplate.find(query, Document.class, collection);
+
+        Set<String> alreadyApplied = watermark == null
+                ? Collections.emptySet()
+                : idsAtWatermark.getOrDefault(collection, Collections.emptySet());
+        Date latest = watermarks.get(collection);
+        Set<String> atLatest = new HashSet<>(alreadyApplied);
+        documents.removeIf(document -> watermark != null
+                && watermark.equals(document.getDate("updated_at"))
+                && alreadyApplied.contains(document.getObjectId("_id").toHexString()));
+
+        for (Document document : documents) {
+            Date updatedAt = document.getDate("updated_at");
+            if (updatedAt == null) {
+                continue;
+            }
+            if (latest == null || updatedAt.after(latest)) {
+                latest = updatedAt;
+                atLatest.clear();
+            }
+            if (updatedAt.equals(latest)) {
+                atLatest.add(document.getObjectId("_id").toHexString());
+            }
+        }
+        if (latest != null) {
+            watermarks.put(collection, latest);
+            idsAtWatermark.put(collection, atLatest);
+        }
+        return documents;
+    }
+
+    private static boolean isActive(Document document) {
+        return "active".equals(document.getString("status"));
+    }
+
+    private void watchChanges() {
+        try (MongoCursor<ChangeStreamDocument<Document>> cursor = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", COLLECTIONS))))
+                .iterator()) {
+            changeStream = cursor;
+            while (!closed) {
+                cursor.next();
+                requestReload();
+            }
+        } catch (MongoException | IllegalStateException e) {
+            if (!closed) {
+                log.warn("Route registry change stream stopped, polling every {} only: {}", pollInterval, e.getMessage());
+            }
+        }
+    }
+
+    // Coalesces a burst of change events into one reload
+    private void requestReload() {
+        if (reloadQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                reloadQueued.set(false);
+                reloadSafely();
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        MongoCursor<ChangeStreamDocument<Document>> cursor = changeStream;
+        if (cursor != null) {
+            cursor.close();
+        }
+        scheduler.shutdownNow();
+    }
+}
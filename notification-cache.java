@@ -0,0 +1,95 @@
+package com.example.sqslistener.notification;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache with a time-to-live, split into 16 independently locked segments so
+ * listener threads looking up different notifications don't serialise on one lock.
+ *
+ * Each segment is an access-ordered LinkedHashMap capped at maxEntries/16; the least recently
+ * used entry is evicted on overflow and an entry older than ttl is treated as missing.
+ */
+class NotificationCache {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlNanos;
+
+    NotificationCache(int maxEntries, long ttlNanos) {
+        this.ttlNanos = ttlNanos;
+        int perSegment = Math.max(1, maxEntries / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    NotificationDocument get(String id) {
+        return segmentFor(id).get(id, System.nanoTime());
+    }
+
+    void put(String id, NotificationDocument document) {
+        segmentFor(id).put(id, new Entry(document, System.nanoTime() + ttlNanos));
+    }
+
+    void invalidate(String id) {
+        segmentFor(id).evict(id);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment segmentFor(String id) {
+        int h = id.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private record Entry(NotificationDocument document, long expiresAt) {
+    }
+
+    private static final class Segment extends LinkedHashMap<String, Entry> {
+        private final int maxEntries;
+
+        private Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized NotificationDocument get(String id, long now) {
+            Entry entry = super.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt() >= 0) {
+                super.remove(id);
+                return null;
+            }
+            return entry.document();
+        }
+
+        @Override
+        public synchronized Entry put(String id, Entry entry) {
+            return super.put(id, entry);
+        }
+
+        synchronized void evict(String id) {
+            super.remove(id);
+        }
+
+        @Override
+        public synchronized int size() {
+            return super.size();
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.sqslistener.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/notifications - one JSON document with everything the real-time dashboard panels
+ * poll every few seconds: notifications per second (current, peak, 60s series), 5-minute error
+ * rate, queue depth per channel, queue-to-ack latency percentiles, SQS ReceiveMessage call time
+ * (a long poll, so mostly time spent waiting for messages when the queue is quiet), EventBridge
+ * publish latency, and delivery totals per route.
+ *
+ * Everything is read from meters and rolling windows that are already maintained; a request
+ * computes nothing on the hot path.
+ */
+@Component
+@Endpoint(id = "notifications")
+public class NotificationDashboardEndpoint {
+
+    private final MeterRegistry meterRegistry;
+    private final NotificationRates rates;
+    private final QueueDepthMonitor queueDepthMonitor;
+
+    public NotificationDashboardEndpoint(MeterRegistry meterRegistry, NotificationRates rates,
+                                         QueueDepthMonitor queueDepthMonitor) {
+        this.meterRegistry = meterRegistry;
+        this.rates = rates;
+        this.queueDepthMonitor = queueDepthMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> dashboard() {
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        dashboard.put("notificationsPerSecond", rates.notificationsPerSecond());
+        dashboard.put("errorRate", rates.errorRate());
+        dashboard.put("queueDepthByChannel", queueDepthMonitor.depths());
+        dashboard.put("queueToAck", timerSummary(meterRegistry.find("sqs.message.age.at.ack").timer()));
+        dashboard.put("receiveMessageCallTime", timerSummary(meterRegistry.find("aws.sdk.call")
+                .tag("operation", "ReceiveMessage").tag("outcome", "success").timer()));
+        dashboard.put("publishLatency", timerSummary(meterRegistry.find("eventbridge.publisher.latency").timer()));
+        dashboard.put("deliveriesByRoute", deliveriesByRoute());
+        return dashboard;
+    }
+
+    private Map<String, Map<String, Double>> deliveriesByRoute() {
+        Map<String, Map<String, Double>> byRoute = new TreeMap<>();
+        for (Counter counter : meterRegistry.find("notifications.deliveries").counters()) {
+            byRoute.computeIfAbsent(counter.getId().getTag("route"), route -> new TreeMap<>())
+                    .merge(counter.getId().getTag("outcome"), counter.count(), Double::sum);
+        }
+        return byRoute;
+    }
+
+    private static Map<String, Object> timerSummary(Timer timer) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        if (timer == null) {
+            return summary;
+        }
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        summary.put("count", snapshot.count());
+        summary.put("meanMs", snapshot.mean(TimeUnit.MILLISECONDS));
+        summary.put("maxMs", snapshot.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return summary;
+    }
+}
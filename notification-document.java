@@ -0,0 +1,75 @@
+package com.example.sqslistener.notification;
+
+import lombok.Value;
+import org.bson.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The routing view of a stored notification (notifications collection, see NP): only the fields
+ * the router needs to resolve, validate and fan out - sender, stats and retry bookkeeping are
+ * not fetched. Immutable, so one cached instance is shared by every recipient and listener thread.
+ */
+@Value
+public class NotificationDocument {
+
+    // Projection used by NotificationLoader; keep in sync with from()
+    static final String[] ROUTING_FIELDS = {
+            "notification_id", "capability", "priority", "status", "expires_at", "recipients.id", "payload"
+    };
+
+    String notificationId;
+    String capability;
+    String priority;
+    String status;
+    Instant expiresAt;
+    List<String> recipientIds;
+    List<Payload> payloads;
+
+    @Value
+    public static class Payload {
+        String route;
+        Map<String, Object> message;
+        Map<String, Object> metadata;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+
+    static NotificationDocument from(Document document) {
+        List<String> recipientIds = new ArrayList<>();
+        for (Document recipient : document.getList("recipients", Document.class, Collections.emptyList())) {
+            String id = recipient.getString("id");
+            if (id != null) {
+                recipientIds.add(id);
+            }
+        }
+
+        List<Payload> payloads = new ArrayList<>();
+        for (Document payload : document.getList("payload", Document.class, Collections.emptyList())) {
+            payloads.add(new Payload(payload.getString("route"),
+                    unmodifiable(payload.get("message", Document.class)),
+                    unmodifiable(payload.get("metadata", Document.class))));
+        }
+
+        Date expiresAt = document.getDate("expires_at");
+        return new NotificationDocument(
+                document.getString("notification_id"),
+                document.getString("capability"),
+                document.getString("priority"),
+                document.getString("status"),
+                expiresAt == null ? null : expiresAt.toInstant(),
+                List.copyOf(recipientIds),
+                List.copyOf(payloads));
+    }
+
+    private static Map<String, Object> unmodifiable(Document document) {
+        return document == null ? Collections.emptyMap() : Collections.unmodifiableMap(document);
+    }
+}
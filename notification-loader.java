@@ -0,0 +1,262 @@
+package com.example.sqslistener.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads stored notifications by notification_id for the router, which only receives the id
+ * from SQS.
+ *
+ * - A bounded LRU/TTL cache sits in front, so a broadcast document read for one recipient
+ *   batch is reused by the next.
+ * - Misses are coalesced: loadAll() fetches a whole poll batch with one $in query, and
+ *   concurrent load() calls from listener threads are collected for up to linger (or
+ *   max-batch ids) and fetched together. An id already being fetched is never queried twice.
+ * - Only the routing fields are projected (see NotificationDocument).
+ *
+ * Enable with notifications.store.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "notifications.store.enabled", havingValue = "true")
+public class NotificationLoader {
+
+    private final MongoTemplate mongoTemplate;
+    private final String collection;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final NotificationCache cache;
+
+    private final Map<String, CompletableFuture<NotificationDocument>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService queryExecutor;
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer queryTimer;
+    private final DistributionSummary queryBatchSize;
+
+    public NotificationLoader(MongoTemplate mongoTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${notifications.store.collection:notifications}") String collection,
+                              @Value("${notifications.store.max-batch:100}") int maxBatch,
+                              @Value("${notifications.store.linger:2ms}") Duration linger,
+                              @Value("${notifications.store.max-concurrent-queries:4}") int maxConcurrentQueries,
+                              @Value("${notifications.store.cache.max-entries:10000}") int cacheMaxEntries,
+                              @Value("${notifications.store.cache.ttl:5m}") Duration cacheTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.collection = collection;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = linger.toNanos();
+        this.cache = new NotificationCache(cacheMaxEntries, cacheTtl.toNanos());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "notification-loader-linger"));
+        AtomicInteger threads = new AtomicInteger();
+        this.queryExecutor = Executors.newFixedThreadPool(maxConcurrentQueries,
+                runnable -> daemon(runnable, "notification-loader-" + threads.incrementAndGet()));
+
+        this.cacheHits = Counter.builder("notifications.loader.cache")
+                .description("Notification lookups by cache result")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("notifications.loader.cache")
+                .description("Notification lookups by cache result")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.queryTimer = Timer.builder("notifications.loader.query")
+                .description("MongoDB $in queries for notification documents")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queryBatchSize = DistributionSummary.builder("notifications.loader.query.ids")
+                .description("Notification ids per MongoDB query")
+                .register(meterRegistry);
+        Gauge.builder("notifications.loader.cache.size", cache, NotificationCache::size)
+                .description("Notification documents cached")
+                .register(meterRegistry);
+
+        log.info("Notification loader on {}: maxBatch={}, linger={}, cache {} entries / {}",
+                collection, maxBatch, linger, cacheMaxEntries, cacheTtl);
+    }
+
+    /**
+     * Loads one notification; completes with null if no document has the id. Misses are batched
+     * with other concurrent loads.
+     */
+    public CompletableFuture<NotificationDocument> load(String notificationId) {
+        NotificationDocument cached = cache.get(notificationId);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        cacheMisses.increment();
+
+        CompletableFuture<NotificationDocument> future = new CompletableFuture<>();
+        CompletableFuture<NotificationDocument> existing = inFlight.putIfAbsent(notificationId, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        pending.add(notificationId);
+        if (pendingCount.incrementAndGet() >= maxBatch) {
+            queryExecutor.execute(this::flushPending);
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> queryExecutor.execute(this::flushPending), lingerNanos, TimeUnit.NANOSECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Loads every id of a poll batch on the calling thread, with one query per max-batch ids not
+     * found in the cache. Ids without a document are absent from the result.
+     */
+    public Map<String, NotificationDocument> loadAll(Collection<String> notificationIds) {
+        Map<String, NotificationDocument> result = new HashMap<>();
+        Map<String, CompletableFuture<NotificationDocument>> joined = new HashMap<>();
+        List<String> toQuery = new ArrayList<>();
+
+        for (String id : new LinkedHashSet<>(notificationIds)) {
+            NotificationDocument cached = cache.get(id);
+            if (cached != null) {
+                cacheHits.increment();
+                result.put(id, cached);
+                continue;
+            }
+            cacheMisses.increment();
+            CompletableFuture<NotificationDocument> future = new CompletableFuture<>();
+            CompletableFuture<NotificationDocument> existing = inFlight.putIfAbsent(id, future);
+            if (existing != null) {
+                joined.put(id, existing);
+            } else {
+                toQuery.add(id);
+            }
+        }
+
+        try {
+            for (int from = 0; from < toQuery.size(); from += maxBatch) {
+                result.putAll(fetch(toQuery.subList(from, Math.min(from + maxBatch, toQuery.size()))));
+            }
+        } catch (RuntimeException e) {
+            // Release the chunks not queried yet so concurrent load() calls don't wait forever
+            for (String id : toQuery) {
+                CompletableFuture<NotificationDocument> future = inFlight.remove(id);
+                if (future != null) {
+                    future.completeExceptionally(e);
+                }
+            }
+            throw e;
+        }
+        joined.forEach((id, future) -> {
+            NotificationDocument document = future.join();
+            if (document != null) {
+                result.put(id, document);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Drops a cached document, e.g. after its status changed.
+     */
+    public void invalidate(String notificationId) {
+        cache.invalidate(notificationId);
+    }
+
+    private void flushPending() {
+        flushScheduled.set(false);
+        List<String> batch = new ArrayList<>(maxBatch);
+        String id;
+        while (batch.size() < maxBatch && (id = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(id);
+        }
+        try {
+            if (!batch.isEmpty()) {
+                fetch(batch);
+            }
+        } finally {
+            // More arrived than one query takes
+            if (pendingCount.get() >= maxBatch) {
+                queryExecutor.execute(this::flushPending);
+            } else if (pendingCount.get() > 0 && flushScheduled.compareAndSet(false, true)) {
+                scheduler.schedule(() -> queryExecutor.execute(this::flushPending), lingerNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Queries the ids (all registered in inFlight by the caller), caches and completes them.
+     */
+    private Map<String, NotificationDocument> fetch(List<String> ids) {
+        Map<String, NotificationDocument> found = new HashMap<>();
+        try {
+            Query query = new Query(Criteria.where("notification_id").in(ids));
+            query.fields().include(NotificationDocument.ROUTING_FIELDS);
+            queryBatchSize.record(ids.size());
+            List<Document> documents = queryTimer.record(() -> mongoTemplate.find(query, Document.class, collection));
+            for (Document document : documents) {
+                NotificationDocument notification = NotificationDocument.from(document);
+                found.put(notification.getNotificationId(), notification);
+                cache.put(notification.getNotificationId(), notification);
+            }
+            for (String id : ids) {
+                CompletableFuture<NotificationDocument> future = inFlight.remove(id);
+                if (future != null) {
+                    future.complete(found.get(id));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Loading {} notifications failed: {}", ids.size(), e.getMessage());
+            for (String id : ids) {
+                CompletableFuture<NotificationDocument> future = inFlight.remove(id);
+                if (future != null) {
+                    future.completeExceptionally(e);
+                }
+            }
+            throw e;
+        }
+        return found;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        queryExecutor.shutdown();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.sqslistener.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rolling delivery and failure rates behind the real-time dashboard panels
+ * (notifications per second over 60s, error rate over 5 minutes).
+ */
+@Component
+public class NotificationRates {
+
+    private static final int WINDOW_SECONDS = 301;
+
+    private final RollingCounter delivered = new RollingCounter(WINDOW_SECONDS);
+    private final RollingCounter failed = new RollingCounter(WINDOW_SECONDS);
+
+    public void recordDelivered(int count) {
+        if (count > 0) {
+            delivered.add(count);
+        }
+    }
+
+    public void recordFailed(int count) {
+        if (count > 0) {
+            failed.add(count);
+        }
+    }
+
+    /**
+     * Notifications per second over the last 60 seconds: current (last complete second), peak
+     * and the series itself, oldest first.
+     */
+    public Map<String, Object> notificationsPerSecond() {
+        long[] series = delivered.lastSeconds(60);
+        long peak = 0;
+        for (long count : series) {
+            peak = Math.max(peak, count);
+        }
+        Map<String, Object> rate = new LinkedHashMap<>();
+        rate.put("current", series.length == 0 ? 0 : series[series.length - 1]);
+        rate.put("peak", peak);
+        rate.put("series", series);
+        return rate;
+    }
+
+    /**
+     * Failed share of all deliveries in the last 5 minutes.
+     */
+    public Map<String, Object> errorRate() {
+        long failures = failed.sum(300);
+        long total = failures + delivered.sum(300);
+        Map<String, Object> rate = new LinkedHashMap<>();
+        rate.put("windowSeconds", 300);
+        rate.put("errors", failures);
+        rate.put("total", total);
+        rate.put("percent", total == 0 ? 0.0 : 100.0 * failures / total);
+        return rate;
+    }
+}
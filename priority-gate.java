@@ -0,0 +1,250 @@
+package com.example.sqslistener.concurrency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process priority scheduler between the poller and the message handlers.
+ *
+ * The listener container holds more messages than the handlers may process at once
+ * (maxConcurrentMessages > max-concurrent); every listener thread waits here for one of the
+ * max-concurrent processing slots, and a freed slot goes to the waiting message of the most
+ * urgent priority rather than the oldest one:
+ *  - lanes are picked by smooth weighted round robin (weights high=8, medium=4, normal=2, low=1
+ *    by default), so a low-priority backlog keeps draining at its share instead of starving;
+ *  - reserved-for-high slots are never given to the other lanes, so a burst of bulk digests
+ *    can't occupy every slot when an alert arrives.
+ * The handler still runs on the listener thread and returns when done, so acknowledgement,
+ * retry and visibility heartbeat work exactly as without the gate.
+ *
+ * Enable with sqs.priority.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sqs.priority.enabled", havingValue = "true")
+public class PriorityGate {
+
+    /**
+     * The metadata "priority" of a notification; "critical" and "urgent" ride the high lane,
+     * missing or unknown values the normal one.
+     */
+    public enum Priority {
+        HIGH, MEDIUM, NORMAL, LOW;
+
+        public static Priority of(Object value) {
+            if (value == null) {
+                return NORMAL;
+            }
+            switch (value.toString().trim().toLowerCase(Locale.ROOT)) {
+                case "critical":
+                case "urgent":
+                case "high":
+                    return HIGH;
+                case "medium":
+                    return MEDIUM;
+                case "low":
+                    return LOW;
+                default:
+                    return NORMAL;
+            }
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final int maxConcurrent;
+    private final int reservedForHigh;
+    private int busy;
+
+    public PriorityGate(@Value("${sqs.priority.max-concurrent:16}") int maxConcurrent,
+                        @Value("${sqs.priority.reserved-for-high:2}") int reservedForHigh,
+                        @Value("${sqs.priority.weights.high:8}") int highWeight,
+                        @Value("${sqs.priority.weights.medium:4}") int mediumWeight,
+                        @Value("${sqs.priority.weights.normal:2}") int normalWeight,
+                        @Value("${sqs.priority.weights.low:1}") int lowWeight,
+                        MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.reservedForHigh = Math.min(reservedForHigh, maxConcurrent - 1);
+        lanes.put(Priority.HIGH, new Lane(highWeight));
+        lanes.put(Priority.MEDIUM, new Lane(mediumWeight));
+        lanes.put(Priority.NORMAL, new Lane(normalWeight));
+        lanes.put(Priority.LOW, new Lane(lowWeight));
+
+        lanes.forEach((priority, lane) -> {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            lane.waitTimer = Timer.builder("sqs.priority.wait")
+                    .description("Time a message waited for a processing slot")
+                    .tag("priority", tag)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            Gauge.builder("sqs.priority.waiting", this, gate -> gate.waiting(priority))
+                    .description("Messages waiting for a processing slot")
+                    .tag("priority", tag)
+                    .register(meterRegistry);
+        });
+        Gauge.builder("sqs.priority.busy", this, PriorityGate::busy)
+                .description("Processing slots in use")
+                .register(meterRegistry);
+        log.info("Priority gate: {} processing slots ({} reserved for high), weights high={} medium={} normal={} low={}",
+                maxConcurrent, this.reservedForHigh, highWeight, mediumWeight, normalWeight, lowWeight);
+    }
+
+    /**
+     * Runs the handler once the message's priority is granted a processing slot.
+     */
+    public void run(Priority priority, Runnable handler) throws InterruptedException {
+        acquire(lanes.get(priority));
+        try {
+            handler.run();
+        } finally {
+            release();
+        }
+    }
+
+    private void acquire(Lane lane) throws InterruptedException {
+        long start = System.nanoTime();
+        lock.lockInterruptibly();
+        try {
+            // Nobody queued: take the slot directly
+            if (noneWaiting() && admits(lane)) {
+                busy++;
+                lane.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return;
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            lane.waiters.addLast(waiter);
+            // A free slot others can't use (reserved for high) may be ours right away
+            grantNext();
+            try {
+                while (!waiter.granted) {
+                    waiter.condition.await();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    // Handed a slot while being interrupted: pass it on
+                    busy--;
+                    grantNext();
+                } else {
+                    lane.waiters.remove(waiter);
+                }
+                throw e;
+            }
+            lane.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            busy--;
+            grantNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Hands free slots to waiting messages, most deserving lane first; called with the lock held
+    private void grantNext() {
+        while (busy < maxConcurrent) {
+            Lane next = pickLane();
+            if (next == null) {
+                return;
+            }
+            Waiter waiter = next.waiters.removeFirst();
+            waiter.granted = true;
+            busy++;
+            waiter.condition.signal();
+        }
+    }
+
+    /**
+     * Smooth weighted round robin over the lanes that have waiters and may take a slot: every
+     * eligible lane gains its weight, the richest wins and pays the eligible total.
+     */
+    private Lane pickLane() {
+        Lane best = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes.values()) {
+            if (lane.waiters.isEmpty() || !admits(lane)) {
+                continue;
+            }
+            lane.current += lane.weight;
+            totalWeight += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+            }
+        }
+        if (best != null) {
+            best.current -= totalWeight;
+        }
+        return best;
+    }
+
+    private boolean admits(Lane lane) {
+        int limit = lane == lanes.get(Priority.HIGH) ? maxConcurrent : maxConcurrent - reservedForHigh;
+        return busy < limit;
+    }
+
+    private boolean noneWaiting() {
+        for (Lane lane : lanes.values()) {
+            if (!lane.waiters.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int busy() {
+        lock.lock();
+        try {
+            return busy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int waiting(Priority priority) {
+        lock.lock();
+        try {
+            return lanes.get(priority).waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Guarded by lock
+    private static final class Lane {
+        private final int weight;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private int current;
+        private Timer waitTimer;
+
+        private Lane(int weight) {
+            this.weight = Math.max(1, weight);
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.sqslistener.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the backlog of the channel queues for the queue-depth dashboard panel.
+ *
+ * Channels are configured as notifications.dashboard.queues.&lt;channel&gt;=&lt;queue name&gt;;
+ * every queue-depth-interval each queue's ApproximateNumberOfMessages is read with one
+ * GetQueueAttributes call and published as sqs.queue.depth{channel}. Nothing is polled when no
+ * queues are configured.
+ */
+@Slf4j
+@Component
+public class QueueDepthMonitor {
+
+    private final SqsAsyncClient sqsAsyncClient;
+    private final Map<String, String> queues;
+    private final Map<String, AtomicLong> depths = new LinkedHashMap<>();
+    private final Map<String, String> queueUrls = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public QueueDepthMonitor(SqsAsyncClient sqsAsyncClient,
+                             MeterRegistry meterRegistry,
+                             Environment environment,
+                             @Value("${notifications.dashboard.queue-depth-interval:5s}") Duration interval) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.queues = Binder.get(environment)
+                .bind("notifications.dashboard.queues", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+
+        if (queues.isEmpty()) {
+            this.scheduler = null;
+            return;
+        }
+        queues.keySet().forEach(channel -> {
+            AtomicLong depth = new AtomicLong(-1);
+            depths.put(channel, depth);
+            Gauge.builder("sqs.queue.depth", depth, AtomicLong::get)
+                    .description("ApproximateNumberOfMessages of the channel queue, -1 if unknown")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqs-queue-depth");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Monitoring queue depth of {} channels every {}", queues.size(), interval);
+    }
+
+    /**
+     * Last known depth per channel, -1 until the first successful read.
+     */
+    public Map<String, Long> depths() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        depths.forEach((channel, depth) -> snapshot.put(channel, depth.get()));
+        return snapshot;
+    }
+
+    private void refresh() {
+        queues.forEach((channel, queueName) -> queueUrl(queueName)
+                .thenCompose(queueUrl -> sqsAsyncClient.getQueueAttributes(request -> request
+                        .queueUrl(queueUrl)
+                        .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES)))
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        log.debug("Could not read depth of {} ({}): {}", channel, queueName, throwable.getMessage());
+                        return;
+                    }
+                    String depth = response.attributes().get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES);
+                    depths.get(channel).set(depth == null ? -1 : Long.parseLong(depth));
+                }));
+    }
+
+    private CompletableFuture<String> queueUrl(String queueName) {
+        String cached = queueUrls.get(queueName);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return sqsAsyncClient.getQueueUrl(request -> request.queueName(queueName))
+                .thenApply(response -> {
+                    queueUrls.put(queueName, response.queueUrl());
+                    return response.queueUrl();
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
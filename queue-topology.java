@@ -0,0 +1,193 @@
+package com.example.sqslistener.concurrency;
+
+import io.awspring.cloud.sqs.MessageExecutionThreadFactory;
+import io.awspring.cloud.sqs.listener.ContainerOptions;
+import io.awspring.cloud.sqs.listener.SqsContainerOptionsBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Declarative multi-queue topology for the containers of the default listener factory, keyed
+ * by @SqsListener id:
+ *
+ *   sqs.topology.enabled=true
+ *   sqs.topology.global-max-in-flight=100
+ *   sqs.topology.queues.async-listener.concurrency=40
+ *   sqs.topology.queues.async-listener.weight=4
+ *   sqs.topology.queues.raw-json-listener.concurrency=10
+ *   sqs.topology.queues.raw-json-listener.max-messages-per-poll=5
+ *
+ * Each configured queue gets its own maxConcurrentMessages, poll settings (max-messages-per-poll,
+ * poll-timeout, max-delay-between-polls, visibility) and its own thread pool (executor-threads,
+ * default: concurrency), so a slow queue only exhausts its own threads. The pool hands work
+ * straight to a thread, so executor-threads below the container's effective concurrency fails
+ * startup rather than rejecting messages later. Unset values keep the factory defaults, and
+ * listeners that aren't listed join with default-weight.
+ *
+ * All of them draw from one WeightedInFlightLimiter of global-max-in-flight permits: a queue is
+ * guaranteed a share proportional to its weight and may borrow what the others leave idle,
+ * heavier (more urgent) queues first.
+ *
+ * Every lane must poll its own queue: two listeners resolving to the same queue (e.g.
+ * sqs.queue-name-structured set to the value of sqs.queue-name) would compete for its messages
+ * under two weights, so startup fails instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sqs.topology.enabled", havingValue = "true")
+public class QueueTopology {
+
+    /**
+     * Settings of one queue container; null means "factory default".
+     */
+    public record QueueSettings(Integer concurrency, Integer maxMessagesPerPoll, Duration pollTimeout,
+                                Duration maxDelayBetweenPolls, Duration visibility, Integer executorThreads,
+                                Integer weight) {
+    }
+
+    private final Map<String, QueueSettings> queues;
+    private final WeightedInFlightLimiter limiter;
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+    // Queue name -> id of the listener polling it
+    private final Map<String, String> queueOwners = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int defaultWeight;
+
+    public QueueTopology(Environment environment,
+                         MeterRegistry meterRegistry,
+                         @Value("${sqs.topology.global-max-in-flight:100}") int globalMaxInFlight,
+                         @Value("${sqs.topology.default-weight:1}") int defaultWeight) {
+        this.queues = Binder.get(environment)
+                .bind("sqs.topology.queues", Bindable.mapOf(String.class, QueueSettings.class))
+                .orElse(Collections.emptyMap());
+        this.limiter = new WeightedInFlightLimiter(globalMaxInFlight);
+        this.meterRegistry = meterRegistry;
+        this.defaultWeight = defaultWeight;
+
+        Gauge.builder("sqs.topology.in.flight.total", limiter, WeightedInFlightLimiter::getInFlight)
+                .description("Messages in flight across all queue containers")
+                .register(meterRegistry);
+        Gauge.builder("sqs.topology.in.flight.limit", limiter, WeightedInFlightLimiter::getGlobalLimit)
+                .description("Node-wide cap on messages in flight")
+                .register(meterRegistry);
+        log.info("Queue topology: {} configured queues sharing {} in-flight messages", queues.size(), globalMaxInFlight);
+    }
+
+    /**
+     * Applies the queue's settings and executor on top of the factory defaults.
+     */
+    void configure(String listenerId, SqsContainerOptionsBuilder options) {
+        QueueSettings settings = listenerId == null ? null : queues.get(listenerId);
+        if (settings == null) {
+            return;
+        }
+        if (settings.concurrency() != null) {
+            options.maxConcurrentMessages(settings.concurrency());
+        }
+        if (settings.maxMessagesPerPoll() != null) {
+            options.maxMessagesPerPoll(settings.maxMessagesPerPoll());
+        }
+        if (settings.pollTimeout() != null) {
+            options.pollTimeout(settings.pollTimeout());
+        }
+        if (settings.maxDelayBetweenPolls() != null) {
+            options.maxDelayBetweenPolls(settings.maxDelayBetweenPolls());
+        }
+        if (settings.visibility() != null) {
+            options.messageVisibility(settings.visibility());
+        }
+        int threads = settings.executorThreads() != null ? settings.executorThreads()
+                : settings.concurrency() != null ? settings.concurrency() : 0;
+        if (threads > 0) {
+            // The back-pressure handler admits up to maxConcurrentMessages, the factory default if unset
+            int concurrency = options.build().getMaxConcurrentMessages();
+            if (threads < concurrency) {
+                throw new IllegalStateException("sqs.topology.queues." + listenerId + ".executor-threads=" + threads
+                        + " is below the container's concurrency of " + concurrency
+                        + "; messages beyond the threads would be rejected");
+            }
+            options.componentsTaskExecutor(executors.computeIfAbsent(listenerId, id -> newExecutor(id, threads)));
+        }
+    }
+
+    /**
+     * Records the queues a listener polls; throws IllegalStateException if another lane already
+     * polls one of them.
+     */
+    void claimQueues(String listenerId, Collection<String> queueNames) {
+        for (String queueName : queueNames) {
+            String owner = queueOwners.putIfAbsent(queueName, listenerId);
+            if (owner != null && !owner.equals(listenerId)) {
+                throw new IllegalStateException("Listeners " + owner + " and " + listenerId + " both poll queue "
+                        + queueName + "; give each topology lane its own queue property");
+            }
+        }
+    }
+
+    /**
+     * Back-pressure handler for a starting container: its concurrency limit, weighted against the
+     * other queues under the global cap.
+     */
+    WeightedInFlightLimiter.LaneHandler backPressureHandler(String containerId, ContainerOptions<?, ?> options) {
+        QueueSettings settings = queues.get(containerId);
+        int weight = settings != null && settings.weight() != null ? settings.weight() : defaultWeight;
+        boolean known = limiter.getLaneIds().contains(containerId);
+        WeightedInFlightLimiter.LaneHandler handler = limiter.register(containerId, options.getMaxConcurrentMessages(),
+                weight, options.getMaxMessagesPerPoll(), options.getMaxDelayBetweenPolls());
+        if (!known) {
+            registerMetrics(containerId);
+            log.info("Queue container {}: concurrency={}, poll={}, weight={}, guaranteed share={} of {}",
+                    containerId, options.getMaxConcurrentMessages(), options.getMaxMessagesPerPoll(), weight,
+                    limiter.getShare(containerId), limiter.getGlobalLimit());
+        }
+        return handler;
+    }
+
+    private void registerMetrics(String containerId) {
+        Gauge.builder("sqs.topology.in.flight", limiter, l -> l.getInFlight(containerId))
+                .description("Messages in flight in the queue container")
+                .tag("container", containerId)
+                .register(meterRegistry);
+        Gauge.builder("sqs.topology.share", limiter, l -> l.getShare(containerId))
+                .description("In-flight permits guaranteed to the queue container")
+                .tag("container", containerId)
+                .register(meterRegistry);
+    }
+
+    private static ThreadPoolTaskExecutor newExecutor(String listenerId, int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // Hand-off only: the back-pressure handler keeps work within the pool
+        executor.setQueueCapacity(0);
+        executor.setAllowCoreThreadTimeOut(true);
+        // The container rejects executors whose threads aren't MessageExecutionThreads
+        executor.setThreadFactory(new MessageExecutionThreadFactory("sqs-" + listenerId + "-"));
+        executor.initialize();
+        return executor;
+    }
+
+    public WeightedInFlightLimiter getLimiter() {
+        return limiter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.sqslistener.router;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeliverySink decorator that spaces chunks out to their domain's rate limit. A chunk that has
+ * to wait is handed to the delegate from a delayed executor instead of sleeping a fan-out
+ * worker; it still counts against the engine's maxChunksInFlight, so waiting chunks keep
+ * back-pressuring the producer.
+ */
+class RateLimitedDeliverySink implements DeliverySink {
+
+    private final DeliverySink delegate;
+    private final DomainRateLimiters rateLimiters;
+
+    RateLimitedDeliverySink(DeliverySink delegate, DomainRateLimiters rateLimiters) {
+        this.delegate = delegate;
+        this.rateLimiters = rateLimiters;
+    }
+
+    @Override
+    public CompletableFuture<Integer> deliver(DeliveryChunk chunk) {
+        long waitNanos = rateLimiters.reserve(chunk.getPayload().getRoute().getDomain(), chunk.size());
+        if (waitNanos == 0L) {
+            return delegate.deliver(chunk);
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS);
+        return CompletableFuture.supplyAsync(() -> chunk, delayed).thenCompose(delegate::deliver);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.sqslistener.model;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A JSON value left unparsed inside the message body it came from. Holds a reference to the
+ * body plus the value's offsets, so nothing is copied until {@link #read()} is called.
+ */
+public final class RawJson {
+
+    private final ObjectReader reader;
+    private final byte[] bytes;
+    private final String text;
+    private final int offset;
+    private final int length;
+
+    private RawJson(ObjectReader reader, byte[] bytes, String text, int offset, int length) {
+        this.reader = reader;
+        this.bytes = bytes;
+        this.text = text;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    static RawJson of(ObjectReader reader, byte[] source, int offset, int length) {
+        return new RawJson(reader, source, null, offset, length);
+    }
+
+    static RawJson of(ObjectReader reader, String source, int offset, int length) {
+        return new RawJson(reader, null, source, offset, length);
+    }
+
+    /**
+     * Binds the value with the reader it was captured for.
+     */
+    public <T> T read() {
+        try {
+            if (bytes != null) {
+                return reader.readValue(bytes, offset, length);
+            }
+            // Binding stops after the value, so the rest of the body is not parsed
+            StringReader window = new StringReader(text);
+            window.skip(offset);
+            return reader.readValue(window);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read deferred JSON value", e);
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return bytes != null
+                ? new String(bytes, offset, length, StandardCharsets.UTF_8)
+                : text.substring(offset, offset + length);
+    }
+}
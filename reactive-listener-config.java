@@ -0,0 +1,95 @@
+package com.example.sqslistener.config;
+
+import com.example.sqslistener.listener.VisibilityHeartbeat;
+import com.example.sqslistener.metrics.ListenerMetrics;
+import io.awspring.cloud.sqs.MessageExecutionThreadFactory;
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.acknowledgement.AcknowledgementOrdering;
+import io.awspring.cloud.sqs.listener.acknowledgement.handler.AcknowledgementMode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import java.time.Duration;
+
+/**
+ * Container factory for the reactive listener (ReactiveNotificationListener):
+ *
+ *   sqs.reactive.enabled=true
+ *   sqs.reactive.max-in-flight=500
+ *   sqs.reactive.threads=4
+ *   sqs.reactive.visibility=5m
+ *
+ * Its handler returns a CompletableFuture instead of doing the work on the listener thread, so
+ * max-in-flight messages are in flight on a few threads: they only poll and start pipelines.
+ * The container holds a message's back-pressure permit until its future completes, so the
+ * in-flight cap is what bounds the pipeline, and a slow EventBridge or MongoDB stops the polling
+ * instead of queueing work in memory.
+ *
+ * A message is invisible from the poll until its future completes, which under load includes
+ * waiting behind up to max-in-flight others for a pipeline window, EventBridge and MongoDB. The
+ * visibility therefore defaults to 5 minutes; with sqs.heartbeat.enabled=true the heartbeat keeps
+ * busy messages invisible and it can be as short as the heartbeat's visibility-timeout. A shorter
+ * visibility without the heartbeat is logged as a warning: messages may be redelivered and
+ * processed twice while still in flight.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "sqs.reactive.enabled", havingValue = "true")
+public class ReactiveListenerConfig {
+
+    // Below this, a full in-flight window can outlast the visibility without the heartbeat
+    private static final Duration MIN_VISIBILITY_WITHOUT_HEARTBEAT = Duration.ofMinutes(5);
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @Bean
+    public SqsMessageListenerContainerFactory<Object> reactiveSqsListenerContainerFactory(
+            SqsAsyncClient sqsAsyncClient, ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat,
+            ObjectProvider<ListenerMetrics> listenerMetrics,
+            @Value("${sqs.reactive.max-in-flight:500}") int maxInFlight,
+            @Value("${sqs.reactive.threads:4}") int threads,
+            @Value("${sqs.reactive.visibility:5m}") Duration visibility) {
+        if (visibilityHeartbeat.getIfAvailable() == null && visibility.compareTo(MIN_VISIBILITY_WITHOUT_HEARTBEAT) < 0) {
+            log.warn("sqs.reactive.visibility={} without sqs.heartbeat.enabled: messages waiting behind {} in flight "
+                    + "may become visible again and be processed twice", visibility, maxInFlight);
+        }
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // Tasks only start a pipeline and return; the in-flight cap bounds the queue
+        executor.setThreadFactory(new MessageExecutionThreadFactory("sqs-reactive-"));
+        executor.initialize();
+
+        SqsMessageListenerContainerFactory<Object> factory = SqsMessageListenerContainerFactory
+                .builder()
+                .sqsAsyncClient(sqsAsyncClient)
+                .configure(options -> options
+                        .acknowledgementMode(AcknowledgementMode.MANUAL)
+                        // Acks of up to 10 messages share a DeleteMessageBatch call
+                        .acknowledgementInterval(Duration.ofSeconds(1))
+                        .acknowledgementThreshold(10)
+                        // Messages finish out of order; don't hold acks back behind a slow one
+                        .acknowledgementOrdering(AcknowledgementOrdering.PARALLEL)
+                        .maxConcurrentMessages(maxInFlight)
+                        .pollTimeout(Duration.ofSeconds(20))
+                        .maxMessagesPerPoll(10)
+                        .messageVisibility(visibility)
+                        .componentsTaskExecutor(executor)
+                )
+                .build();
+        SqsConfig.registerListenerHooks(factory, visibilityHeartbeat, listenerMetrics);
+        log.info("Reactive listener containers: {} messages in flight on {} threads", maxInFlight, threads);
+        return factory;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.sqslistener.listener;
+
+import com.example.sqslistener.dedup.MessageDeduplicationCache;
+import com.example.sqslistener.model.MessageDto;
+import com.example.sqslistener.retry.MessageRetryHandler;
+import com.example.sqslistener.router.AsyncNotificationPipeline;
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.acknowledgement.Acknowledgement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking listener for NOTIFICATION messages (content = notification id): returns a future
+ * composing the AsyncNotificationPipeline (fetch, validate/route, publish) with the asynchronous
+ * acknowledgement, instead of doing the work on the listener thread. Failures go to the retry
+ * handler as in the blocking listeners, and the returned future only completes once its
+ * visibility change or dead-letter send is done. Runs on the reactiveSqsListenerContainerFactory,
+ * whose in-flight cap bounds the pipeline (see ReactiveListenerConfig).
+ *
+ * Enable with sqs.reactive.enabled=true and a queue in sqs.queue-name-reactive.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sqs.reactive.enabled", havingValue = "true")
+public class ReactiveNotificationListener {
+
+    private static final String LISTENER_ID = "reactive-listener";
+
+    private final AsyncNotificationPipeline pipeline;
+    private final MessageDeduplicationCache deduplicationCache;
+    private final MessageRetryHandler retryHandler;
+    private final ListenerEventLog eventLog;
+
+    @SqsListener(value = "${sqs.queue-name-reactive}", id = LISTENER_ID, factory = "reactiveSqsListenerContainerFactory")
+    public CompletableFuture<Void> processNotification(@Payload MessageDto message,
+                                                       @Header("MessageId") String messageId,
+                                                       @Header(name = SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER, required = false) String deduplicationId,
+                                                       Acknowledgement acknowledgement,
+                                                       Message<MessageDto> sqsMessage) {
+        long start = System.nanoTime();
+        String dedupKey = MessageDeduplicationCache.key(deduplicationId, messageId);
+        if (deduplicationCache.isProcessed(dedupKey)) {
+            return acknowledge(acknowledgement, messageId, message.getType(), start, "skipped as duplicate");
+        }
+        if (!"NOTIFICATION".equals(message.getType())) {
+            log.warn("Reactive listener only routes NOTIFICATION messages, dropping {} of type {}",
+                    messageId, message.getType());
+            return acknowledge(acknowledgement, messageId, message.getType(), start, "skipped, not a notification");
+        }
+
+        CompletableFuture<AsyncNotificationPipeline.Result> processing;
+        try {
+            processing = pipeline.process(message.getContent());
+        } catch (RuntimeException e) {
+            processing = CompletableFuture.failedFuture(e);
+        }
+        return processing
+                .thenCompose(result -> {
+                    deduplicationCache.markProcessed(dedupKey);
+                    retryHandler.onSuccess(LISTENER_ID);
+                    return acknowledge(acknowledgement, messageId, message.getType(), start, outcome(result));
+                })
+                .exceptionallyCompose(throwable -> {
+                    Throwable failure = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    log.error("Failed to process notification message {}: {}", messageId, failure.getMessage(), failure);
+                    return retryHandler.onFailure(LISTENER_ID, sqsMessage, failure, acknowledgement)
+                            .thenRun(() -> eventLog.processed(log, LISTENER_ID, messageId, message.getType(), start, "failed"));
+                });
+    }
+
+    private CompletableFuture<Void> acknowledge(Acknowledgement acknowledgement, String messageId, String type,
+                                                long start, String outcome) {
+        return acknowledgement.acknowledgeAsync()
+                .handle((result, throwable) -> {
+                    if (throwable != null) {
+                        // The message comes back after its visibility timeout; dedup skips the rework
+                        log.error("Failed to acknowledge message {}: {}", messageId, throwable.getMessage());
+                    } else {
+                        eventLog.processed(log, LISTENER_ID, messageId, type, start, outcome + " and acknowledged");
+                    }
+                    return null;
+                });
+    }
+
+    private static String outcome(AsyncNotificationPipeline.Result result) {
+        switch (result.status()) {
+            case EXPIRED:
+                return "expired";
+            case NOT_ROUTED:
+                return "not routed";
+            default:
+                return "published " + result.delivered() + "/" + (result.delivered() + result.failed())
+                        + " deliveries on " + result.routes() + " route(s)";
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.sqslistener.router;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// One reload's worth of registry upserts and removals, applied by NotificationPlatform.applyChanges()
+final class RegistryChanges {
+    private final boolean fullSnapshot;
+    private final Map<String, Domain> domains = new LinkedHashMap<>();
+    private final Map<String, SchemaDocument> schemas = new LinkedHashMap<>();
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private final Map<String, Capability> capabilities = new LinkedHashMap<>();
+    private final Set<String> removedDomains = new HashSet<>();
+    private final Set<String> removedSchemas = new HashSet<>();
+    private final Set<String> removedRoutes = new HashSet<>();
+    private final Set<String> removedCapabilities = new HashSet<>();
+
+    RegistryChanges(boolean fullSnapshot) {
+        this.fullSnapshot = fullSnapshot;
+    }
+
+    void put(Domain domain) { domains.put(domain.getId(), domain); }
+    void put(SchemaDocument schema) { schemas.put(schema.getId(), schema); }
+    void put(Route route) { routes.put(route.getId(), route); }
+    void put(Capability capability) { capabilities.put(capability.getId(), capability); }
+
+    void removeDomain(String id) { removedDomains.add(id); }
+    void removeSchema(String id) { removedSchemas.add(id); }
+    void removeRoute(String id) { removedRoutes.add(id); }
+    void removeCapability(String id) { removedCapabilities.add(id); }
+
+    boolean isEmpty() {
+        return !fullSnapshot && domains.isEmpty() && schemas.isEmpty() && routes.isEmpty() && capabilities.isEmpty()
+            && removedDomains.isEmpty() && removedSchemas.isEmpty() && removedRoutes.isEmpty()
+            && removedCapabilities.isEmpty();
+    }
+
+    public boolean isFullSnapshot() { return fullSnapshot; }
+    public Map<String, Domain> getDomains() { return domains; }
+    public Map<String, SchemaDocument> getSchemas() { return schemas; }
+    public Map<String, Route> getRoutes() { return routes; }
+    public Map<String, Capability> getCapabilities() { return capabilities; }
+    public Set<String> getRemovedDomains() { return removedDomains; }
+    public Set<String> getRemovedSchemas() { return removedSchemas; }
+    public Set<String> getRemovedRoutes() { return removedRoutes; }
+    public Set<String> getRemovedCapabilities() { return removedCapabilities; }
+
+    @Override
+    public String toString() {
+        return (fullSnapshot ? "full snapshot of " : "")
+            + domains.size() + " domain(s), " + schemas.size() + " schema(s), "
+            + routes.size() + " route(s), " + capabilities.size() + " capability(ies)"
+            + (fullSnapshot ? "" : "; removed " + (removedDomains.size() + removedSchemas.size()
+                + removedRoutes.size() + removedCapabilities.size()));
+    }
+}
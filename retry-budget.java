@@ -0,0 +1,68 @@
+package com.example.sqslistener.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps fast retries of one listener relative to its successes, so a downstream outage doesn't
+ * turn every message into a stream of quick retries.
+ *
+ * Every success deposits ratio tokens, every fast retry withdraws one, and min-per-second tokens
+ * trickle in regardless so a listener with no recent successes can still retry a little. The
+ * balance is capped at max-tokens. Counters are milli-tokens in one AtomicLong; no locking.
+ */
+class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerSuccess;
+    private final long refillPerSecond;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos;
+
+    RetryBudget(double ratio, double minPerSecond, int maxTokens) {
+        this.depositPerSuccess = Math.round(ratio * SCALE);
+        this.refillPerSecond = Math.round(minPerSecond * SCALE);
+        this.maxBalance = (long) maxTokens * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+        this.lastRefillNanos = new AtomicLong(System.nanoTime());
+    }
+
+    void recordSuccess() {
+        deposit(depositPerSuccess);
+    }
+
+    /**
+     * Withdraws one token; false when the budget is spent.
+     */
+    boolean tryAcquire() {
+        refill();
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    double available() {
+        return balance.get() / (double) SCALE;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        long last = lastRefillNanos.get();
+        long tokens = (now - last) / 1_000_000 * refillPerSecond / 1000;
+        // Only the thread that moves the timestamp deposits, so elapsed time is counted once
+        if (tokens > 0 && lastRefillNanos.compareAndSet(last, now)) {
+            deposit(tokens);
+        }
+    }
+
+    private void deposit(long amount) {
+        balance.accumulateAndGet(amount, (current, add) -> Math.min(maxBalance, current + add));
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.sqslistener.retry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides what happens to a message whose listener threw: retry it after a backoff, or send it
+ * straight to the dead-letter queue.
+ *
+ * Exceptions of a non-retryable type (anywhere in the cause chain) are dead-lettered on the first
+ * attempt - a payload that fails validation fails the same way every time. Everything else is
+ * retried with exponential backoff and jitter, based on ApproximateReceiveCount, until
+ * max-attempts is reached. A ThrottledException is not a failure: the message is deferred by its
+ * retryAfter, however often it was received.
+ */
+@Slf4j
+@Component
+public class RetryPolicy {
+
+    public enum Action { RETRY, DEFER, DEAD_LETTER }
+
+    public record Decision(Action action, int delaySeconds, String reason) {
+    }
+
+    // ChangeMessageVisibility accepts 0..43200 seconds
+    private static final int MAX_VISIBILITY_SECONDS = 43_200;
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final List<Class<?>> nonRetryable;
+
+    public RetryPolicy(@Value("${sqs.retry.max-attempts:5}") int maxAttempts,
+                       @Value("${sqs.retry.initial-backoff:1s}") Duration initialBackoff,
+                       @Value("${sqs.retry.max-backoff:5m}") Duration maxBackoff,
+                       @Value("${sqs.retry.non-retryable:jakarta.validation.ValidationException,"
+                               + "com.fasterxml.jackson.core.JsonProcessingException,"
+                               + "org.springframework.messaging.converter.MessageConversionException,"
+                               + "java.lang.IllegalArgumentException}") List<String> nonRetryable) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = Math.min(maxBackoff.toMillis(), MAX_VISIBILITY_SECONDS * 1000L);
+        this.nonRetryable = resolve(nonRetryable);
+    }
+
+    /**
+     * @param receiveCount ApproximateReceiveCount of the failed delivery, starting at 1
+     */
+    public Decision decide(Throwable failure, int receiveCount) {
+        ThrottledException throttled = throttled(failure);
+        if (throttled != null) {
+            long seconds = (throttled.getRetryAfter().toMillis() + 999) / 1000;
+            return new Decision(Action.DEFER, (int) Math.min(Math.max(seconds, 1), MAX_VISIBILITY_SECONDS),
+                    throttled.getMessage());
+        }
+        Class<?> type = nonRetryableType(failure);
+        if (type != null) {
+            return new Decision(Action.DEAD_LETTER, 0, "non-retryable " + type.getSimpleName());
+        }
+        if (receiveCount >= maxAttempts) {
+            return new Decision(Action.DEAD_LETTER, 0, "gave up after " + receiveCount + " attempts");
+        }
+        return new Decision(Action.RETRY, backoffSeconds(receiveCount), "attempt " + receiveCount + " failed");
+    }
+
+    /**
+     * initial-backoff * 2^(attempt-1), capped at max-backoff, with equal jitter: half of the
+     * backoff is fixed, the other half random, so retries of one burst spread out.
+     */
+    int backoffSeconds(int receiveCount) {
+        int shift = Math.min(Math.max(receiveCount - 1, 0), 30);
+        long backoff = Math.min(initialBackoffMillis << shift, maxBackoffMillis);
+        if (backoff < 0) {
+            backoff = maxBackoffMillis;
+        }
+        long half = backoff / 2;
+        long jittered = half + ThreadLocalRandom.current().nextLong(half + 1);
+        // Visibility is set in whole seconds; round up so a short backoff is not 0
+        return (int) Math.min((jittered + 999) / 1000, MAX_VISIBILITY_SECONDS);
+    }
+
+    private static ThrottledException throttled(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof ThrottledException) {
+                return (ThrottledException) t;
+            }
+        }
+        return null;
+    }
+
+    private Class<?> nonRetryableType(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            for (Class<?> type : nonRetryable) {
+                if (type.isInstance(t)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Class<?>> resolve(List<String> classNames) {
+        List<Class<?>> types = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            if (className.isBlank()) {
+                continue;
+            }
+            try {
+                types.add(ClassUtils.forName(className.trim(), RetryPolicy.class.getClassLoader()));
+            } catch (ClassNotFoundException | LinkageError e) {
+                log.warn("Ignoring unknown non-retryable exception type {}", className);
+            }
+        }
+        return List.copyOf(types);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.sqslistener.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-second event counts over the last window seconds, for dashboard rates that a cumulative
+ * Micrometer counter can't answer without a backend (current rate, peak, 60s series).
+ *
+ * One slot per second in an AtomicLongArray, stamped with the second it counts; a writer that
+ * finds a stale stamp resets the slot first. A few increments can be lost to the reset race at
+ * the turn of a second, which is fine for a display.
+ */
+class RollingCounter {
+
+    private final int window;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray seconds;
+
+    RollingCounter(int windowSeconds) {
+        this.window = windowSeconds;
+        this.counts = new AtomicLongArray(windowSeconds);
+        this.seconds = new AtomicLongArray(windowSeconds);
+    }
+
+    void add(long amount) {
+        long second = currentSecond();
+        int slot = (int) (second % window);
+        long stamp = seconds.get(slot);
+        if (stamp != second && seconds.compareAndSet(slot, stamp, second)) {
+            counts.set(slot, 0);
+        }
+        counts.addAndGet(slot, amount);
+    }
+
+    /**
+     * Counts of the last n complete seconds, oldest first.
+     */
+    long[] lastSeconds(int n) {
+        int length = Math.min(n, window - 1);
+        long current = currentSecond();
+        long[] series = new long[length];
+        for (int i = 0; i < length; i++) {
+            long second = current - length + i;
+            int slot = (int) (second % window);
+            series[i] = seconds.get(slot) == second ? counts.get(slot) : 0;
+        }
+        return series;
+    }
+
+    /**
+     * Total over the last n complete seconds.
+     */
+    long sum(int n) {
+        long sum = 0;
+        for (long count : lastSeconds(n)) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.sqslistener.router;
+
+import com.example.sqslistener.notification.NotificationLoader;
+import com.example.sqslistener.publisher.EventBridgePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+
+/**
+ * Runs the router against the MongoDB registry instead of the imperative setup of
+ * SimpleNotificationPlatform. Enable with notifications.registry.enabled=true.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "notifications.registry.enabled", havingValue = "true")
+public class RouterConfig {
+
+    @Bean
+    NotificationPlatform notificationPlatform(MicrometerRouterMetrics routerMetrics) {
+        NotificationPlatform platform = new NotificationPlatform();
+        platform.setMetrics(routerMetrics);
+        return platform;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    MongoRouteRegistry mongoRouteRegistry(MongoTemplate mongoTemplate, NotificationPlatform notificationPlatform,
+                                          @Value("${notifications.registry.poll-interval:30s}") Duration pollInterval,
+                                          @Value("${notifications.registry.full-resync-interval:15m}") Duration fullResyncInterval,
+                                          @Value("${notifications.registry.watch:false}") boolean watch) {
+        log.info("Route registry: poll every {}, full resync every {}, change stream {}",
+                pollInterval, fullResyncInterval, watch ? "on" : "off");
+        return new MongoRouteRegistry(mongoTemplate, notificationPlatform, pollInterval, fullResyncInterval, watch);
+    }
+
+    /**
+     * The non-blocking pipeline behind the reactive listener (sqs.reactive.enabled=true); needs
+     * the notification store and the EventBridge publisher as well.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "sqs.reactive.enabled", havingValue = "true")
+    AsyncNotificationPipeline asyncNotificationPipeline(NotificationLoader notificationLoader,
+                                                        NotificationPlatform notificationPlatform,
+                                                        EventBridgePublisher eventBridgePublisher,
+                                                        MicrometerRouterMetrics routerMetrics,
+                                                        @Value("${sqs.reactive.chunk-size:100}") int chunkSize,
+                                                        @Value("${sqs.reactive.max-chunks-in-flight:4}") int maxChunksInFlight,
+                                                        @Value("${sqs.reactive.route-threads:0}") int routeThreads) {
+        int threads = routeThreads > 0 ? routeThreads : Runtime.getRuntime().availableProcessors();
+        DeliverySink sink = new RateLimitedDeliverySink(new EventBridgeDeliverySink(eventBridgePublisher),
+                notificationPlatform.getRateLimiters());
+        log.info("Async notification pipeline: chunks of {} recipients, {} in flight per notification, {} route threads",
+                chunkSize, maxChunksInFlight, threads);
+        return new AsyncNotificationPipeline(notificationLoader, notificationPlatform, sink, routerMetrics,
+                chunkSize, maxChunksInFlight, threads);
+    }
+}
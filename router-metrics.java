@@ -0,0 +1,37 @@
+package com.example.sqslistener.router;
+
+/**
+ * Hot-path measurements of the router. Called once per route resolution, validation and
+ * delivery chunk, so implementations must not block or allocate per call.
+ *
+ * NotificationPlatform and FanOutEngine use NOOP until one is set; the Micrometer binding is
+ * MicrometerRouterMetrics.
+ */
+interface RouterMetrics {
+
+    RouterMetrics NOOP = new RouterMetrics() { };
+
+    /**
+     * A request was accepted (at least one valid route) or rejected for the capability.
+     */
+    default void requestCompleted(String capabilityId, boolean accepted) {
+    }
+
+    default void routeResolved(long nanos, boolean found) {
+    }
+
+    default void validated(String schemaId, long nanos, boolean valid) {
+    }
+
+    /**
+     * Deliveries of one route that succeeded and failed, e.g. one fan-out chunk.
+     */
+    default void delivered(ResolvedRoute route, int succeeded, int failed) {
+    }
+
+    /**
+     * The domain's rate limit delayed deliveries in memory, or deferred a request to the queue.
+     */
+    default void rateLimited(String domainId, boolean deferred) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.sqslistener.listener;
+
+import com.example.sqslistener.model.MessageDto;
+import com.example.sqslistener.notification.NotificationDocument;
+import com.example.sqslistener.notification.NotificationLoader;
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch-mode listener: receives a whole poll (up to maxMessagesPerPoll messages) as one list,
+ * deletes every successfully processed message with a single DeleteMessageBatch call and
+ * returns the failed ones to the queue with a single ChangeMessageVisibilityBatch call.
+ * With the notification store enabled, the documents of all NOTIFICATION messages of the poll
+ * are loaded up front with one query.
+ *
+ * Enable with sqs.batch-listener.enabled=true; it polls its own queue, sqs.queue-name-batch.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sqs.batch-listener.enabled", havingValue = "true")
+public class SqsBatchMessageListener {
+
+    private final MessageVisibilityService messageVisibilityService;
+    private final ObjectProvider<NotificationLoader> notificationLoader;
+
+    @Value("${sqs.batch-listener.failed-visibility-seconds:5}")
+    private int failedVisibilitySeconds;
+
+    @SqsListener(value = "${sqs.queue-name-batch}", id = "batch-listener",
+            factory = "batchSqsListenerContainerFactory")
+    public void processBatch(List<Message<MessageDto>> messages,
+                             BatchAcknowledgement<MessageDto> acknowledgement) {
+
+        log.info("Received batch of {} messages", messages.size());
+        Map<String, NotificationDocument> notifications = prefetchNotifications(messages);
+
+        List<Message<MessageDto>> succeeded = new ArrayList<>(messages.size());
+        List<Message<MessageDto>> failed = new ArrayList<>();
+        // FIFO: once a message fails, later messages of the same group must not overtake it
+        Set<String> failedGroups = new HashSet<>();
+
+        for (Message<MessageDto> message : messages) {
+            String messageGroupId = message.getHeaders()
+                    .get(SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_GROUP_ID_HEADER, String.class);
+
+            if (messageGroupId != null && failedGroups.contains(messageGroupId)) {
+                failed.add(message);
+                continue;
+            }
+
+            try {
+                processMessage(message.getPayload(), notifications);
+                succeeded.add(message);
+            } catch (Exception e) {
+                log.error("Error processing message {} in batch: {}", messageId(message), e.getMessage(), e);
+                failed.add(message);
+                if (messageGroupId != null) {
+                    failedGroups.add(messageGroupId);
+                }
+            }
+        }
+
+        // One DeleteMessageBatch for all successes
+        if (!succeeded.isEmpty()) {
+            acknowledgement.acknowledgeAsync(succeeded).whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    log.error("Failed to acknowledge batch of {} messages: {}", succeeded.size(), throwable.getMessage());
+                }
+            });
+        }
+
+        // One ChangeMessageVisibilityBatch for all failures, so they are retried sooner than the visibility timeout
+        if (!failed.isEmpty()) {
+            messageVisibilityService.changeVisibility(failed, failedVisibilitySeconds).whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    log.error("Failed to change visibility of {} failed messages: {}", failed.size(), throwable.getMessage());
+                }
+            });
+        }
+
+        log.info("Batch processed: {} acknowledged, {} returned to queue", succeeded.size(), failed.size());
+    }
+
+    // The SQS MessageId, as the other listeners log it
+    private static String messageId(Message<?> message) {
+        software.amazon.awssdk.services.sqs.model.Message source = message.getHeaders()
+                .get(SqsHeaders.SQS_SOURCE_DATA_HEADER, software.amazon.awssdk.services.sqs.model.Message.class);
+        return source != null ? source.messageId() : String.valueOf(message.getHeaders().getId());
+    }
+
+    private Map<String, NotificationDocument> prefetchNotifications(List<Message<MessageDto>> messages) {
+        NotificationLoader loader = notificationLoader.getIfAvailable();
+        if (loader == null) {
+            return Collections.emptyMap();
+        }
+        List<String> notificationIds = new ArrayList<>();
+        for (Message<MessageDto> message : messages) {
+            if ("NOTIFICATION".equals(message.getPayload().getType()) && message.getPayload().getContent() != null) {
+                notificationIds.add(message.getPayload().getContent());
+            }
+        }
+        if (notificationIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return loader.loadAll(notificationIds);
+        } catch (RuntimeException e) {
+            // Fail the notifications individually below rather than the whole poll
+            log.warn("Prefetching {} notifications failed: {}", notificationIds.size(), e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private void processMessage(MessageDto message, Map<String, NotificationDocument> notifications) {
+        switch (message.getType()) {
+            case "ORDER":
+                log.info("Processing order: {}", message.getContent());
+                // Add order processing logic
+                break;
+            case "NOTIFICATION":
+                log.info("Processing notification: {}", message.getContent());
+                if (notificationLoader.getIfAvailable() != null && !notifications.containsKey(message.getContent())) {
+                    throw new IllegalStateException("Notification not loaded: " + message.getContent());
+                }
+                // Add notification processing logic
+                break;
+            default:
+                log.warn("Unknown message type: {}", message.getType());
+        }
+    }
+}
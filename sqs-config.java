@@ -1,18 +1,35 @@
 package com.example.sqslistener.config;
 
+import com.example.sqslistener.concurrency.AdaptiveConcurrencyController;
+import com.example.sqslistener.concurrency.AdaptiveSqsListenerContainerFactory;
+import com.example.sqslistener.concurrency.QueueTopology;
+import com.example.sqslistener.concurrency.TopologySqsListenerContainerFactory;
+import com.example.sqslistener.listener.VisibilityHeartbeat;
+import com.example.sqslistener.metrics.AwsHttpPoolMetrics;
+import com.example.sqslistener.metrics.AwsSdkCallMetrics;
+import com.example.sqslistener.metrics.ListenerMetrics;
 import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.ListenerMode;
+import io.awspring.cloud.sqs.listener.SqsContainerOptionsBuilder;
 import io.awspring.cloud.sqs.listener.acknowledgement.AcknowledgementOrdering;
+import io.awspring.cloud.sqs.listener.acknowledgement.AcknowledgementResultCallback;
 import io.awspring.cloud.sqs.listener.acknowledgement.handler.AcknowledgementMode;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
 import software.amazon.awssdk.auth.credentials.InstanceProfileCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 @Configuration
@@ -21,8 +38,13 @@ public class SqsConfig {
     @Value("${aws.region:us-east-1}")
     private String awsRegion;
 
+    /**
+     * Runs on the shared, tuned async HTTP client (see AwsHttpClientConfig) rather than SDK
+     * defaults, so listener polls, batch acks and visibility calls share one warm pool.
+     */
     @Bean
-    public SqsAsyncClient sqsAsyncClient() {
+    public SqsAsyncClient sqsAsyncClient(AwsSdkCallMetrics awsSdkCallMetrics, SdkAsyncHttpClient awsAsyncHttpClient,
+                                         AwsHttpPoolMetrics awsHttpPoolMetrics) {
         log.info("Configuring SQS client with IAM role in region: {}", awsRegion);
         
         return SqsAsyncClient.builder()
@@ -35,24 +57,123 @@ public class SqsConfig {
                 // 4. Instance profile credentials (EC2/ECS IAM role)
                 // 5. Container credentials (ECS task role)
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClient(awsAsyncHttpClient)
+                // Times every call; ReceiveMessage is the poll latency
+                .overrideConfiguration(config -> config
+                        .addExecutionInterceptor(awsSdkCallMetrics)
+                        .addMetricPublisher(awsHttpPoolMetrics))
                 .build();
     }
 
+    /**
+     * With sqs.adaptive.enabled=true the containers get an AIMD-controlled concurrency limit and
+     * poll size (see AdaptiveConcurrencyController); otherwise the fixed values below apply.
+     * With sqs.topology.enabled=true each listener gets its own queue settings and executor and
+     * all of them share a weighted global in-flight cap (see QueueTopology); it takes precedence
+     * over the adaptive controller.
+     * With sqs.heartbeat.enabled=true in-flight messages get their visibility extended until
+     * they are acknowledged (see VisibilityHeartbeat).
+     */
     @Bean
-    public SqsMessageListenerContainerFactory<Object> defaultSqsListenerContainerFactory(SqsAsyncClient sqsAsyncClient) {
-        return SqsMessageListenerContainerFactory
+    public SqsMessageListenerContainerFactory<Object> defaultSqsListenerContainerFactory(
+            SqsAsyncClient sqsAsyncClient, ObjectProvider<AdaptiveConcurrencyController> adaptiveController,
+            ObjectProvider<QueueTopology> queueTopology,
+            ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat, ObjectProvider<ListenerMetrics> listenerMetrics) {
+        AdaptiveConcurrencyController controller = adaptiveController.getIfAvailable();
+        QueueTopology topology = queueTopology.getIfAvailable();
+        SqsMessageListenerContainerFactory<Object> factory;
+        if (topology != null) {
+            if (controller != null) {
+                log.warn("sqs.topology.enabled and sqs.adaptive.enabled are both set; the queue topology is used");
+            }
+            factory = new TopologySqsListenerContainerFactory(topology);
+            factory.setSqsAsyncClient(sqsAsyncClient);
+            factory.configure(this::defaultContainerOptions);
+        } else if (controller == null) {
+            factory = SqsMessageListenerContainerFactory
+                    .builder()
+                    .sqsAsyncClient(sqsAsyncClient)
+                    .configure(this::defaultContainerOptions)
+                    .build();
+        } else {
+            factory = new AdaptiveSqsListenerContainerFactory(controller);
+            factory.setSqsAsyncClient(sqsAsyncClient);
+            factory.configure(this::defaultContainerOptions);
+        }
+        registerListenerHooks(factory, visibilityHeartbeat, listenerMetrics);
+        return factory;
+    }
+
+    /**
+     * Adds the heartbeat and listener metrics, whichever are enabled, as interceptors and
+     * acknowledgement callbacks. The factory takes a single callback, so several are combined.
+     */
+    static void registerListenerHooks(SqsMessageListenerContainerFactory<Object> factory,
+                                       ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat,
+                                       ObjectProvider<ListenerMetrics> listenerMetrics) {
+        List<AcknowledgementResultCallback<Object>> callbacks = new ArrayList<>();
+        visibilityHeartbeat.ifAvailable(heartbeat -> {
+            factory.addMessageInterceptor(heartbeat);
+            callbacks.add(heartbeat);
+        });
+        listenerMetrics.ifAvailable(metrics -> {
+            factory.addMessageInterceptor(metrics);
+            callbacks.add(metrics);
+        });
+        if (callbacks.size() == 1) {
+            factory.setAcknowledgementResultCallback(callbacks.get(0));
+        } else if (!callbacks.isEmpty()) {
+            factory.setAcknowledgementResultCallback(new AcknowledgementResultCallback<>() {
+                @Override
+                public void onSuccess(Collection<Message<Object>> messages) {
+                    callbacks.forEach(callback -> callback.onSuccess(messages));
+                }
+
+                @Override
+                public void onFailure(Collection<Message<Object>> messages, Throwable t) {
+                    callbacks.forEach(callback -> callback.onFailure(messages, t));
+                }
+            });
+        }
+    }
+
+    private void defaultContainerOptions(SqsContainerOptionsBuilder options) {
+        options
+                .acknowledgementMode(AcknowledgementMode.MANUAL)
+                .acknowledgementInterval(Duration.ofSeconds(3))
+                .acknowledgementThreshold(5)
+                .acknowledgementOrdering(AcknowledgementOrdering.ORDERED)
+                .maxConcurrentMessages(10)
+                .pollTimeout(Duration.ofSeconds(20))
+                .maxMessagesPerPoll(10)
+                .messageVisibility(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Factory for batch listeners: the whole poll is delivered as one List and
+     * acknowledgements are sent immediately, so each acknowledge(Collection) call
+     * becomes a single DeleteMessageBatch request.
+     */
+    @Bean
+    public SqsMessageListenerContainerFactory<Object> batchSqsListenerContainerFactory(
+            SqsAsyncClient sqsAsyncClient, ObjectProvider<VisibilityHeartbeat> visibilityHeartbeat,
+            ObjectProvider<ListenerMetrics> listenerMetrics) {
+        SqsMessageListenerContainerFactory<Object> factory = SqsMessageListenerContainerFactory
                 .builder()
                 .sqsAsyncClient(sqsAsyncClient)
                 .configure(options -> options
+                        .listenerMode(ListenerMode.BATCH)
                         .acknowledgementMode(AcknowledgementMode.MANUAL)
-                        .acknowledgementInterval(Duration.ofSeconds(3))
-                        .acknowledgementThreshold(5)
+                        .acknowledgementInterval(Duration.ZERO)
+                        .acknowledgementThreshold(0)
                         .acknowledgementOrdering(AcknowledgementOrdering.ORDERED)
                         .maxConcurrentMessages(10)
                         .pollTimeout(Duration.ofSeconds(20))
                         .maxMessagesPerPoll(10)
-                        .messageVisibilityTimeout(Duration.ofSeconds(30))
+                        .messageVisibility(Duration.ofSeconds(30))
                 )
                 .build();
+        registerListenerHooks(factory, visibilityHeartbeat, listenerMetrics);
+        return factory;
     }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package com.example.sqslistener.listener;
 
+import com.example.sqslistener.dedup.MessageDeduplicationCache;
+import com.example.sqslistener.retry.MessageRetryHandler;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
 import io.awspring.cloud.sqs.listener.acknowledgement.Acknowledgement;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.annotation.Header;
@@ -13,36 +17,50 @@ import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class SqsMessageListener {
 
-    @SqsListener(value = "${sqs.queue-name}")
+    private static final String LISTENER_ID = "sqs-listener";
+
+    private final MessageDeduplicationCache deduplicationCache;
+    private final MessageRetryHandler retryHandler;
+    private final ListenerEventLog eventLog;
+
+    @SqsListener(value = "${sqs.queue-name}", id = LISTENER_ID)
     public void processMessage(@Payload String messageBody,
                               @Header("MessageId") String messageId,
                               @Header("ApproximateReceiveCount") String receiveCount,
+                              @Header(name = SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER, required = false) String deduplicationId,
                               Acknowledgement acknowledgement,
                               Message<String> message) {
         
+        long start = System.nanoTime();
+        String dedupKey = MessageDeduplicationCache.key(deduplicationId, messageId);
+        if (deduplicationCache.isProcessed(dedupKey)) {
+            // Already processed here but the acknowledgement never reached SQS - just delete it
+            acknowledgement.acknowledge();
+            eventLog.processed(log, LISTENER_ID, messageId, null, start, "skipped as duplicate");
+            return;
+        }
+        
         try {
-            log.info("Received message with ID: {} (Attempt: {})", messageId, receiveCount);
-            log.info("Message body: {}", messageBody);
+            eventLog.received(log, messageId, receiveCount, messageBody);
             
             // Process your message here
             processBusinessLogic(messageBody);
+            deduplicationCache.markProcessed(dedupKey);
+            retryHandler.onSuccess(LISTENER_ID);
             
             // Manual acknowledgment - message will be deleted from queue
             acknowledgement.acknowledge();
-            log.info("Message {} acknowledged successfully", messageId);
+            eventLog.processed(log, LISTENER_ID, messageId, null, start, "acknowledged");
             
         } catch (Exception e) {
             log.error("Error processing message {}: {}", messageId, e.getMessage(), e);
             
-            // You can choose to:
-            // 1. Not acknowledge (message will become visible again after visibility timeout)
-            // 2. Or acknowledge anyway if you want to remove it despite the error
-            // 3. Or implement retry logic with acknowledgement.acknowledgeAsync()
-            
-            // For this example, we're not acknowledging on error
-            // The message will be retried after visibility timeout expires
+            // Retried after a backoff based on the error and receive count, or sent to the DLQ
+            retryHandler.onFailure(LISTENER_ID, message, e, acknowledgement);
+            eventLog.processed(log, LISTENER_ID, messageId, null, start, "failed");
         }
     }
 
@@ -54,7 +72,8 @@ public class SqsMessageListener {
                                    @Header("MessageId") String messageId,
                                    Acknowledgement acknowledgement) {
         
-        log.info("Processing async message: {}", messageId);
+        long start = System.nanoTime();
+        eventLog.received(log, messageId, null, null);
         
         // Async acknowledgment example
         CompletableFuture<Void> future = acknowledgement.acknowledgeAsync();
@@ -63,7 +82,7 @@ public class SqsMessageListener {
             if (throwable != null) {
                 log.error("Failed to acknowledge message {}: {}", messageId, throwable.getMessage());
             } else {
-                log.info("Message {} acknowledged asynchronously", messageId);
+                eventLog.processed(log, "async-listener", messageId, null, start, "acknowledged asynchronously");
             }
         });
     }
@@ -71,7 +90,7 @@ public class SqsMessageListener {
     private void processBusinessLogic(String messageBody) {
         // Simulate processing
         // Add your business logic here
-        log.info("Processing business logic for message: {}", messageBody);
+        log.debug("Processing business logic for message: {}", messageBody);
         
         // Simulate some work
         try {
@@ -1,51 +1,80 @@
 package com.example.sqslistener.listener;
 
+import com.example.sqslistener.concurrency.PriorityGate;
+import com.example.sqslistener.dedup.MessageDeduplicationCache;
 import com.example.sqslistener.model.MessageDto;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.sqslistener.model.MessageDtoReader;
+import com.example.sqslistener.notification.NotificationDocument;
+import com.example.sqslistener.notification.NotificationLoader;
+import com.example.sqslistener.retry.MessageRetryHandler;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
 import io.awspring.cloud.sqs.listener.acknowledgement.Acknowledgement;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class StructuredMessageListener {
     
-    private final ObjectMapper objectMapper;
+    private final MessageDtoReader messageDtoReader;
+    private final MessageDeduplicationCache deduplicationCache;
+    private final MessageRetryHandler retryHandler;
+    private final ListenerEventLog eventLog;
+    private final ObjectProvider<NotificationLoader> notificationLoader;
+    private final ObjectProvider<PriorityGate> priorityGate;
 
     /**
-     * Listener for JSON messages with automatic deserialization
+     * Listener for JSON messages with automatic deserialization, on its own queue
+     * sqs.queue-name-structured so it doesn't compete with sqs-listener on sqs.queue-name.
      */
-    @SqsListener(value = "${sqs.queue-name}", id = "structured-listener")
+    @SqsListener(value = "${sqs.queue-name-structured}", id = "structured-listener")
     public void processStructuredMessage(@Payload MessageDto message,
                                         @Header("MessageId") String messageId,
-                                        Acknowledgement acknowledgement) {
+                                        @Header(name = SqsHeaders.MessageSystemAttributes.SQS_MESSAGE_DEDUPLICATION_ID_HEADER, required = false) String deduplicationId,
+                                        Acknowledgement acknowledgement,
+                                        Message<MessageDto> sqsMessage) {
+        long start = System.nanoTime();
+        String dedupKey = MessageDeduplicationCache.key(deduplicationId, messageId);
+        if (deduplicationCache.isProcessed(dedupKey)) {
+            acknowledgement.acknowledge();
+            eventLog.processed(log, "structured-listener", messageId, message.getType(), start, "skipped as duplicate");
+            return;
+        }
+        
         try {
-            log.info("Received structured message: ID={}, Type={}", message.getId(), message.getType());
+            log.debug("Received structured message: ID={}, Type={}", message.getId(), message.getType());
             
-            // Process based on message type
-            switch (message.getType()) {
-                case "ORDER":
-                    processOrder(message);
-                    break;
-                case "NOTIFICATION":
-                    processNotification(message);
-                    break;
-                default:
-                    log.warn("Unknown message type: {}", message.getType());
+            PriorityGate gate = priorityGate.getIfAvailable();
+            if (gate == null) {
+                dispatch(message);
+            } else {
+                // Waits for a processing slot; more urgent messages held by the container go first
+                gate.run(priorityOf(message), () -> dispatch(message));
             }
+            deduplicationCache.markProcessed(dedupKey);
+            retryHandler.onSuccess("structured-listener");
             
             // Acknowledge after successful processing
             acknowledgement.acknowledge();
-            log.info("Message {} processed and acknowledged", messageId);
+            eventLog.processed(log, "structured-listener", messageId, message.getType(), start, "processed and acknowledged");
             
         } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                // Container shutting down while waiting for the priority gate
+                Thread.currentThread().interrupt();
+            }
             log.error("Failed to process structured message {}: {}", messageId, e.getMessage(), e);
-            // Message will not be acknowledged and will be retried
+            retryHandler.onFailure("structured-listener", sqsMessage, e, acknowledgement);
+            eventLog.processed(log, "structured-listener", messageId, message.getType(), start, "failed");
         }
     }
 
@@ -55,36 +84,70 @@ public class StructuredMessageListener {
     @SqsListener(value = "${sqs.queue-name-raw}", id = "raw-json-listener")
     public void processRawJsonMessage(@Payload String jsonMessage,
                                      @Header("MessageId") String messageId,
-                                     Acknowledgement acknowledgement) {
+                                     Acknowledgement acknowledgement,
+                                     Message<String> sqsMessage) {
+        long start = System.nanoTime();
         try {
-            // Manual JSON parsing
-            MessageDto message = objectMapper.readValue(jsonMessage, MessageDto.class);
-            log.info("Parsed message: {}", message);
+            eventLog.received(log, messageId, null, jsonMessage);
+            // Streaming parse; metadata stays unparsed until the business logic reads it
+            MessageDto message = messageDtoReader.read(jsonMessage);
+            log.debug("Parsed message: ID={}, Type={}", message.getId(), message.getType());
             
             // Process the message
             processBusinessLogic(message);
             
             // Manual acknowledgment
             acknowledgement.acknowledge();
+            retryHandler.onSuccess("raw-json-listener");
+            eventLog.processed(log, "raw-json-listener", messageId, message.getType(), start, "acknowledged");
             
         } catch (Exception e) {
             log.error("Failed to parse or process message {}: {}", messageId, e.getMessage(), e);
-            // Not acknowledging - message will be retried
+            // Unparseable JSON goes straight to the DLQ; other errors are retried with backoff
+            retryHandler.onFailure("raw-json-listener", sqsMessage, e, acknowledgement);
+            eventLog.processed(log, "raw-json-listener", messageId, null, start, "failed");
         }
     }
 
+    // Process based on message type
+    private void dispatch(MessageDto message) {
+        switch (message.getType()) {
+            case "ORDER":
+                processOrder(message);
+                break;
+            case "NOTIFICATION":
+                processNotification(message);
+                break;
+            default:
+                log.warn("Unknown message type: {}", message.getType());
+        }
+    }
+
+    private static PriorityGate.Priority priorityOf(MessageDto message) {
+        Map<String, Object> metadata = message.getMetadata();
+        return PriorityGate.Priority.of(metadata == null ? null : metadata.get("priority"));
+    }
+
     private void processOrder(MessageDto message) {
-        log.info("Processing order: {}", message.getContent());
+        log.debug("Processing order: {}", message.getContent());
         // Add order processing logic
     }
 
     private void processNotification(MessageDto message) {
-        log.info("Processing notification: {}", message.getContent());
+        log.debug("Processing notification: {}", message.getContent());
+        NotificationLoader loader = notificationLoader.getIfAvailable();
+        if (loader != null) {
+            // Coalesced with the lookups of the other listener threads into one query
+            NotificationDocument notification = loader.load(message.getContent()).join();
+            if (notification == null) {
+                throw new IllegalStateException("Notification not found: " + message.getContent());
+            }
+        }
         // Add notification processing logic
     }
 
     private void processBusinessLogic(MessageDto message) {
-        log.info("Processing message with custom logic: {}", message);
+        log.debug("Processing message with custom logic: {}", message);
         // Add your business logic here
     }
 }
\ No newline at end of file
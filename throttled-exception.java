@@ -0,0 +1,22 @@
+package com.example.sqslistener.retry;
+
+import java.time.Duration;
+
+/**
+ * Thrown when work is refused because a downstream rate limit is saturated. It is not a
+ * failure: RetryPolicy defers the message by retryAfter via its visibility timeout, without
+ * counting it against max-attempts or the retry budget.
+ */
+public class ThrottledException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.sqslistener.router;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its "virtual scheduling" form: the whole state is one AtomicLong,
+ * the instant at which the bucket would be full again (theoretical arrival time). Taking n
+ * tokens pushes that instant n emission intervals into the future; a caller may send as soon as
+ * it is no more than the bucket depth ahead of now. One CAS per call, no refill thread, and the
+ * answer is how long to wait rather than a yes/no, so callers can reschedule instead of spin.
+ */
+final class TokenBucket {
+    private final String spec;
+    private final long intervalNanos;
+    private final long depthNanos;
+    private final AtomicLong fullAt;
+
+    // A spec that failed to parse: remembered so it isn't parsed again, but never limits
+    static TokenBucket unlimited(String spec) {
+        return new TokenBucket(spec, 0L, 0);
+    }
+
+    private TokenBucket(String spec, long intervalNanos, int burst) {
+        this.spec = spec;
+        this.intervalNanos = intervalNanos;
+        this.depthNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Parses governance like "1000/second", "600/minute" or "50000/hour". Burst defaults to
+     * one second's worth of tokens (at least 1).
+     */
+    static TokenBucket parse(String spec, Integer burst) {
+        int slash = spec.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Rate limit must look like <count>/<unit>: " + spec);
+        }
+        long count = Long.parseLong(spec.substring(0, slash).trim());
+        if (count < 1) {
+            throw new IllegalArgumentException("Rate limit count must be positive: " + spec);
+        }
+        TimeUnit unit;
+        switch (spec.substring(slash + 1).trim().toLowerCase()) {
+            case "s":
+            case "sec":
+            case "second":
+                unit = TimeUnit.SECONDS;
+                break;
+            case "m":
+            case "min":
+            case "minute":
+                unit = TimeUnit.MINUTES;
+                break;
+            case "h":
+            case "hour":
+                unit = TimeUnit.HOURS;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown rate limit unit: " + spec);
+        }
+        long intervalNanos = Math.max(1L, unit.toNanos(1) / count);
+        int effectiveBurst = burst != null ? burst : (int) Math.max(1L, TimeUnit.SECONDS.toNanos(1) / intervalNanos);
+        return new TokenBucket(spec, intervalNanos, effectiveBurst);
+    }
+
+    /**
+     * Takes n tokens, borrowing from the future if needed; returns how long the caller has to
+     * wait before sending (0 = now).
+     */
+    long reserve(int n) {
+        long increment = intervalNanos * n;
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + increment;
+            if (fullAt.compareAndSet(current, next)) {
+                return Math.max(0L, next - now - depthNanos);
+            }
+        }
+    }
+
+    /**
+     * How long a reservation of n tokens would have to wait right now, without taking them.
+     */
+    long waitNanos(int n) {
+        long now = System.nanoTime();
+        return Math.max(0L, Math.max(fullAt.get(), now) + intervalNanos * n - now - depthNanos);
+    }
+
+    /**
+     * Tokens an idle (full) bucket grants within waitNanos: its burst plus what refills meanwhile.
+     */
+    long capacityWithin(long waitNanos) {
+        return intervalNanos == 0L ? Long.MAX_VALUE : (depthNanos + waitNanos) / intervalNanos;
+    }
+
+    boolean isUnlimited() { return intervalNanos == 0L; }
+    String getSpec() { return spec; }
+}
@@ -0,0 +1,41 @@
+package com.example.sqslistener.concurrency;
+
+import io.awspring.cloud.sqs.config.Endpoint;
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.BackPressureHandler;
+import io.awspring.cloud.sqs.listener.SqsContainerOptions;
+import io.awspring.cloud.sqs.listener.SqsContainerOptionsBuilder;
+import io.awspring.cloud.sqs.listener.SqsMessageListenerContainer;
+
+/**
+ * Container factory that gives every container the settings and executor of its queue in the
+ * QueueTopology (looked up by @SqsListener id), and a back-pressure handler drawing from the
+ * topology's shared, weighted in-flight cap instead of a private semaphore. Fails the container
+ * if its queue is already polled by another lane.
+ */
+public class TopologySqsListenerContainerFactory extends SqsMessageListenerContainerFactory<Object> {
+
+    private final QueueTopology topology;
+
+    public TopologySqsListenerContainerFactory(QueueTopology topology) {
+        this.topology = topology;
+    }
+
+    @Override
+    protected void configureContainerOptions(Endpoint endpoint, SqsContainerOptionsBuilder options) {
+        super.configureContainerOptions(endpoint, options);
+        topology.claimQueues(endpoint.getId(), endpoint.getLogicalNames());
+        topology.configure(endpoint.getId(), options);
+    }
+
+    @Override
+    protected SqsMessageListenerContainer<Object> createContainerInstance(Endpoint endpoint,
+                                                                          SqsContainerOptions containerOptions) {
+        return new SqsMessageListenerContainer<>(getSqsAsyncClientInstance(), containerOptions) {
+            @Override
+            protected BackPressureHandler createBackPressureHandler() {
+                return topology.backPressureHandler(getId(), getContainerOptions());
+            }
+        };
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.sqslistener.config;
+
+import io.awspring.cloud.sqs.listener.AbstractMessageListenerContainer;
+import io.awspring.cloud.sqs.listener.MessageListenerContainer;
+import io.awspring.cloud.sqs.listener.MessageListenerContainerRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Opt-in virtual-thread execution for selected listeners, chosen by @SqsListener id:
+ *
+ *   sqs.virtual-threads.enabled=true
+ *   sqs.virtual-threads.listener-ids=async-listener,structured-listener
+ *   sqs.virtual-threads.max-concurrent-messages=256
+ *
+ * Selected containers get the virtual-thread executor as componentsTaskExecutor, and their
+ * maxConcurrentMessages is raised to the permit count, so a blocked listener (MongoDB,
+ * EventBridge) parks a virtual thread instead of holding a platform thread. Other listeners
+ * keep the factory defaults.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "sqs.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadListenerConfig {
+
+    @Bean
+    public VirtualThreadTaskExecutor virtualThreadListenerExecutor(
+            @Value("${sqs.virtual-threads.max-concurrent-messages:256}") int maxConcurrentMessages) {
+        return new VirtualThreadTaskExecutor(maxConcurrentMessages);
+    }
+
+    @Bean
+    public SmartLifecycle virtualThreadListenerCustomizer(MessageListenerContainerRegistry registry,
+                                                          VirtualThreadTaskExecutor virtualThreadListenerExecutor,
+                                                          @Value("${sqs.virtual-threads.listener-ids:}") List<String> listenerIds) {
+        return new ContainerCustomizer(registry, virtualThreadListenerExecutor, listenerIds);
+    }
+
+    /**
+     * Reconfigures the selected containers after they are registered and before the
+     * registry starts them (containers reject option changes while running).
+     */
+    static class ContainerCustomizer implements SmartLifecycle {
+
+        private final MessageListenerContainerRegistry registry;
+        private final VirtualThreadTaskExecutor executor;
+        private final List<String> listenerIds;
+        private volatile boolean running;
+
+        ContainerCustomizer(MessageListenerContainerRegistry registry, VirtualThreadTaskExecutor executor,
+                            List<String> listenerIds) {
+            this.registry = registry;
+            this.executor = executor;
+            this.listenerIds = listenerIds;
+        }
+
+        @Override
+        public void start() {
+            for (String listenerId : listenerIds) {
+                MessageListenerContainer<?> container = registry.getContainerById(listenerId);
+                if (!(container instanceof AbstractMessageListenerContainer<?, ?, ?> configurable)) {
+                    log.warn("No configurable listener container with id '{}', leaving it on platform threads", listenerId);
+                    continue;
+                }
+                configurable.configure(options -> options
+                        .componentsTaskExecutor(executor)
+                        .maxConcurrentMessages(executor.getMaxConcurrency()));
+                log.info("Listener '{}' runs on virtual threads (max {} concurrent messages)",
+                        listenerId, executor.getMaxConcurrency());
+            }
+            running = true;
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public int getPhase() {
+            // Just before the listener container registry
+            return MessageListenerContainer.DEFAULT_PHASE - 1;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.sqslistener.listener;
+
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.acknowledgement.AcknowledgementResultCallback;
+import io.awspring.cloud.sqs.listener.interceptor.MessageInterceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps in-flight messages invisible while they are still being worked on.
+ *
+ * Registered on the listener container factories as interceptor and acknowledgement callback:
+ * every received message is tracked from the moment it reaches the listener until its
+ * acknowledgement completes. Every interval, the messages whose visibility expires within
+ * extend-before get it reset to visibility-timeout with one ChangeMessageVisibilityBatch call
+ * per 10 messages.
+ *
+ * Tracking ends with the acknowledgement, not with the listener method: listeners that hand the
+ * message off (grouped-listener, the async pipeline) return at once and acknowledge later, and
+ * stay extended until then. A message whose listener threw is released at once so its retry
+ * isn't held back, MessageRetryHandler releases the ones it reschedules, and nothing is
+ * extended past max-age.
+ *
+ * Enable with sqs.heartbeat.enabled=true.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sqs.heartbeat.enabled", havingValue = "true")
+public class VisibilityHeartbeat implements MessageInterceptor<Object>, AcknowledgementResultCallback<Object> {
+
+    private final Map<String, InFlightMessage> inFlight = new ConcurrentHashMap<>();
+    private final MessageVisibilityService messageVisibilityService;
+    private final ScheduledExecutorService scheduler;
+    private final Counter extensions;
+    private final Duration visibilityTimeout;
+    private final Duration extendBefore;
+    private final Duration maxAge;
+
+    public VisibilityHeartbeat(MessageVisibilityService messageVisibilityService,
+                               MeterRegistry meterRegistry,
+                               @Value("${sqs.heartbeat.interval:5s}") Duration interval,
+                               @Value("${sqs.heartbeat.visibility-timeout:30s}") Duration visibilityTimeout,
+                               @Value("${sqs.heartbeat.extend-before:10s}") Duration extendBefore,
+                               @Value("${sqs.heartbeat.max-age:30m}") Duration maxAge) {
+        this.messageVisibilityService = messageVisibilityService;
+        this.visibilityTimeout = visibilityTimeout;
+        this.extendBefore = extendBefore;
+        this.maxAge = maxAge;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqs-visibility-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.extensions = Counter.builder("sqs.visibility.extensions")
+                .description("Messages whose visibility timeout was extended")
+                .register(meterRegistry);
+        Gauge.builder("sqs.visibility.in.flight", inFlight, Map::size)
+                .description("Messages tracked by the visibility heartbeat")
+                .register(meterRegistry);
+        Gauge.builder("sqs.visibility.oldest.in.flight.seconds", this, VisibilityHeartbeat::oldestInFlightSeconds)
+                .description("Age of the longest-running tracked message")
+                .register(meterRegistry);
+
+        scheduler.scheduleWithFixedDelay(this::extendDueMessages, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Visibility heartbeat started: interval={}, visibilityTimeout={}, extendBefore={}",
+                interval, visibilityTimeout, extendBefore);
+    }
+
+    @Override
+    public Message<Object> intercept(Message<Object> message) {
+        track(message);
+        return message;
+    }
+
+    @Override
+    public Collection<Message<Object>> intercept(Collection<Message<Object>> messages) {
+        messages.forEach(this::track);
+        return messages;
+    }
+
+    @Override
+    public void afterProcessing(Message<Object> message, Throwable t) {
+        if (t != null) {
+            untrack(message);
+        }
+    }
+
+    @Override
+    public void afterProcessing(Collection<Message<Object>> messages, Throwable t) {
+        if (t != null) {
+            messages.forEach(this::untrack);
+        }
+    }
+
+    @Override
+    public void onSuccess(Collection<Message<Object>> messages) {
+        messages.forEach(this::untrack);
+    }
+
+    @Override
+    public void onFailure(Collection<Message<Object>> messages, Throwable t) {
+        messages.forEach(this::untrack);
+    }
+
+    /**
+     * Stops extending a message whose visibility is now managed elsewhere (e.g. set to a retry
+     * backoff), so the next heartbeat doesn't override it.
+     */
+    public void release(Message<?> message) {
+        untrack(message);
+    }
+
+    private void track(Message<?> message) {
+        String receiptHandle = receiptHandle(message);
+        if (receiptHandle != null) {
+            long now = System.nanoTime();
+            inFlight.putIfAbsent(receiptHandle, new InFlightMessage(message, now, now + visibilityTimeout.toNanos()));
+        }
+    }
+
+    private void untrack(Message<?> message) {
+        String receiptHandle = receiptHandle(message);
+        if (receiptHandle != null) {
+            inFlight.remove(receiptHandle);
+        }
+    }
+
+    private void extendDueMessages() {
+        try {
+            long now = System.nanoTime();
+            long dueBefore = now + extendBefore.toNanos();
+            List<InFlightMessage> due = new ArrayList<>();
+
+            inFlight.values().removeIf(tracked -> {
+                boolean expired = now - tracked.receivedAt > maxAge.toNanos();
+                if (!expired && tracked.visibleAt <= dueBefore) {
+                    due.add(tracked);
+                }
+                return expired;
+            });
+            if (due.isEmpty()) {
+                return;
+            }
+
+            List<Message<?>> messages = new ArrayList<>(due.size());
+            due.forEach(tracked -> messages.add(tracked.message));
+            long visibleAt = now + visibilityTimeout.toNanos();
+            messageVisibilityService.changeVisibility(messages, (int) visibilityTimeout.toSeconds())
+                    .whenComplete((result, throwable) -> {
+                        if (throwable != null) {
+                            log.warn("Failed to extend visibility of {} in-flight messages: {}", due.size(), throwable.getMessage());
+                            return;
+                        }
+                        due.forEach(tracked -> tracked.visibleAt = visibleAt);
+                        extensions.increment(due.size());
+                    });
+            log.debug("Extending visibility of {} in-flight messages by {}", due.size(), visibilityTimeout);
+        } catch (Exception e) {
+            log.warn("Visibility heartbeat run failed: {}", e.getMessage());
+        }
+    }
+
+    public double oldestInFlightSeconds() {
+        long now = System.nanoTime();
+        long oldest = 0;
+        for (InFlightMessage tracked : inFlight.values()) {
+            oldest = Math.max(oldest, now - tracked.receivedAt);
+        }
+        return oldest / 1_000_000_000.0;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static String receiptHandle(Message<?> message) {
+        return message.getHeaders().get(SqsHeaders.SQS_RECEIPT_HANDLE_HEADER, String.class);
+    }
+
+    private static final class InFlightMessage {
+        private final Message<?> message;
+        private final long receivedAt;
+        private volatile long visibleAt;
+
+        private InFlightMessage(Message<?> message, long receivedAt, long visibleAt) {
+            this.message = message;
+            this.receivedAt = receivedAt;
+            this.visibleAt = visibleAt;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.sqslistener.concurrency;
+
+import io.awspring.cloud.sqs.listener.BatchAwareBackPressureHandler;
+import io.awspring.cloud.sqs.listener.IdentifiableContainerComponent;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Node-wide cap on messages in flight, shared by the queue containers of the QueueTopology.
+ *
+ * Every queue (lane) has its own concurrency limit and a weight. The global cap is split into
+ * guaranteed shares proportional to the weights (at least 1, at most the lane's limit):
+ *  - a lane below its share always gets capacity as soon as any is free;
+ *  - beyond its share a lane may borrow idle capacity, except what waiting lanes below their
+ *    share are owed, and it yields to any waiting lane of higher weight.
+ * So an idle queue's capacity is used by the others, a slow queue can't hold more than its
+ * limit, and when everything is busy the urgent (heavy) queues are served first without
+ * starving the light ones below their share.
+ *
+ * One lock for all lanes: decisions need a consistent view of every lane, and the lock is only
+ * taken once per poll and once per finished message.
+ */
+public class WeightedInFlightLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final int globalLimit;
+    private int inFlight;
+
+    public WeightedInFlightLimiter(int globalLimit) {
+        if (globalLimit < 1) {
+            throw new IllegalArgumentException("Global in-flight limit must be positive: " + globalLimit);
+        }
+        this.globalLimit = globalLimit;
+    }
+
+    /**
+     * Handler for a container (re)starting on the given lane. A restarted container keeps its
+     * lane; the previous handler was drained when the container stopped.
+     */
+    public LaneHandler register(String laneId, int limit, int weight, int batchSize, Duration acquireTimeout) {
+        lock.lock();
+        try {
+            Lane lane = lanes.computeIfAbsent(laneId, Lane::new);
+            lane.limit = Math.max(1, limit);
+            lane.weight = Math.max(1, weight);
+            recomputeShares();
+            return new LaneHandler(lane, Math.min(batchSize, lane.limit), acquireTimeout);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recomputeShares() {
+        int totalWeight = 0;
+        for (Lane lane : lanes.values()) {
+            totalWeight += lane.weight;
+        }
+        for (Lane lane : lanes.values()) {
+            int share = (int) ((long) globalLimit * lane.weight / totalWeight);
+            lane.share = Math.min(lane.limit, Math.max(1, share));
+        }
+    }
+
+    private int request(Lane lane, int amount, Duration timeout) throws InterruptedException {
+        long remainingNanos = timeout.toNanos();
+        lock.lockInterruptibly();
+        try {
+            lane.waiting++;
+            try {
+                while (true) {
+                    int granted = grantable(lane, amount);
+                    if (granted > 0) {
+                        lane.inFlight += granted;
+                        inFlight += granted;
+                        return granted;
+                    }
+                    if (remainingNanos <= 0) {
+                        return 0;
+                    }
+                    remainingNanos = released.awaitNanos(remainingNanos);
+                }
+            } finally {
+                lane.waiting--;
+                // Whatever this lane didn't take may now go to a lane that yielded to it
+                if (inFlight < globalLimit) {
+                    released.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Permits the lane may take right now; called with the lock held
+    private int grantable(Lane lane, int amount) {
+        int wanted = Math.min(amount, lane.limit - lane.inFlight);
+        int free = globalLimit - inFlight;
+        if (wanted <= 0 || free <= 0) {
+            return 0;
+        }
+        int guaranteed = Math.min(Math.max(0, lane.share - lane.inFlight), free);
+        int borrowable = 0;
+        if (!yieldsToHeavierLane(lane)) {
+            borrowable = Math.max(0, free - guaranteed - owedToWaitingLanes(lane));
+        }
+        return Math.min(wanted, guaranteed + borrowable);
+    }
+
+    private boolean yieldsToHeavierLane(Lane lane) {
+        for (Lane other : lanes.values()) {
+            if (other != lane && other.waiting > 0 && other.weight > lane.weight && other.inFlight < other.limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int owedToWaitingLanes(Lane lane) {
+        int owed = 0;
+        for (Lane other : lanes.values()) {
+            if (other != lane && other.waiting > 0) {
+                owed += Math.max(0, other.share - other.inFlight);
+            }
+        }
+        return owed;
+    }
+
+    private void release(Lane lane, int amount) {
+        lock.lock();
+        try {
+            int returned = Math.min(amount, lane.inFlight);
+            lane.inFlight -= returned;
+            inFlight -= returned;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean drain(Lane lane, Duration timeout) {
+        long remainingNanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (lane.inFlight > 0) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = released.awaitNanos(remainingNanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getGlobalLimit() {
+        return globalLimit;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Collection<String> getLaneIds() {
+        return lanes.keySet();
+    }
+
+    public int getInFlight(String laneId) {
+        Lane lane = lanes.get(laneId);
+        if (lane == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return lane.inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getShare(String laneId) {
+        Lane lane = lanes.get(laneId);
+        if (lane == null) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            return lane.share;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Guarded by lock
+    private static final class Lane {
+        private final String id;
+        private int limit;
+        private int weight;
+        private int share;
+        private int inFlight;
+        private int waiting;
+
+        private Lane(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * The back-pressure handler of one container: its permits come from the lane, and so from
+     * the global cap. Grants may be partial; the container then polls for fewer messages.
+     */
+    public final class LaneHandler implements BatchAwareBackPressureHandler, IdentifiableContainerComponent {
+
+        private final Lane lane;
+        private final int batchSize;
+        private final Duration acquireTimeout;
+        private String id;
+
+        private LaneHandler(Lane lane, int batchSize, Duration acquireTimeout) {
+            this.lane = lane;
+            this.batchSize = batchSize;
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        @Override
+        public int requestBatch() throws InterruptedException {
+            return request(batchSize);
+        }
+
+        @Override
+        public int request(int amount) throws InterruptedException {
+            return WeightedInFlightLimiter.this.request(lane, amount, acquireTimeout);
+        }
+
+        @Override
+        public void releaseBatch() {
+            release(batchSize);
+        }
+
+        @Override
+        public void release(int amount) {
+            WeightedInFlightLimiter.this.release(lane, amount);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public boolean drain(Duration timeout) {
+            return WeightedInFlightLimiter.this.drain(lane, timeout);
+        }
+
+        @Override
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "WeightedInFlightLimiter.LaneHandler[" + lane.id + ", limit=" + lane.limit + ", weight="
+                    + lane.weight + ", share=" + lane.share + ", global=" + globalLimit + "]";
+        }
+    }
+}